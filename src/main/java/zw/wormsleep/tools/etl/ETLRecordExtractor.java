@@ -0,0 +1,12 @@
+package zw.wormsleep.tools.etl;
+
+import zw.wormsleep.tools.etl.record.ETLRecord;
+import zw.wormsleep.tools.etl.record.RecordSchema;
+
+import java.util.Iterator;
+
+public interface ETLRecordExtractor {
+    RecordSchema getSchema(); // 记录结构 ( 列名与位置的对应关系 )
+
+    Iterator<ETLRecord> records(); // 记录遍历器 ( 返回的 ETLRecord 对象可能被复用, 需在下一次 next() 前处理完毕 )
+}
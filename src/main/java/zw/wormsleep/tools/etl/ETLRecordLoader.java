@@ -0,0 +1,6 @@
+package zw.wormsleep.tools.etl;
+
+
+public interface ETLRecordLoader {
+    void load(ETLRecordExtractor extractor, ETLRecordTransformer transformer);
+}
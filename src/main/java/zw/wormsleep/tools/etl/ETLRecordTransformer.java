@@ -0,0 +1,7 @@
+package zw.wormsleep.tools.etl;
+
+import zw.wormsleep.tools.etl.record.ETLRecord;
+
+public interface ETLRecordTransformer {
+    void transform(ETLRecord record);
+}
@@ -7,14 +7,21 @@ import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.dom4j.Document;
 import org.dom4j.DocumentException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import zw.wormsleep.tools.etl.config.*;
 import zw.wormsleep.tools.etl.database.DatabaseHelper;
+import zw.wormsleep.tools.etl.extractor.ChunkedTextExtractor;
 import zw.wormsleep.tools.etl.extractor.DatabaseExtractor;
 import zw.wormsleep.tools.etl.extractor.ExcelExtractor;
+import zw.wormsleep.tools.etl.extractor.PartitionedDatabaseExtractor;
+import zw.wormsleep.tools.etl.extractor.StreamingExcelExtractor;
+import zw.wormsleep.tools.etl.extractor.StreamingXmlExtractor;
 import zw.wormsleep.tools.etl.extractor.TextETLExtractor;
 import zw.wormsleep.tools.etl.extractor.XmlExtractor;
 import zw.wormsleep.tools.etl.loader.DatabaseLoader;
 import zw.wormsleep.tools.etl.loader.DatabasePlusLoader;
+import zw.wormsleep.tools.etl.loader.ExcelLoader;
 import zw.wormsleep.tools.etl.loader.GExcelLoader;
 import zw.wormsleep.tools.etl.loader.TextLoader;
 import zw.wormsleep.tools.etl.transformer.SimpleETLTransformer;
@@ -23,9 +30,16 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 public class ETLUtils {
+    static final Logger logger = LoggerFactory.getLogger(ETLUtils.class);
 
     /**
      * 数据库对数据库
@@ -77,12 +91,7 @@ public class ETLUtils {
         ExtractConfig extractConfig = new SimpleExtractConfig(businessType);
         LoadConfig loadConfig = new SimpleLoadConfig(businessType);
 
-        ETLExtractor extractor = null;
-        if (parameters != null) {
-            extractor = new DatabaseExtractor(extractConfig, parameters);
-        } else {
-            extractor = new DatabaseExtractor(extractConfig);
-        }
+        ETLExtractor extractor = getDatabaseExtractor(extractConfig, parameters);
 
         if (transformer == null) {
             transformer = new SimpleETLTransformer(new SimpleTransformConfig(
@@ -118,12 +127,7 @@ public class ETLUtils {
             loadConfig = new SimpleLoadConfig(businessType);
         }
 
-        ETLExtractor extractor = null;
-        if (parameters != null) {
-            extractor = new DatabaseExtractor(extractConfig, parameters);
-        } else {
-            extractor = new DatabaseExtractor(extractConfig);
-        }
+        ETLExtractor extractor = getDatabaseExtractor(extractConfig, parameters);
 
         if (transformer == null && configuration.canRead()) {
             transformer = new SimpleETLTransformer(new SimpleTransformConfig(
@@ -135,6 +139,30 @@ public class ETLUtils {
         loader.load(extractor, transformer);
     }
 
+    /**
+     * 获取数据库抽取器 ( 配置了分区字段且分区数大于 1 或显式分区边界时使用分区并行抽取 )
+     *
+     * @param extractConfig 抽取配置
+     * @param parameters    替换 input->sql 中的参数值
+     * @return
+     */
+    private static ETLExtractor getDatabaseExtractor(ExtractConfig extractConfig,
+                                                     Map<String, String> parameters) {
+        boolean partitioned = extractConfig.getPartitionColumn() != null
+                && (extractConfig.getPartitions() > 1 || extractConfig.getPartitionBoundaries().size() > 0);
+        // ROWID 分区无需分区字段
+        if (extractConfig.getPartitionMode().equalsIgnoreCase("rowid")) {
+            partitioned = extractConfig.getPartitions() > 1;
+        }
+
+        if (partitioned) {
+            return parameters != null ? new PartitionedDatabaseExtractor(extractConfig, parameters)
+                    : new PartitionedDatabaseExtractor(extractConfig);
+        }
+        return parameters != null ? new DatabaseExtractor(extractConfig, parameters)
+                : new DatabaseExtractor(extractConfig);
+    }
+
     /**
      * 同构或异构数据库表对表拷贝
      *
@@ -157,10 +185,13 @@ public class ETLUtils {
         boolean dropandcreate = loadConfig.getAutoCreateTable();
         boolean copydata = loadConfig.getTransmitData();
         int threadCount = loadConfig.getThreadCount();
+        int srcMaxThreads = loadConfig.getSourceMaxThreads();
+        int destMaxThreads = loadConfig.getTargetMaxThreads();
 
         DatabaseHelper.tables2tables(srcDatabase, srcCatalog, srcSchemaPattern,
                 srcTableNamePattern, destDatabase, destCatalog,
-                destSchemaPattern, dropandcreate, copydata, threadCount);
+                destSchemaPattern, dropandcreate, copydata, threadCount,
+                srcMaxThreads, destMaxThreads);
     }
 
     /**
@@ -175,6 +206,8 @@ public class ETLUtils {
     public static void excel2database(InputStream inp, String businessType)
             throws InvalidFormatException, IOException, ConfigurationException {
 
+        if (excel2databaseStreaming(inp, businessType, null)) return;
+
         Workbook wb = WorkbookFactory.create(inp);
 
         excel2database(wb, businessType, null);
@@ -195,6 +228,8 @@ public class ETLUtils {
     public static void excel2database(File in, String businessType)
             throws InvalidFormatException, IOException, ConfigurationException {
 
+        if (excel2databaseStreaming(in, businessType, null)) return;
+
         Workbook wb = WorkbookFactory.create(in);
 
         excel2database(wb, businessType, null);
@@ -217,6 +252,8 @@ public class ETLUtils {
                                       ETLTransformer transformer) throws InvalidFormatException,
             IOException, ConfigurationException {
 
+        if (excel2databaseStreaming(inp, businessType, transformer)) return;
+
         Workbook wb = WorkbookFactory.create(inp);
 
         excel2database(wb, businessType, transformer);
@@ -239,6 +276,8 @@ public class ETLUtils {
                                       ETLTransformer transformer) throws InvalidFormatException,
             IOException, ConfigurationException {
 
+        if (excel2databaseStreaming(in, businessType, transformer)) return;
+
         Workbook wb = WorkbookFactory.create(in);
 
         excel2database(wb, businessType, transformer);
@@ -247,6 +286,40 @@ public class ETLUtils {
 
     }
 
+    /**
+     * Excel 文件流式 ETL 处理方法 ( 配置 input.excelmode 为 stream 时启用 )
+     *
+     * @param in           文件或输入流
+     * @param businessType 业务类型
+     * @param transformer  转换规则
+     * @return 是否已按流式方式处理
+     * @throws ConfigurationException
+     * @throws IOException
+     */
+    private static boolean excel2databaseStreaming(Object in, String businessType,
+                                                   ETLTransformer transformer) throws ConfigurationException, IOException {
+        ExtractConfig extractConfig = new SimpleExtractConfig(businessType);
+        if (!extractConfig.getExcelMode().equalsIgnoreCase("stream")) return false;
+
+        LoadConfig loadConfig = new SimpleLoadConfig(businessType);
+
+        ETLExtractor extractor = null;
+        if (in instanceof File) {
+            extractor = new StreamingExcelExtractor((File) in, extractConfig);
+        } else {
+            extractor = new StreamingExcelExtractor((InputStream) in, extractConfig);
+        }
+        if (transformer == null) {
+            transformer = new SimpleETLTransformer(
+                    new SimpleTransformConfig(businessType));
+        }
+        ETLLoader loader = new DatabaseLoader(loadConfig);
+
+        loader.load(extractor, transformer);
+
+        return true;
+    }
+
     /**
      * Excel 文件 ETL 处理方法
      *
@@ -264,6 +337,28 @@ public class ETLUtils {
         LoadConfig loadConfig = new SimpleLoadConfig(businessType);
 
         int sheetCount = wb.getNumberOfSheets();
+
+        // 多 Sheet 并行加载 - 每个 Sheet 独立加载器及连接 ( 各加载器均会清表, 故清表时不启用 )
+        int sheetThreads = extractConfig.getSheetThreads();
+        if (sheetThreads > 1 && sheetCount > 1) {
+            if (loadConfig.truncateTableBeforeLoad() || loadConfig.tableToTable()) {
+                logger.info("@@@ 加载前清表时不支持多 Sheet 并行加载, 按逐个 Sheet 处理 !");
+            } else {
+                if (transformer == null) {
+                    transformer = new SimpleETLTransformer(
+                            new SimpleTransformConfig(businessType));
+                }
+                List<ETLExtractor> extractors = new ArrayList<ETLExtractor>();
+                List<String> names = new ArrayList<String>();
+                for (int i = 0; i < sheetCount; i++) {
+                    extractors.add(new ExcelExtractor(wb.getSheetAt(i), extractConfig));
+                    names.add("Sheet " + wb.getSheetName(i));
+                }
+                loadInParallel(extractors, names, transformer, loadConfig, sheetThreads);
+                return;
+            }
+        }
+
         Sheet sheet = null;
         for (int i = 0; i < sheetCount; i++) {
             sheet = wb.getSheetAt(i);
@@ -350,7 +445,9 @@ public class ETLUtils {
         LoadConfig loadConfig = new SimpleLoadConfig(businessType);
 
         ETLExtractor extractor = null;
-        if (in instanceof File) {
+        if (in instanceof File && extractConfig.getChunks() > 1) {
+            extractor = new ChunkedTextExtractor((File) in, extractConfig);
+        } else if (in instanceof File) {
             extractor = new TextETLExtractor((File) in, extractConfig);
         } else if (in instanceof InputStream) {
             extractor = new TextETLExtractor((InputStream) in, extractConfig);
@@ -361,12 +458,126 @@ public class ETLUtils {
                     businessType));
         }
 
+        // 分块并行加载 - 每块独立加载器及连接 ( 各加载器均会清表, 故清表时不启用; 任一块加载失败时抛出 IllegalStateException )
+        if (extractor instanceof ChunkedTextExtractor && "loader".equalsIgnoreCase(extractConfig.getChunkMode())) {
+            if (loadConfig.truncateTableBeforeLoad() || loadConfig.tableToTable()) {
+                logger.info("@@@ 加载前清表时不支持每块独立加载, 按合并数据流处理 !");
+            } else {
+                List<ETLExtractor> chunks = ((ChunkedTextExtractor) extractor).getChunkExtractors();
+                List<String> names = new ArrayList<String>();
+                for (int i = 0; i < chunks.size(); i++) {
+                    names.add("分块 " + i);
+                }
+                loadInParallel(chunks, names, transformer, loadConfig, chunks.size());
+                return;
+            }
+        }
+
         ETLLoader loader = new DatabaseLoader(loadConfig);
 
         loader.load(extractor, transformer);
 
     }
 
+    /**
+     * 并行加载 - 每个抽取器由独立工作线程及加载器 ( 连接池连接 ) 加载, 全部完成后输出各部分抽取行数及耗时汇总
+     * <p/>
+     * 任一部分加载失败 ( 抛出异常或加载器记录 SQL 异常 ) 时, 全部完成后以 IllegalStateException 抛出失败部分名称。
+     * 注意: 转换器由各线程共享, 需为无状态实现。
+     *
+     * @param extractors  抽取器
+     * @param names       各抽取器名称 ( 汇总日志使用 )
+     * @param transformer 转换规则
+     * @param loadConfig  加载配置
+     * @param parallelism 最大并行数
+     * @throws IllegalStateException 存在加载失败的部分
+     */
+    private static void loadInParallel(List<ETLExtractor> extractors, List<String> names,
+                                       final ETLTransformer transformer, final LoadConfig loadConfig,
+                                       int parallelism) {
+        int size = extractors.size();
+        final long[] counts = new long[size];
+        final long[] elapsed = new long[size];
+        final boolean[] failed = new boolean[size];
+
+        long startTime = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, size)));
+        for (int i = 0; i < size; i++) {
+            final int index = i;
+            final ETLExtractor source = extractors.get(i);
+            final String name = names.get(i);
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    logger.info("@@@ 并行加载开始 - {}", name);
+                    long start = System.currentTimeMillis();
+                    try {
+                        DatabaseLoader loader = new DatabaseLoader(loadConfig, true);
+                        loader.load(new ETLExtractor() {
+                            @Override
+                            public Iterator<Map<String, Object>> walker() {
+                                final Iterator<Map<String, Object>> iter = source.walker();
+                                return new Iterator<Map<String, Object>>() {
+                                    @Override
+                                    public boolean hasNext() {
+                                        return iter.hasNext();
+                                    }
+
+                                    @Override
+                                    public Map<String, Object> next() {
+                                        Map<String, Object> data = iter.next();
+                                        // 无效行 ( null ) 不计入行数
+                                        if (data != null) {
+                                            counts[index]++;
+                                        }
+                                        return data;
+                                    }
+
+                                    @Override
+                                    public void remove() {
+                                    }
+                                };
+                            }
+                        }, transformer);
+                        // 加载器捕获 SQL 异常后不抛出, 以失败标记判断
+                        failed[index] = loader.isFailed();
+                    } catch (RuntimeException e) {
+                        failed[index] = true;
+                        logger.error("@@@ 并行加载异常 - " + name, e);
+                    }
+                    elapsed[index] = System.currentTimeMillis() - start;
+                }
+            });
+        }
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.debug("@@@ 等待并行加载完成 ...");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+            logger.error("@@@ 并行加载等待被中断 !");
+            throw new IllegalStateException("并行加载等待被中断 !", e);
+        }
+
+        long total = 0;
+        List<String> failures = new ArrayList<String>();
+        for (int i = 0; i < size; i++) {
+            logger.info("@@@ {} - 抽取 {} 条 耗时: {} 毫秒{}", names.get(i), counts[i], elapsed[i], failed[i] ? " ( 失败 )" : "");
+            total += counts[i];
+            if (failed[i]) {
+                failures.add(names.get(i));
+            }
+        }
+        logger.info("@@@ 并行加载完成 - 共 {} 部分 抽取 {} 条 并行数: {} 总耗时: {} 毫秒", size, total,
+                Math.min(parallelism, size), System.currentTimeMillis() - startTime);
+        if (!failures.isEmpty()) {
+            logger.error("@@@ 并行加载失败部分: {}", failures);
+            throw new IllegalStateException("并行加载失败 : " + failures);
+        }
+    }
+
     /**
      * 文本(数据)文件对数据库
      *
@@ -597,7 +808,14 @@ public class ETLUtils {
         LoadConfig loadConfig = new SimpleLoadConfig(businessType);
 
         ETLExtractor extractor = null;
-        if (in instanceof File) {
+        if (useStreamingXml(in, extractConfig)) {
+            logger.info("@@@ XML 流式抽取 - 路径: {}", extractConfig.getXpath());
+            if (in instanceof File) {
+                extractor = new StreamingXmlExtractor((File) in, extractConfig);
+            } else {
+                extractor = new StreamingXmlExtractor((InputStream) in, extractConfig);
+            }
+        } else if (in instanceof File) {
             extractor = new XmlExtractor((File) in, extractConfig);
         } else if (in instanceof InputStream) {
             extractor = new XmlExtractor((InputStream) in, extractConfig);
@@ -618,6 +836,24 @@ public class ETLUtils {
 
     }
 
+    /**
+     * 是否以流式方式抽取 XML ( 仅文件及输入流 )
+     *
+     * @param in            输入
+     * @param extractConfig 抽取配置
+     * @return
+     */
+    private static boolean useStreamingXml(Object in, ExtractConfig extractConfig) {
+        if (!(in instanceof File || in instanceof InputStream)) return false;
+        String mode = extractConfig.getXmlMode();
+        if (mode.equalsIgnoreCase("dom")) return false;
+        boolean supported = StreamingXmlExtractor.isSupported(extractConfig.getXpath());
+        if (!supported && mode.equalsIgnoreCase("stream")) {
+            logger.warn("@@@ 路径 {} 不支持流式抽取, 按整体解析方式处理 !", extractConfig.getXpath());
+        }
+        return supported;
+    }
+
     /**
      * 数据库对 Excel
      *
@@ -725,6 +961,67 @@ public class ETLUtils {
 
     }
 
+    /**
+     * 数据库对 Excel （xlsx 流式输出）
+     *
+     * @param businessType 业务类型
+     * @param destination  目标文件
+     * @throws ConfigurationException
+     */
+    public static void database2Excel(String businessType, File destination)
+            throws ConfigurationException {
+        database2Excel(businessType, null, null, destination);
+    }
+
+    /**
+     * 数据库对 Excel （xlsx 流式输出）
+     *
+     * @param businessType 业务类型
+     * @param parameters   替换 input->sql 中的参数值
+     * @param destination  目标文件
+     * @throws ConfigurationException
+     */
+    public static void database2Excel(String businessType,
+                                      Map<String, String> parameters, File destination)
+            throws ConfigurationException {
+        database2Excel(businessType, parameters, null, destination);
+    }
+
+    /**
+     * 数据库对 Excel （xlsx 流式输出）
+     *
+     * @param businessType 业务类型
+     * @param parameters   替换 input->sql 中的参数值
+     * @param transformer  转换规则
+     * @param destination  目标文件
+     * @throws ConfigurationException
+     */
+    public static void database2Excel(String businessType,
+                                      Map<String, String> parameters, ETLTransformer transformer,
+                                      File destination) throws ConfigurationException {
+        ExtractConfig extractConfig = new SimpleExtractConfig(businessType);
+
+        LoadConfig loadConfig = new SimpleLoadConfig(businessType);
+
+        ETLExtractor extractor = null;
+        if (parameters != null) {
+            extractor = new DatabaseExtractor(extractConfig, parameters);
+        } else {
+            extractor = new DatabaseExtractor(extractConfig);
+        }
+
+        if (transformer == null) {
+            TransformConfig transformConfig = new SimpleTransformConfig(
+                    businessType);
+            transformer = new SimpleETLTransformer(transformConfig);
+        }
+
+        ETLLoader loader = new ExcelLoader(loadConfig, destination);
+
+        loader.load(extractor, transformer);
+
+    }
+
     /**
      * 数据库对 Text
      *
@@ -0,0 +1,152 @@
+package zw.wormsleep.tools.etl.compare;
+
+/**
+ * LevenshteinDistance 相似度比较器 - 位并行实现
+ * <p/>
+ * 判定结果与 LevenshteinDistanceComparator 一致 ( 编辑距离小于等于阈值时匹配 ) , 比较过程不分配内存:
+ * 1. 长度差超过阈值时直接判定不匹配
+ * 2. 较短内容不超过 64 个字符时使用 Myers / Hyyrö 位并行算法, 每个字符一次位运算更新整列
+ * 3. 较短内容超过 64 个字符时使用宽度为 2 * 阈值 + 1 的带状动态规划
+ * 两种算法在剩余字符不足以使距离回落至阈值以内时提前结束。
+ * <p/>
+ * 比较器可由多个线程共享, 工作缓冲区按线程分配并重复使用。
+ *
+ * @author zhaowei
+ */
+public class BitParallelLevenshteinComparator extends LevenshteinDistanceComparator {
+    private static final int WORD_SIZE = 64;
+
+    private int threshold;
+
+    private final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue() {
+            return new Scratch();
+        }
+    };
+
+    public BitParallelLevenshteinComparator(int threshold) {
+        super(threshold);
+        this.threshold = threshold;
+    }
+
+    @Override
+    public boolean compare(String first, String second) {
+        if (threshold == 0) {
+            return first.equalsIgnoreCase(second);
+        }
+        if (Math.abs(first.length() - second.length()) > threshold) {
+            return false;
+        }
+        String pattern = first.length() <= second.length() ? first : second;
+        String text = pattern == first ? second : first;
+        if (pattern.length() == 0) {
+            return text.length() <= threshold;
+        }
+        return pattern.length() <= WORD_SIZE ? withinBitParallel(pattern, text) : withinBanded(pattern, text);
+    }
+
+    /**
+     * Myers / Hyyrö 位并行编辑距离 ( 模式串长度不超过 64 )
+     */
+    private boolean withinBitParallel(String pattern, String text) {
+        long[] peq = scratch.get().peq;
+        int m = pattern.length();
+        int n = text.length();
+        for (int i = 0; i < m; i++) {
+            peq[pattern.charAt(i)] |= 1L << i;
+        }
+
+        long last = 1L << (m - 1);
+        long pv = -1L;
+        long mv = 0L;
+        int score = m;
+        boolean within = true;
+        for (int j = 0; j < n; j++) {
+            long eq = peq[text.charAt(j)];
+            long xv = eq | mv;
+            long xh = (((eq & pv) + pv) ^ pv) | eq;
+            long ph = mv | ~(xh | pv);
+            long mh = pv & xh;
+            if ((ph & last) != 0) {
+                score++;
+            } else if ((mh & last) != 0) {
+                score--;
+            }
+            // 剩余每个字符至多使距离减 1
+            if (score - (n - j - 1) > threshold) {
+                within = false;
+                break;
+            }
+            ph = (ph << 1) | 1L;
+            mh = mh << 1;
+            pv = mh | ~(xv | ph);
+            mv = ph & xv;
+        }
+
+        for (int i = 0; i < m; i++) {
+            peq[pattern.charAt(i)] = 0L;
+        }
+        return within && score <= threshold;
+    }
+
+    /**
+     * 带状动态规划编辑距离 ( 仅计算 |i - j| <= 阈值 的单元格 )
+     */
+    private boolean withinBanded(String pattern, String text) {
+        int m = pattern.length();
+        int n = text.length();
+        Scratch buffers = scratch.get();
+        int[] previous = buffers.rows(m + 1, 0);
+        int[] current = buffers.rows(m + 1, 1);
+        int outside = threshold + 1;
+
+        for (int i = 0; i <= m; i++) {
+            previous[i] = i <= threshold ? i : outside;
+        }
+        for (int j = 1; j <= n; j++) {
+            char c = text.charAt(j - 1);
+            int from = Math.max(1, j - threshold);
+            int to = Math.min(m, j + threshold);
+            current[0] = j <= threshold ? j : outside;
+            if (from > 1) {
+                current[from - 1] = outside;
+            }
+            int rowMin = current[0];
+            for (int i = from; i <= to; i++) {
+                int cost = pattern.charAt(i - 1) == c ? 0 : 1;
+                int value = Math.min(Math.min(current[i - 1] + 1, previous[i] + 1), previous[i - 1] + cost);
+                current[i] = value > outside ? outside : value;
+                if (current[i] < rowMin) {
+                    rowMin = current[i];
+                }
+            }
+            if (to < m) {
+                current[to + 1] = outside;
+            }
+            if (rowMin > threshold) {
+                return false;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[m] <= threshold;
+    }
+
+    /**
+     * 线程工作缓冲区
+     */
+    private static class Scratch {
+        // 按字符索引的匹配位向量 ( 使用后清零 )
+        final long[] peq = new long[Character.MAX_VALUE + 1];
+        final int[][] rows = new int[2][];
+
+        int[] rows(int size, int index) {
+            if (rows[index] == null || rows[index].length < size) {
+                rows[index] = new int[size];
+            }
+            return rows[index];
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package zw.wormsleep.tools.etl.compare;
+
+/**
+ * 字节排序键排序 - MSD 基数排序
+ * <p/>
+ * 按字节逐位分桶 ( 计数排序, 稳定 ) , 小桶改用插入排序。排序结果为稳定排序, 与按 SortKeyEncoders.compare 比较排序一致。
+ *
+ * @author zhaowei
+ */
+class ByteKeySorter {
+    // 小于该记录数的桶使用插入排序
+    private static final int INSERTION_THRESHOLD = 32;
+
+    /**
+     * 排序
+     *
+     * @param keys 排序键
+     * @return 排序后的下标序列
+     */
+    static int[] sort(byte[][] keys) {
+        int n = keys.length;
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        sort(keys, order, new int[n], 0, n, 0);
+        return order;
+    }
+
+    // 对 order[lo, hi) 按第 depth 个字节起排序 ( 此前各字节均相同 )
+    private static void sort(byte[][] keys, int[] order, int[] aux, int lo, int hi, int depth) {
+        if (hi - lo <= INSERTION_THRESHOLD) {
+            insertion(keys, order, lo, hi, depth);
+            return;
+        }
+
+        // 桶 0 为已结束的键 ( 最小 ) , 桶 b + 1 为字节 b
+        int[] count = new int[256 + 2];
+        for (int i = lo; i < hi; i++) {
+            count[byteAt(keys[order[i]], depth) + 2]++;
+        }
+        for (int b = 0; b < 256 + 1; b++) {
+            count[b + 1] += count[b];
+        }
+        for (int i = lo; i < hi; i++) {
+            aux[count[byteAt(keys[order[i]], depth) + 1]++] = order[i];
+        }
+        System.arraycopy(aux, 0, order, lo, hi - lo);
+
+        // 此时 count[b] 为桶 b 的结束位置, 已结束的键无需继续排序
+        int start = lo + count[0];
+        for (int b = 1; b < 256 + 1; b++) {
+            int end = lo + count[b];
+            if (end - start > 1) {
+                sort(keys, order, aux, start, end, depth + 1);
+            }
+            start = end;
+        }
+    }
+
+    private static void insertion(byte[][] keys, int[] order, int lo, int hi, int depth) {
+        for (int i = lo + 1; i < hi; i++) {
+            int current = order[i];
+            int j = i;
+            while (j > lo && less(keys[current], keys[order[j - 1]], depth)) {
+                order[j] = order[j - 1];
+                j--;
+            }
+            order[j] = current;
+        }
+    }
+
+    private static boolean less(byte[] a, byte[] b, int depth) {
+        int length = Math.min(a.length, b.length);
+        for (int i = depth; i < length; i++) {
+            int c = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (c != 0) return c < 0;
+        }
+        return a.length < b.length;
+    }
+
+    private static int byteAt(byte[] key, int depth) {
+        return depth < key.length ? key[depth] & 0xFF : -1;
+    }
+}
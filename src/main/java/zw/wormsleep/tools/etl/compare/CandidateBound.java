@@ -0,0 +1,16 @@
+package zw.wormsleep.tools.etl.compare;
+
+/**
+ * 候选约束 - 由相似度比较器根据阈值推导, 供 n-gram 索引过滤候选记录
+ * <p/>
+ * n-gram 均按去重计数, 并基于 normalize 处理后的内容提取 ( 索引及查询一致 ) 。
+ */
+public interface CandidateBound {
+    boolean lengthCompatible(int firstLength, int secondLength); // 两内容长度是否可能满足阈值
+
+    int minSharedGrams(int firstLength, int firstGrams, int secondLength, int gramSize); // 满足阈值时首内容与次内容至少共享的 n-gram 数 ( 小于等于 0 表示无法过滤 )
+
+    int maxGramSize(); // 共享下限严格成立的最大 n-gram 长度
+
+    String normalize(String content); // 提取 n-gram 前的内容规范化 ( 与比较器比对前的处理一致, 如转小写 , 不得改变长度 )
+}
@@ -0,0 +1,118 @@
+package zw.wormsleep.tools.etl.compare;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 比对任务执行器 - compare 包内相似度比较、排序及分组的多线程任务统一经此执行
+ * <p/>
+ * 任务经 CompletionService 提交, 调用线程按完成先后阻塞收取 ( 不轮询线程池状态 ) :
+ * 1. 每完成一个任务回调进度监听器 ( 在调用线程中执行 , 未指定时输出调试日志 )
+ * 2. 任一任务抛出异常即取消其余任务, 并以 IllegalStateException 抛出原始异常
+ * 3. 等待被中断时取消全部任务并保留线程中断状态
+ * 全部完成后关闭线程池并等待其终止 ( awaitTermination ) 。
+ *
+ * @author zhaowei
+ */
+public class CompareTaskExecutor {
+    final Logger logger = LoggerFactory.getLogger(CompareTaskExecutor.class);
+
+    /**
+     * 进度监听器
+     */
+    public interface ProgressListener {
+        void progress(String name, int completed, int total); // 任务完成回调 ( 已完成数 / 总数 )
+    }
+
+    private String name;
+    private ExecutorService pool;
+    private CompletionService<Object> completion;
+    private List<Future<Object>> futures = new ArrayList<Future<Object>>();
+    private ProgressListener listener;
+
+    /**
+     * @param name 任务名称 ( 日志及异常信息使用 )
+     * @param pool 线程池 ( 由执行器负责关闭 )
+     */
+    public CompareTaskExecutor(String name, ExecutorService pool) {
+        this(name, pool, null);
+    }
+
+    /**
+     * @param name     任务名称 ( 日志及异常信息使用 )
+     * @param pool     线程池 ( 由执行器负责关闭 )
+     * @param listener 进度监听器
+     */
+    public CompareTaskExecutor(String name, ExecutorService pool, ProgressListener listener) {
+        this.name = name;
+        this.pool = pool;
+        this.completion = new ExecutorCompletionService<Object>(pool);
+        this.listener = listener;
+    }
+
+    /**
+     * 提交任务
+     *
+     * @param task 任务
+     */
+    public void submit(Runnable task) {
+        futures.add(completion.submit(task, null));
+    }
+
+    /**
+     * 等待全部任务完成
+     *
+     * @return 完成任务数
+     * @throws IllegalStateException 任务异常、被取消或等待被中断
+     */
+    public int await() {
+        pool.shutdown();
+        int total = futures.size();
+        try {
+            for (int completed = 1; completed <= total; completed++) {
+                Future<Object> future = completion.take();
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    cancel();
+                    logger.error("@@@ " + name + " - 任务异常, 取消其余任务 !", e.getCause());
+                    throw new IllegalStateException(name + " - 任务异常 !", e.getCause());
+                } catch (CancellationException e) {
+                    cancel();
+                    throw new IllegalStateException(name + " - 任务已取消 !", e);
+                }
+                if (listener != null) {
+                    listener.progress(name, completed, total);
+                } else {
+                    logger.debug("@@@ {} - 进度：{}/{}", name, completed, total);
+                }
+            }
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            cancel();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(name + " - 等待被中断 !", e);
+        }
+        return total;
+    }
+
+    /**
+     * 取消未完成的任务 ( 中断执行中的任务 ) 并关闭线程池
+     */
+    public void cancel() {
+        for (Future<Object> future : futures) {
+            future.cancel(true);
+        }
+        pool.shutdownNow();
+    }
+}
@@ -4,14 +4,13 @@ import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import zw.wormsleep.tools.etl.utils.MappedLineReader;
 import zw.wormsleep.tools.etl.utils.ThreadUtils;
 
 import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
-import java.text.Collator;
 import java.util.*;
-import java.util.concurrent.ExecutorService;
 
 /**
  * Created by wormsleep on 2015/11/25.
@@ -64,6 +63,24 @@ public class CompareUtils {
         similarity(f, SEPARATOR, ENCODING, s, SEPARATOR, ENCODING, threshold, matched, SEPARATOR, ENCODING, comparator, COMPARE_SPLIT_LINE_SIZE, COMPARE_SPLIT_LINE_SIZE, LIMITED_LENGTH_SCOPE);
     }
 
+    /**
+     * 相似度比较。
+     * 通过逐行比较首文件和次文件内容并输出至已匹配文件。
+     * 首文件和次文件每行内容格式为“关键字+分隔符+比对内容”
+     * 输出文件每行内容格式为“首文件关键字+分隔符+次文件关键字”
+     * <p/>
+     * 默认值：分隔符 - TAB；文件编码 - UTF-8；；
+     *
+     * @param f              首文件
+     * @param s              次文件
+     * @param threshold      下限
+     * @param matched        匹配输出文件
+     * @param comparatorName 比较器名称 ( 见 SimilarityComparators )
+     */
+    public static void similarity(File f, File s, Double threshold, File matched, String comparatorName) {
+        similarity(f, s, threshold, matched, SimilarityComparators.create(comparatorName, threshold));
+    }
+
     /**
      * 相似度比较。
      * 通过逐行比较首文件和次文件内容并输出至已匹配文件。
@@ -297,7 +314,7 @@ public class CompareUtils {
         String mFullPath = FilenameUtils.getFullPath(path);
         String mFilename = FilenameUtils.getBaseName(path);
 
-        ExecutorService pool = ThreadUtils.smartSimilarityThreadPool(fPartsCount, sPartsCount, POWER);
+        CompareTaskExecutor executor = new CompareTaskExecutor("相似度匹配", ThreadUtils.smartSimilarityThreadPool(fPartsCount, sPartsCount, POWER));
 
         for (int fi = 0; fi < fPartsCount; fi++) {
 
@@ -310,19 +327,13 @@ public class CompareUtils {
                 mPart = new File(mFullPath + mFilename + "-" + String.valueOf(fi + 1) + "-" + String.valueOf(si + 1));
                 mParts.add(mPart);
 
-                pool.execute(new SimilarityMemoryThread(fPart, fSeparator, fEncoding, sPart, sSeparator, sEncoding, threshold, mPart, mSeparator, mEncoding, comparator));
+                executor.submit(new SimilarityMemoryThread(fPart, fSeparator, fEncoding, sPart, sSeparator, sEncoding, threshold, mPart, mSeparator, mEncoding, comparator));
 
             }
         }
 
-        pool.shutdown();
-
-        while (true) {
-            if (pool.isTerminated()) {
-                logger.info("@@@ 相似度匹配（多线程）完成... 准备合并匹配结果文件。");
-                break;
-            }
-        }
+        executor.await();
+        logger.info("@@@ 相似度匹配（多线程）完成... 准备合并匹配结果文件。");
 
         mergeFiles(mParts, matched);
 
@@ -406,7 +417,7 @@ public class CompareUtils {
         String mFullPath = FilenameUtils.getFullPath(path);
         String mFilename = FilenameUtils.getBaseName(path);
 
-        ExecutorService pool = ThreadUtils.smartSimilarityThreadPool(fPartsCount, sPartsCount, POWER);
+        CompareTaskExecutor executor = new CompareTaskExecutor("相似度匹配", ThreadUtils.smartSimilarityThreadPool(fPartsCount, sPartsCount, POWER));
 
         for (int fi = 0; fi < fPartsCount; fi++) {
 
@@ -419,25 +430,13 @@ public class CompareUtils {
                 mPart = new File(mFullPath + mFilename + "-" + String.valueOf(fi + 1) + "-" + String.valueOf(si + 1));
                 mParts.add(mPart);
 
-                pool.execute(new SimilarityMemoryLimitedScopeThread(fPart, fSeparator, fEncoding, sPart, sSeparator, sEncoding, threshold, mPart, mSeparator, mEncoding, comparator, similarityLimitedLengthScope));
+                executor.submit(new SimilarityMemoryLimitedScopeThread(fPart, fSeparator, fEncoding, sPart, sSeparator, sEncoding, threshold, mPart, mSeparator, mEncoding, comparator, similarityLimitedLengthScope));
 
             }
         }
 
-        pool.shutdown();
-
-        while (true) {
-            if (pool.isTerminated()) {
-                logger.info("@@@ 相似度匹配（多线程）完成... 准备合并匹配结果文件。");
-                break;
-            }
-            // 每隔一段时间判断线程是否完成
-            try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        }
+        executor.await();
+        logger.info("@@@ 相似度匹配（多线程）完成... 准备合并匹配结果文件。");
 
         mergeFiles(mParts, matched);
 
@@ -447,6 +446,189 @@ public class CompareUtils {
 
     }
 
+    /**
+     * 相似度比较 - n-gram 倒排索引。
+     * 对次文件建立 n-gram 倒排索引, 首文件逐行仅与共享 n-gram 数达到阈值下限的候选记录比较。
+     * 默认值：分隔符 - !@#；文件编码 - UTF-8；比较器 - JarWinklerDistanceComparator；二元 n-gram ( 该比较器按一元 n-gram 建立索引 ) ；
+     * 受限长度范围 - 4 ( 与 similarity 一致 ) ；
+     *
+     * @param f         首文件
+     * @param s         次文件
+     * @param threshold 下限
+     * @param matched   匹配输出文件
+     */
+    public static void similarityIndexed(File f, File s, Double threshold, File matched) {
+        similarityIndexed(f, SEPARATOR, ENCODING, s, SEPARATOR, ENCODING, matched, SEPARATOR, ENCODING,
+                new JaroWinklerDistanceComparator(threshold), NGramSimilarityIndex.DEFAULT_GRAM_SIZE, LIMITED_LENGTH_SCOPE);
+    }
+
+    /**
+     * 相似度比较 - n-gram 倒排索引。
+     * 对次文件建立 n-gram 倒排索引, 首文件逐行仅与共享 n-gram 数达到阈值下限的候选记录比较。
+     * 首文件和次文件每行内容格式为“关键字+分隔符+比对内容”
+     * 输出文件每行内容格式为“首文件关键字+分隔符+次文件关键字”
+     *
+     * @param f                            首文件
+     * @param fSeparator                   首文件分隔符
+     * @param fEncoding                    首文件编码
+     * @param s                            次文件
+     * @param sSeparator                   次文件分隔符
+     * @param sEncoding                    次文件编码
+     * @param matched                      匹配输出文件
+     * @param mSeparator                   匹配输出文件分隔符
+     * @param mEncoding                    匹配输出文件编码
+     * @param comparator                   比较器 ( 实现 CandidateBound 时按阈值推导候选下限 )
+     * @param gramSize                     n-gram 长度
+     * @param similarityLimitedLengthScope 相似度比对受限长度范围 ( 小于等于 0 时不受限 )
+     */
+    public static void similarityIndexed(File f, String fSeparator, String fEncoding, File s,
+                                         String sSeparator, String sEncoding,
+                                         File matched, final String mSeparator, String mEncoding,
+                                         SimilarityComparator comparator, int gramSize,
+                                         int similarityLimitedLengthScope) {
+        logger.info("@@@ 相似度比较（n-gram 索引）开始... 首文件: {} 次文件: {} 输出文件: {} 比较器: {} n-gram 长度: {} 受限范围: {}",
+                f.getAbsolutePath(), s.getAbsolutePath(), matched.getAbsolutePath(),
+                comparator.getClass().getSimpleName(), gramSize, similarityLimitedLengthScope);
+
+        long startTime = System.currentTimeMillis();
+
+        MappedLineReader fReader = null;
+        BufferedWriter mWriter = null;
+        try {
+            NGramSimilarityIndex index = new NGramSimilarityIndex(s, sEncoding, sSeparator, gramSize, comparator,
+                    similarityLimitedLengthScope);
+            NGramSimilarityIndex.Searcher searcher = index.searcher();
+
+            fReader = new MappedLineReader(f, fEncoding);
+            final BufferedWriter writer = mWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(matched), mEncoding), BUFFER_SIZE);
+            final int[] matchedCount = new int[1];
+
+            String fLine;
+            long fCount = 0;
+            while ((fLine = fReader.readLine()) != null) {
+                final String[] fls = fLine.split(fSeparator);
+                if (fls.length > 1) {
+                    fCount++;
+                    searcher.search(fls[1], new NGramSimilarityIndex.MatchHandler() {
+                        @Override
+                        public void matched(CompareUnit unit) {
+                            try {
+                                if (matchedCount[0]++ > 0) {
+                                    writer.newLine();
+                                }
+                                writer.write(fls[0] + mSeparator + unit.key);
+                            } catch (IOException e) {
+                                throw new IllegalStateException(e);
+                            }
+                        }
+                    });
+                }
+            }
+
+            long endTime = System.currentTimeMillis();
+            long consuming = (endTime - startTime) / 1000;
+            logger.info("@@@ 相似度比较（n-gram 索引）完成 - 首文件 {} 条 次文件 {} 条 比较 {} 次 ( 逐对比较需 {} 次 ) 匹配 {} 条",
+                    fCount, index.size(), searcher.getComparisons(), fCount * index.size(), matchedCount[0]);
+            logger.info("@@@ 相似度（n-gram 索引）比较耗时 : {} ", (consuming / 60) > 0 ? (String.valueOf(consuming / 60) + " 分钟") : "小于 1 分钟 (约为 " + String.valueOf(consuming % 60) + " 秒)");
+
+        } catch (IOException e) {
+            logger.error("IO 异常", e);
+        } catch (IllegalStateException e) {
+            logger.error("IO 异常", e.getCause());
+        } finally {
+            if (fReader != null) {
+                try {
+                    fReader.close();
+                } catch (IOException e) {
+                    logger.error("IO 异常", e);
+                }
+            }
+            if (mWriter != null) {
+                try {
+                    mWriter.flush();
+                    mWriter.close();
+                } catch (IOException e) {
+                    logger.error("IO 异常", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 相似度比较 - 内存（多线程）。
+     * 首文件和次文件各载入内存一次, 首文件按细粒度块由工作线程动态领取, 匹配结果由单一输出写入, 不产生分割文件。
+     * 默认值：分隔符 - !@#；文件编码 - UTF-8；比较器 - JarWinklerDistanceComparator；线程数 - CPU 数；
+     *
+     * @param f         首文件
+     * @param s         次文件
+     * @param threshold 下限
+     * @param matched   匹配输出文件
+     */
+    public static void similarityInMemory(File f, File s, Double threshold, File matched) {
+        similarityInMemory(f, SEPARATOR, ENCODING, s, SEPARATOR, ENCODING, matched, SEPARATOR, ENCODING,
+                new JaroWinklerDistanceComparator(threshold), LIMITED_LENGTH_SCOPE,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * 相似度比较 - 内存（多线程）。
+     * 首文件和次文件各载入内存一次, 首文件按细粒度块由工作线程动态领取, 匹配结果由单一输出写入, 不产生分割文件。
+     * 首文件和次文件每行内容格式为“关键字+分隔符+比对内容”
+     * 输出文件每行内容格式为“首文件关键字+分隔符+次文件关键字”
+     *
+     * @param f                            首文件
+     * @param fSeparator                   首文件分隔符
+     * @param fEncoding                    首文件编码
+     * @param s                            次文件
+     * @param sSeparator                   次文件分隔符
+     * @param sEncoding                    次文件编码
+     * @param matched                      匹配输出文件
+     * @param mSeparator                   匹配输出文件分隔符
+     * @param mEncoding                    匹配输出文件编码
+     * @param comparator                   比较器
+     * @param similarityLimitedLengthScope 相似度比对受限长度范围 ( 小于等于 0 时不受限 )
+     * @param threads                      线程数
+     */
+    public static void similarityInMemory(File f, String fSeparator, String fEncoding, File s,
+                                          String sSeparator, String sEncoding,
+                                          File matched, String mSeparator, String mEncoding,
+                                          SimilarityComparator comparator, int similarityLimitedLengthScope,
+                                          int threads) {
+        logger.info("@@@ 相似度比较（内存）开始... 首文件: {} 次文件: {} 输出文件: {} 比较器: {} 受限范围: {} 线程数: {}",
+                f.getAbsolutePath(), s.getAbsolutePath(), matched.getAbsolutePath(),
+                comparator.getClass().getSimpleName(), similarityLimitedLengthScope, threads);
+
+        long startTime = System.currentTimeMillis();
+
+        BufferedWriter mWriter = null;
+        try {
+            SortedCompareUnits fScus = new SortedCompareUnits(f, fEncoding, fSeparator);
+            SortedCompareUnits sScus = new SortedCompareUnits(s, sEncoding, sSeparator);
+
+            mWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(matched), mEncoding), BUFFER_SIZE);
+            new SimilarityExecutor(sScus, comparator, similarityLimitedLengthScope, threads,
+                    SimilarityExecutor.DEFAULT_BLOCK_SIZE).execute(fScus.getCompareUnits(), mWriter, mSeparator);
+
+            long endTime = System.currentTimeMillis();
+            long consuming = (endTime - startTime) / 1000;
+            logger.info("@@@ 相似度（内存）比较耗时 : {} ", (consuming / 60) > 0 ? (String.valueOf(consuming / 60) + " 分钟") : "小于 1 分钟 (约为 " + String.valueOf(consuming % 60) + " 秒)");
+
+        } catch (IOException e) {
+            logger.error("IO 异常", e);
+        } catch (IllegalStateException e) {
+            logger.error("相似度比较线程异常", e.getCause());
+        } finally {
+            if (mWriter != null) {
+                try {
+                    mWriter.flush();
+                    mWriter.close();
+                } catch (IOException e) {
+                    logger.error("IO 异常", e);
+                }
+            }
+        }
+    }
+
     /**
      * 将文件按指定行数分割为多个文件。
      *
@@ -463,13 +645,13 @@ public class CompareUtils {
         String filename = FilenameUtils.getBaseName(path);
         String extension = FilenameUtils.getExtension(path);
 
-        BufferedReader reader = null;
+        MappedLineReader reader = null;
         BufferedWriter writer = null;
 
         File part = null;
 
         try {
-            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), encoding), BUFFER_SIZE);
+            reader = new MappedLineReader(file, encoding);
 
             int lineCount = 0;
             int fileCount = 0;
@@ -607,6 +789,32 @@ public class CompareUtils {
     public static void sortFile(File src, String encoding, String separator,
                                 int fieldIndex, boolean allowEmptyField,
                                 Comparator<KeyValue> comparator, int splitLineSize) throws IOException {
+        // 比较器默认提供 - 按中文排序规则编码为字节排序键
+        sortFile(src, encoding, separator, fieldIndex, allowEmptyField, comparator,
+                comparator != null ? null : SortKeyEncoders.chinese(), splitLineSize);
+    }
+
+    /**
+     * 对文件内容按指定域排序 - 按字节排序键（见 SortKeyEncoders）
+     *
+     * @param src             源文件
+     * @param encoding        文件编码
+     * @param separator       域分隔符
+     * @param fieldIndex      指定排序字段位置（从 0 开始）
+     * @param allowEmptyField 是否过滤排序字段值为空的记录
+     * @param encoder         排序键编码器
+     * @param splitLineSize   子文件分割最大行数
+     */
+    public static void sortFileEncoded(File src, String encoding, String separator,
+                                       int fieldIndex, boolean allowEmptyField,
+                                       SortKeyEncoder encoder, int splitLineSize) throws IOException {
+        sortFile(src, encoding, separator, fieldIndex, allowEmptyField, null, encoder, splitLineSize);
+    }
+
+    private static void sortFile(File src, String encoding, String separator,
+                                 int fieldIndex, boolean allowEmptyField,
+                                 Comparator<KeyValue> comparator, SortKeyEncoder encoder,
+                                 int splitLineSize) throws IOException {
 
         logger.info("@@@ 文件域排序开始……\n" +
                         "***********\n" +
@@ -625,38 +833,20 @@ public class CompareUtils {
 
         long startTime = System.currentTimeMillis();
 
-        // 比较器默认提供
-        comparator = comparator != null ? comparator : new Comparator<KeyValue>() {
-            @Override
-            public int compare(KeyValue o1, KeyValue o2) {
-                return Collator.getInstance(Locale.CHINA).compare(o1.getKey(), o2.getKey());
-            }
-        };
-
         // 分割文件
         List<File> sfs = splitFile(src, encoding, splitLineSize);
         // 排序文件 - 多线程排序分割文件
 
-        ExecutorService pool = ThreadUtils.smartSortThreadPool(sfs.size(), POWER);
+        CompareTaskExecutor executor = new CompareTaskExecutor("子文件排序", ThreadUtils.smartSortThreadPool(sfs.size(), POWER));
 
         for (Iterator<File> it = sfs.iterator(); it.hasNext(); ) {
-            pool.execute(new SortSmallFileThread(it.next(), encoding, separator, fieldIndex, allowEmptyField, comparator));
+            executor.submit(encoder != null
+                    ? SortSmallFileThread.encoded(it.next(), encoding, separator, fieldIndex, allowEmptyField, encoder)
+                    : new SortSmallFileThread(it.next(), encoding, separator, fieldIndex, allowEmptyField, comparator));
         }
 
-        pool.shutdown();
-
-        while (true) {
-            if (pool.isTerminated()) {
-                logger.info("@@@ 子文件排序（多线程）完成！ 准备归并排序……。");
-                break;
-            }
-            // 每隔一段时间判断线程是否完成
-            try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        }
+        executor.await();
+        logger.info("@@@ 子文件排序（多线程）完成！ 准备归并排序……。");
 
         // Reader 列表
         List<BufferedReader> readers = new ArrayList<BufferedReader>();
@@ -672,51 +862,7 @@ public class CompareUtils {
             // 归并
             writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(src), encoding), BUFFER_SIZE);
 
-            int count = sfs.size();
-            String[] lines = new String[count];
-            Boolean[] done = new Boolean[count];
-            for (int i = 0; i < done.length; done[i] = false, i++) ;
-            int doneCount = 0;
-            String line;
-
-            int indexOfMinKeyReader = -1;
-
-            // 准备首次比对数据
-            for (int i = 0; i < count; i++) {
-                line = readers.get(i).readLine();
-                if (line != null) {
-                    lines[i] = line;
-                } else {
-                    done[i] = true;
-                    doneCount++;
-                }
-            }
-
-            int lcount = 0;
-            // 循环退出条件 - 所有的文件都已经处理完毕（已按行读取完毕）
-            while (doneCount < count) {
-
-                // 进行比对 - 按最小值算法
-                indexOfMinKeyReader = getMinimumFieldIndex(lines, separator, fieldIndex, comparator);
-                // 输出最小值行
-                if (indexOfMinKeyReader < 0) {
-                    break;
-                } else {
-                    writer.write(lines[indexOfMinKeyReader] + LINE_SEPARATOR);
-//                    logger.debug("处理计数：{} 输出文件索引：{} 输出行: {}", lcount, indexOfMinKeyReader, lines[indexOfMinKeyReader]);
-                    // 准备下一次比较数据 - 从最小值行对应的文件中提取下一行
-                    line = done[indexOfMinKeyReader] ? null : readers.get(indexOfMinKeyReader).readLine();
-                    lines[indexOfMinKeyReader] = line;
-                    if (line == null) {
-                        logger.info("@@@  子文件 {} 读取完毕！", indexOfMinKeyReader);
-                        done[indexOfMinKeyReader] = true;
-                        doneCount++;
-                    }
-
-                }
-
-                lcount++;
-            }
+            long lcount = new LoserTreeMerger(readers, separator, fieldIndex, comparator, encoder).mergeTo(writer, LINE_SEPARATOR);
 
             long endTime = System.currentTimeMillis();
             long consuming = (endTime - startTime) / 1000;
@@ -729,40 +875,40 @@ public class CompareUtils {
     }
 
     /**
-     * 获取最小字段所在行索引
+     * 对文件内容按指定域排序 - 按内存预算外部排序（见 ExternalSorter）。
+     * 默认值：内存预算 - 最大堆内存的 1/4；归并路数 - 64；读写缓冲区 - 1 MB；比较器 - 中文排序规则；
      *
-     * @param lines
-     * @param separator
-     * @param fieldIndex
-     * @return
+     * @param src        源文件（排序结果覆盖源文件）
+     * @param encoding   文件编码
+     * @param separator  域分隔符
+     * @param fieldIndex 指定排序字段位置（从 0 开始）
      */
-    private static int getMinimumFieldIndex(String[] lines, String separator, int fieldIndex, Comparator<KeyValue> comparator) {
-        int minIndex = -1;
-        int count = lines.length;
-        KeyValue tmpKeyValue = null;
-        KeyValue minKeyValue = null;
-        String[] ls = null;
-        for (int i = 0; i < count; i++) {
-            if (lines[i] != null) {
-                ls = lines[i].split(separator);
-                tmpKeyValue = new KeyValue(ls[fieldIndex], lines[i]);
-            } else {
-                tmpKeyValue = null;
-            }
-            if (tmpKeyValue != null && minKeyValue != null) {
-                if (comparator.compare(minKeyValue, tmpKeyValue) > 0) {
-                    minKeyValue = tmpKeyValue;
-                    minIndex = i;
-                }
-            } else {
-                if (tmpKeyValue != null) {
-                    minKeyValue = tmpKeyValue;
-                    minIndex = i;
-                }
-            }
-        }
+    public static void sortFileExternal(File src, String encoding, String separator, int fieldIndex) throws IOException {
+        sortFileExternal(src, encoding, separator, fieldIndex, true, null,
+                Runtime.getRuntime().maxMemory() / 4, ExternalSorter.DEFAULT_FAN_IN);
+    }
 
-        return minIndex;
+    /**
+     * 对文件内容按指定域排序 - 按内存预算外部排序（见 ExternalSorter）。
+     * 未超出内存预算时在内存中排序；否则按预算生成顺串并以指定路数多趟归并。
+     *
+     * @param src             源文件（排序结果覆盖源文件）
+     * @param encoding        文件编码
+     * @param separator       域分隔符
+     * @param fieldIndex      指定排序字段位置（从 0 开始）
+     * @param allowEmptyField 是否过滤排序字段值为空的记录
+     * @param comparator      KeyValue 对象比较器
+     * @param memoryBudget    内存预算（字节）
+     * @param fanIn           归并路数
+     */
+    public static void sortFileExternal(File src, String encoding, String separator,
+                                        int fieldIndex, boolean allowEmptyField,
+                                        Comparator<KeyValue> comparator, long memoryBudget, int fanIn) throws IOException {
+        logger.info("@@@ 文件域排序（外部）开始…… 文件：{} 编码：{} 排序域：{} 内存预算：{} 字节 归并路数：{}",
+                src.getAbsolutePath(), encoding, fieldIndex, memoryBudget, fanIn);
+
+        new ExternalSorter(encoding, separator, fieldIndex, allowEmptyField, comparator,
+                memoryBudget, fanIn, ExternalSorter.DEFAULT_BUFFER_SIZE).sort(src, src);
     }
 
 }
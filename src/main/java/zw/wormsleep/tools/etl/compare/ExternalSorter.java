@@ -0,0 +1,261 @@
+package zw.wormsleep.tools.etl.compare;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import zw.wormsleep.tools.etl.utils.MappedLineReader;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * 文件域外部排序 - 按内存预算
+ * <p/>
+ * 逐行读取并按估算的堆内存占用 ( 字节 ) 累积记录:
+ * 1. 全部记录未超出预算时直接在内存中排序并输出, 不产生临时文件
+ * 2. 超出预算时每累积至预算即排序并写出一个顺串, 顺串大小随预算而定
+ * 3. 顺串数超过归并路数时多趟归并 ( 每趟每 fanIn 个顺串合并为一个 ) , 最后一趟输出至目标文件
+ * 读写均使用大块顺序缓冲区, 归并使用败者树 ( 见 LoserTreeMerger ) 。
+ * 归并时同时打开 fanIn 个读缓冲区及 1 个写缓冲区, 其大小由内存预算均分 ( 不超过 bufferSize, 不小于 8K 字符 ),
+ * 归并阶段内存占用不超出预算; 写出顺串时另需 1 个 bufferSize 写缓冲区。
+ * 使用排序键编码器时每条记录只编码一次, 顺串按字节排序键基数排序 ( 见 ByteKeySorter ) 。
+ * <p/>
+ * 记录过滤与 SortSmallFileThread 一致 ( 排序域不存在的行丢弃, 不允许空域时排序域为空的行丢弃 ) 。
+ * 排序是稳定的: 排序键相等的记录保持原有顺序。
+ *
+ * @author zhaowei
+ */
+public class ExternalSorter {
+    final Logger logger = LoggerFactory.getLogger(ExternalSorter.class);
+
+    public static final int DEFAULT_FAN_IN = 64;
+    public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+    // 每条记录除字符外的估算开销 ( 行及排序域 String 对象、KeyValue 对象、排序键数组及列表引用 )
+    private static final int ENTRY_OVERHEAD = 112;
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    private String encoding;
+    private String separator;
+    private int fieldIndex;
+    private boolean allowEmptyField;
+    private Comparator<KeyValue> comparator;
+    private SortKeyEncoder encoder;
+    private long memoryBudget;
+    private int fanIn;
+    private int bufferSize;
+    private int mergeBufferSize;
+
+    /**
+     * @param encoding        文件编码
+     * @param separator       分隔符
+     * @param fieldIndex      排序域 ( 从 0 开始 )
+     * @param allowEmptyField 允许空域
+     * @param comparator      比较器 ( 为空时按中文排序规则编码 )
+     * @param memoryBudget    内存预算 ( 字节 )
+     * @param fanIn           归并路数
+     * @param bufferSize      每个读写缓冲区大小上限 ( 字符 )
+     */
+    public ExternalSorter(String encoding, String separator, int fieldIndex, boolean allowEmptyField,
+                          Comparator<KeyValue> comparator, long memoryBudget, int fanIn, int bufferSize) {
+        this(encoding, separator, fieldIndex, allowEmptyField, comparator,
+                comparator != null ? null : SortKeyEncoders.chinese(), memoryBudget, fanIn, bufferSize);
+    }
+
+    /**
+     * 按字节排序键排序 ( 以静态方法创建, 避免与比较器构造方法在传入 null 时产生歧义 )
+     *
+     * @param encoding        文件编码
+     * @param separator       分隔符
+     * @param fieldIndex      排序域 ( 从 0 开始 )
+     * @param allowEmptyField 允许空域
+     * @param encoder         排序键编码器 ( 为空时按中文排序规则编码 )
+     * @param memoryBudget    内存预算 ( 字节 )
+     * @param fanIn           归并路数
+     * @param bufferSize      每个读写缓冲区大小上限 ( 字符 )
+     */
+    public static ExternalSorter encoded(String encoding, String separator, int fieldIndex, boolean allowEmptyField,
+                                         SortKeyEncoder encoder, long memoryBudget, int fanIn, int bufferSize) {
+        return new ExternalSorter(encoding, separator, fieldIndex, allowEmptyField, null,
+                encoder != null ? encoder : SortKeyEncoders.chinese(), memoryBudget, fanIn, bufferSize);
+    }
+
+    private ExternalSorter(String encoding, String separator, int fieldIndex, boolean allowEmptyField,
+                           Comparator<KeyValue> comparator, SortKeyEncoder encoder,
+                           long memoryBudget, int fanIn, int bufferSize) {
+        this.encoding = encoding;
+        this.separator = separator;
+        this.fieldIndex = fieldIndex;
+        this.allowEmptyField = allowEmptyField;
+        this.comparator = comparator;
+        this.encoder = encoder;
+        this.memoryBudget = Math.max(1024 * 1024, memoryBudget);
+        this.fanIn = Math.max(2, fanIn);
+        this.bufferSize = Math.max(8 * 1024, bufferSize);
+        // 归并缓冲区 ( 字符, 每字符 2 字节 ) 按 fanIn + 1 个均分内存预算
+        this.mergeBufferSize = (int) Math.max(8 * 1024,
+                Math.min(this.bufferSize, this.memoryBudget / (2L * (this.fanIn + 1))));
+    }
+
+    /**
+     * 排序
+     *
+     * @param src  源文件
+     * @param dest 目标文件 ( 可与源文件相同 )
+     * @throws IOException
+     */
+    public void sort(File src, File dest) throws IOException {
+        long startTime = System.currentTimeMillis();
+        File dir = null;
+        List<File> runs = new ArrayList<File>();
+
+        try {
+            List<KeyValue> records = new ArrayList<KeyValue>();
+            List<byte[]> keys = encoder != null ? new ArrayList<byte[]>() : null;
+            long used = 0;
+            long total = 0;
+
+            MappedLineReader reader = new MappedLineReader(src, encoding);
+            try {
+                String line;
+                String[] ls;
+                while ((line = reader.readLine()) != null) {
+                    ls = line.split(separator);
+                    if (ls.length <= fieldIndex) continue;
+                    String key = ls[fieldIndex];
+                    if (!allowEmptyField && key.trim().equals("")) continue;
+
+                    records.add(new KeyValue(key, line));
+                    used += ENTRY_OVERHEAD + 2L * (line.length() + key.length());
+                    if (keys != null) {
+                        byte[] sortKey = encoder.encode(key);
+                        keys.add(sortKey);
+                        used += sortKey.length;
+                    }
+                    total++;
+                    if (used >= memoryBudget) {
+                        if (dir == null) {
+                            dir = tempDirectory(dest);
+                        }
+                        runs.add(writeRun(records, keys, new File(dir, "run-" + runs.size())));
+                        records.clear();
+                        if (keys != null) {
+                            keys.clear();
+                        }
+                        used = 0;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+
+            if (runs.isEmpty()) {
+                // 内存排序
+                writeRun(records, keys, dest);
+                logger.info("@@@ 文件域排序（内存）结束！总计：{} 行", total);
+            } else {
+                if (!records.isEmpty()) {
+                    runs.add(writeRun(records, keys, new File(dir, "run-" + runs.size())));
+                }
+                records = null;
+                keys = null;
+                int passes = merge(runs, dir, dest);
+                logger.info("@@@ 文件域排序（外部）结束！总计：{} 行 顺串：{} 个 归并：{} 趟", total, runs.size(), passes);
+            }
+        } finally {
+            if (dir != null) {
+                FileUtils.deleteQuietly(dir);
+            }
+        }
+
+        long endTime = System.currentTimeMillis();
+        long consuming = (endTime - startTime) / 1000;
+        logger.info("@@@ 文件域排序耗时： {} ", (consuming / 60) > 0 ? (String.valueOf(consuming / 60) + " 分钟") : "小于 1 分钟 (约为 " + String.valueOf(consuming % 60) + " 秒)");
+    }
+
+    private File tempDirectory(File dest) throws IOException {
+        File dir = new File(dest.getAbsoluteFile().getParentFile(), dest.getName() + "-sort-" + System.currentTimeMillis());
+        if (!dir.mkdirs()) {
+            throw new IOException("无法创建排序临时目录: " + dir.getAbsolutePath());
+        }
+        return dir;
+    }
+
+    // 排序并写出 ( 稳定排序 )
+    private File writeRun(List<KeyValue> records, List<byte[]> keys, File out) throws IOException {
+        KeyValue[] kvs = records.toArray(new KeyValue[records.size()]);
+        if (keys != null) {
+            int[] order = ByteKeySorter.sort(keys.toArray(new byte[keys.size()][]));
+            KeyValue[] sorted = new KeyValue[kvs.length];
+            for (int i = 0; i < order.length; i++) {
+                sorted[i] = kvs[order[i]];
+            }
+            kvs = sorted;
+        } else {
+            Arrays.sort(kvs, comparator);
+        }
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(out), encoding), bufferSize);
+        try {
+            for (KeyValue kv : kvs) {
+                writer.write(kv.getValue());
+                writer.write(LINE_SEPARATOR);
+            }
+        } finally {
+            writer.close();
+        }
+        logger.debug("@@@ 写出顺串 {} - {} 行", out.getName(), kvs.length);
+        return out;
+    }
+
+    /**
+     * 多趟归并 - 每趟将相邻的 fanIn 个顺串依次合并 ( 保持顺串先后顺序, 排序稳定 )
+     *
+     * @return 归并趟数
+     */
+    private int merge(List<File> runs, File dir, File dest) throws IOException {
+        List<File> pending = runs;
+        int passes = 0;
+        while (pending.size() > fanIn) {
+            List<File> next = new ArrayList<File>();
+            for (int from = 0; from < pending.size(); from += fanIn) {
+                List<File> group = pending.subList(from, Math.min(from + fanIn, pending.size()));
+                if (group.size() == 1) {
+                    next.add(group.get(0));
+                    continue;
+                }
+                File out = new File(dir, "pass" + passes + "-" + next.size());
+                mergeRuns(group, out);
+                for (File run : group) {
+                    FileUtils.deleteQuietly(run);
+                }
+                next.add(out);
+            }
+            pending = next;
+            passes++;
+        }
+        mergeRuns(pending, dest);
+        return passes + 1;
+    }
+
+    private void mergeRuns(List<File> group, File out) throws IOException {
+        List<BufferedReader> readers = new ArrayList<BufferedReader>();
+        Writer writer = null;
+        try {
+            for (File run : group) {
+                readers.add(new BufferedReader(new InputStreamReader(new FileInputStream(run), encoding),
+                        mergeBufferSize));
+            }
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(out), encoding), mergeBufferSize);
+            long lines = new LoserTreeMerger(readers, separator, fieldIndex, comparator, encoder).mergeTo(writer, LINE_SEPARATOR);
+            logger.debug("@@@ 归并 {} 个顺串至 {} - {} 行", group.size(), out.getName(), lines);
+        } finally {
+            for (BufferedReader reader : readers) {
+                IOUtils.closeQuietly(reader);
+            }
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package zw.wormsleep.tools.etl.compare;
+
+/**
+ * JaroWinklerDistance 相似度比较器 - 免分配实现
+ * <p/>
+ * 计算过程与 commons-lang3 3.3.2 StringUtils.getJaroWinklerDistance 一致 ( 包括匹配窗口、评分四舍五入保留两位小数 ) ,
+ * 判定结果与 JaroWinklerDistanceComparator 一致, 区别在于:
+ * 1. 使用按线程分配的工作缓冲区, 比较过程不创建字符串及数组
+ * 2. 先计算公共前缀, 由阈值推导所需最少匹配字符数, 长度不足时直接判定不匹配
+ * 3. 匹配过程中已匹配数与剩余字符数之和低于所需最少匹配字符数时提前结束
+ * 转小写按字符进行 ( Character.toLowerCase ) , 仅对转小写后长度改变的个别字符与原实现存在差异。
+ * <p/>
+ * 比较器可由多个线程共享。
+ *
+ * @author zhaowei
+ */
+public class FastJaroWinklerComparator extends JaroWinklerDistanceComparator {
+    private static final double SCALING_FACTOR = 0.1;
+    private static final int MAX_PREFIX = 4;
+    // 评分四舍五入误差及浮点误差
+    private static final double TOLERANCE = 0.005 + 1e-6;
+
+    private Double threshold;
+    private boolean exact;
+
+    private final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue() {
+            return new Scratch();
+        }
+    };
+
+    public FastJaroWinklerComparator(Double threshold) {
+        super(threshold);
+        this.threshold = threshold;
+        this.exact = threshold.compareTo(1.0) == 0;
+    }
+
+    @Override
+    public boolean compare(String first, String second) {
+        if (exact) {
+            return first.equals(second);
+        }
+
+        // 公共前缀 ( 区分大小写 , 至多 4 个字符 )
+        int limit = Math.min(MAX_PREFIX, Math.min(first.length(), second.length()));
+        int prefix = 0;
+        while (prefix < limit && first.charAt(prefix) == second.charAt(prefix)) {
+            prefix++;
+        }
+
+        String shorter, longer;
+        if (first.length() > second.length()) {
+            longer = first;
+            shorter = second;
+        } else {
+            longer = second;
+            shorter = first;
+        }
+        int sl = shorter.length();
+        int ll = longer.length();
+
+        // JW = J + 0.1 * prefix * (1 - J) , J <= (m / sl + m / ll + 1) / 3
+        double weight = SCALING_FACTOR * prefix;
+        double minJaro = (threshold - TOLERANCE - weight) / (1.0 - weight);
+        int minMatches = 0;
+        if (minJaro > 1.0 / 3 && sl > 0) {
+            minMatches = (int) Math.ceil((3 * minJaro - 1) * sl * ll / (sl + ll) - 1e-9);
+            if (minMatches > sl) {
+                return false;
+            }
+        }
+
+        Scratch buffers = scratch.get().ensure(ll);
+        char[] s = buffers.lower(shorter, buffers.shorter);
+        char[] l = buffers.lower(longer, buffers.longer);
+        int window = sl / 2 + 1;
+
+        int m1 = matching(s, sl, l, ll, window, buffers.used, buffers.common1, minMatches);
+        if (m1 < 0) {
+            return false;
+        }
+        int m2 = matching(l, ll, s, sl, window, buffers.used, buffers.common2, -1);
+
+        double jaro;
+        if (m1 == 0 || m2 == 0 || m1 != m2) {
+            jaro = 0.0;
+        } else {
+            int transpositions = 0;
+            for (int i = 0; i < m1; i++) {
+                if (buffers.common1[i] != buffers.common2[i]) {
+                    transpositions++;
+                }
+            }
+            transpositions /= 2;
+            jaro = (m1 / ((double) sl) + m2 / ((double) ll) + (m1 - transpositions) / ((double) m1)) / 3.0;
+        }
+        double score = Math.round((jaro + (SCALING_FACTOR * prefix * (1.0 - jaro))) * 100.0) / 100.0;
+        return threshold.compareTo(score) <= 0;
+    }
+
+    /**
+     * 按窗口查找 first 中与 second 匹配的字符 ( 与原实现一致, 已匹配位置视为 '*' )
+     *
+     * @param minMatches 所需最少匹配字符数 ( 小于 0 时不提前结束 )
+     * @return 匹配字符数 ( 提前结束时返回 -1 )
+     */
+    private int matching(char[] first, int fl, char[] second, int sl, int window, boolean[] used,
+                         char[] common, int minMatches) {
+        for (int j = 0; j < sl; j++) {
+            used[j] = false;
+        }
+        int count = 0;
+        for (int i = 0; i < fl; i++) {
+            char ch = first[i];
+            int to = Math.min(i + window, sl);
+            for (int j = Math.max(0, i - window); j < to; j++) {
+                if ((used[j] ? '*' : second[j]) == ch) {
+                    used[j] = true;
+                    common[count++] = ch;
+                    break;
+                }
+            }
+            if (count + (fl - i - 1) < minMatches) {
+                return -1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 线程工作缓冲区
+     */
+    private static class Scratch {
+        char[] shorter = new char[64];
+        char[] longer = new char[64];
+        char[] common1 = new char[64];
+        char[] common2 = new char[64];
+        boolean[] used = new boolean[64];
+
+        Scratch ensure(int length) {
+            if (longer.length < length) {
+                int size = Math.max(length, longer.length * 2);
+                shorter = new char[size];
+                longer = new char[size];
+                common1 = new char[size];
+                common2 = new char[size];
+                used = new boolean[size];
+            }
+            return this;
+        }
+
+        char[] lower(String value, char[] buffer) {
+            for (int i = 0; i < value.length(); i++) {
+                buffer[i] = Character.toLowerCase(value.charAt(i));
+            }
+            return buffer;
+        }
+    }
+}
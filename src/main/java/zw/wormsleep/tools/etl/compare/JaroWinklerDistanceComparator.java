@@ -5,14 +5,27 @@ import org.apache.commons.lang3.StringUtils;
 /**
  * Created by wormsleep on 2015/11/18.
  * JaroWinklerDistance 相似度比较器
+ * <p/>
+ * 候选约束推导: JW <= 0.6 * J + 0.4 ( 前缀至多 4 个字符, 加权至多 0.4 ) , 故 J >= (t - 0.4) / 0.6 ;
+ * 又 J <= (m / la + m / lb + 1) / 3 , 得匹配字符数 m >= (3J - 1) * la * lb / (la + lb) 。
+ * 首内容中未被匹配的字符至多 la - m 个, 故至少共享 ( 去重字符数 - (la - m) ) 个字符 ( 一元 n-gram ) 。
+ * 匹配字符可不按顺序对应 ( 换位 ) , n 大于 1 时共享 n-gram 可为 0 ( 如 "国司公限有" 与 "国公司有限" 相似度 0.88 但无共同二元 n-gram ) ,
+ * 故下限仅对一元 n-gram 成立 ( 阈值为 1 时精确匹配除外 ) 。
+ * getJaroWinklerDistance 匹配字符前将两内容转小写 ( 如 "ABC贸易公司" 与 "abc贸易公司" 相似度为 1 ) ,
+ * 故 n-gram 按逐字符转小写后的内容提取 ( 见 normalize , FastJaroWinklerComparator 同样适用 ) 。
  */
-public class JaroWinklerDistanceComparator implements SimilarityComparator {
+public class JaroWinklerDistanceComparator implements SimilarityComparator, CandidateBound {
 
     private final Double MAX_THRESHOLD = new Double("1.0");
+    // getJaroWinklerDistance 结果四舍五入保留两位小数
+    private final double ROUNDING = 0.005;
+
     private Double threshold;
+    private double minJaro;
 
     public JaroWinklerDistanceComparator(Double threshold) {
         this.threshold = threshold;
+        this.minJaro = (threshold - ROUNDING - 0.4) / 0.6;
     }
 
     @Override
@@ -32,4 +45,48 @@ public class JaroWinklerDistanceComparator implements SimilarityComparator {
         }
     }
 
+    @Override
+    public boolean lengthCompatible(int firstLength, int secondLength) {
+        if (threshold.compareTo(MAX_THRESHOLD) == 0) {
+            return firstLength == secondLength;
+        }
+        // m <= min(la, lb) 代入得 min / max >= 3J - 2
+        return Math.min(firstLength, secondLength) >= (3 * minJaro - 2) * Math.max(firstLength, secondLength);
+    }
+
+    @Override
+    public int minSharedGrams(int firstLength, int firstGrams, int secondLength, int gramSize) {
+        if (threshold.compareTo(MAX_THRESHOLD) == 0) {
+            return firstGrams;
+        }
+        if (3 * minJaro - 1 <= 0 || gramSize > 1) {
+            return 0;
+        }
+        int matches = (int) Math.ceil((3 * minJaro - 1) * firstLength * secondLength / (firstLength + secondLength) - 1e-9);
+        // 未共享的去重字符全部位于未匹配位置
+        return firstGrams - Math.max(0, firstLength - matches);
+    }
+
+    @Override
+    public int maxGramSize() {
+        return threshold.compareTo(MAX_THRESHOLD) == 0 ? Integer.MAX_VALUE : 1;
+    }
+
+    @Override
+    public String normalize(String content) {
+        // 逐字符转小写 ( 保持长度不变 )
+        char[] chars = null;
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            char lower = Character.toLowerCase(c);
+            if (lower != c) {
+                if (chars == null) {
+                    chars = content.toCharArray();
+                }
+                chars[i] = lower;
+            }
+        }
+        return chars == null ? content : new String(chars);
+    }
+
 }
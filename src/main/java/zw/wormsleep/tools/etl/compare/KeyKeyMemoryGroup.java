@@ -3,12 +3,12 @@ package zw.wormsleep.tools.etl.compare;
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import zw.wormsleep.tools.etl.utils.MappedLineReader;
 import zw.wormsleep.tools.etl.utils.Uuid;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 /**
@@ -173,24 +173,17 @@ public class KeyKeyMemoryGroup {
         for (int i = 0; i < keySize; i++) {
             kks[i] = new KeyKey(keys[i], keys[i], separator);
         }
-        ExecutorService pool = Executors.newCachedThreadPool();
+        CompareTaskExecutor executor = new CompareTaskExecutor("分组检索", Executors.newCachedThreadPool());
         // 将每个 key 在每个分片数组中检索
 //        logger.info("@@@ 建立多线程池。。。");
 
         for (KeyKey key : kks) {
             for (KeyKey[] sortedKeys : sortedKeyArrays) {
-                pool.execute(new KeyKeySearchMemoryThread(foundKeyKeys, sortedKeys, key, comparator));
+                executor.submit(new KeyKeySearchMemoryThread(foundKeyKeys, sortedKeys, key, comparator));
             }
         }
 
-        pool.shutdown();
-
-        while (true) {
-            if (pool.isTerminated()) {
-//                logger.debug("@@@ 单次分组（多线程）完成...准备返回");
-                break;
-            }
-        }
+        executor.await();
 
         return foundKeyKeys;
     }
@@ -274,25 +267,25 @@ public class KeyKeyMemoryGroup {
     // 初始化处理
     private void init() {
         try {
-            // 将 key key 结构的文件读入 List
-            List<String> lines = FileUtils.readLines(src, encoding);
-
-            // 初始化 keykey 数组对象
-            sortedKeyKeysByKey1 = new KeyKey[lines.size()];
-
-            String[] ls;
-            int lineIndex = 0;
-            for (String line : lines) {
-                ls = line.split(separator);
-                if (ls.length > 1) {
-                    sortedKeyKeysByKey1[lineIndex] = new KeyKey(ls[0], ls[1], separator);
-                    lineIndex++;
+            // 逐行读取 key key 结构的文件 ( 不整体读入文件内容 ), 过滤空数据行或无效数据
+            List<KeyKey> keyKeys = new ArrayList<KeyKey>();
+            MappedLineReader reader = new MappedLineReader(src, encoding);
+            try {
+                String line;
+                String[] ls;
+                while ((line = reader.readLine()) != null) {
+                    ls = line.split(separator);
+                    if (ls.length > 1) {
+                        keyKeys.add(new KeyKey(ls[0], ls[1], separator));
+                    }
                 }
+            } finally {
+                reader.close();
             }
 
-            // 目前必须要这样处理 - 过滤空数据行或无效数 （否则对于数组中的空对象会出现 Arrays.mergeSort 方法内部错误）
-            // 还好对于效率没太大影响，运行内存设置为 1024 时可以处理至少 100 万数据，100 万数据的处理为 5 秒
-            sortedKeyKeysByKey1 = Arrays.copyOf(sortedKeyKeysByKey1, lineIndex);
+            // 初始化 keykey 数组对象
+            sortedKeyKeysByKey1 = keyKeys.toArray(new KeyKey[keyKeys.size()]);
+            keyKeys = null;
 
             // 排序数组对象 - 规则：按 key1 值排序
             Arrays.sort(sortedKeyKeysByKey1, new Comparator<KeyKey>() {
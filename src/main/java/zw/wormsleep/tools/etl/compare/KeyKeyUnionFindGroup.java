@@ -0,0 +1,396 @@
+package zw.wormsleep.tools.etl.compare;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import zw.wormsleep.tools.etl.utils.MappedLineReader;
+import zw.wormsleep.tools.etl.utils.Uuid;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * 自然分组 - 并查集实现
+ * <p/>
+ * 与 KeyKeyMemoryGroup 相同: key1 相同或 key2 相同的记录 ( 可传递 ) 归为一组, 同组重复记录只输出一次,
+ * 输出每行格式为 "n|1 + 分隔符 + uuid + 分隔符 + key1 + 分隔符 + key2" ( 多条记录的组为 n , 单条为 1 ) 。
+ * <p/>
+ * 以记录序号为并查集节点 ( 按秩合并 + 路径压缩 ) , 与同一 key1 / key2 的首条记录合并, 近似线性时间完成分组:
+ * 1. 内存模式 - key1 / key2 经 HashMap 映射为首条记录序号, 记录数不超过 memoryPairs 时使用
+ * 2. 溢写模式 - 超过 memoryPairs 时 key 与记录序号写入溢写文件并排序, 相邻相同 key 的记录合并;
+ * 输出时按根节点排序溢写文件后逐组输出。内存仅保留每条记录 5 字节的并查集数组,
+ * 溢写文件经 ExternalSorter 按排序内存预算外部排序。
+ * <p/>
+ * 组的输出顺序与 KeyKeyMemoryGroup 不同 ( 内存模式按组内首条记录在源文件中的位置 ) 。
+ *
+ * @author zhaowei
+ */
+public class KeyKeyUnionFindGroup {
+    final Logger logger = LoggerFactory.getLogger(KeyKeyUnionFindGroup.class);
+
+    public static final int DEFAULT_MEMORY_PAIRS = 2 * 1000 * 1000;
+    private static final int BUFFER_SIZE = 10 * 1024 * 1024;
+    // 溢写模式读写缓冲区 ( 字符 )
+    private static final int SPILL_BUFFER_SIZE = 1024 * 1024;
+
+    private File src;
+    private String encoding;
+    private String separator;
+    private int memoryPairs;
+    private long sortMemoryBudget;
+
+    private int[] parent;
+    private byte[] rank;
+
+    public KeyKeyUnionFindGroup(File src, String encoding, String separator) {
+        this(src, encoding, separator, DEFAULT_MEMORY_PAIRS);
+    }
+
+    /**
+     * @param src         源文件 ( 每行格式为 "key1+分隔符+key2" )
+     * @param encoding    文件编码
+     * @param separator   分隔符
+     * @param memoryPairs 内存模式记录数上限
+     */
+    public KeyKeyUnionFindGroup(File src, String encoding, String separator, int memoryPairs) {
+        this(src, encoding, separator, memoryPairs, Runtime.getRuntime().maxMemory() / 4);
+    }
+
+    /**
+     * @param src              源文件 ( 每行格式为 "key1+分隔符+key2" )
+     * @param encoding         文件编码
+     * @param separator        分隔符
+     * @param memoryPairs      内存模式记录数上限
+     * @param sortMemoryBudget 溢写文件排序内存预算 ( 字节 )
+     */
+    public KeyKeyUnionFindGroup(File src, String encoding, String separator, int memoryPairs, long sortMemoryBudget) {
+        this.src = src;
+        this.encoding = encoding;
+        this.separator = separator;
+        this.memoryPairs = memoryPairs;
+        this.sortMemoryBudget = sortMemoryBudget;
+    }
+
+    /**
+     * 分组处理 - 主方法
+     *
+     * @param dest 分组目标文件
+     * @throws IOException
+     */
+    public void group(File dest) throws IOException {
+        long startTime = System.currentTimeMillis();
+
+        if (!groupInMemory(dest)) {
+            logger.info("@@@ 待分组记录数超过 {} 条, 改用溢写模式...", memoryPairs);
+            groupWithSpill(dest);
+        }
+        parent = null;
+        rank = null;
+
+        long endTime = System.currentTimeMillis();
+        long consuming = (endTime - startTime) / 1000;
+        logger.info("@@@ （自然）分组任务总耗时 : {} ", (consuming / 60) > 0 ? (String.valueOf(consuming / 60) + " 分钟") : "小于 1 分钟 (约为 " + String.valueOf(consuming % 60) + " 秒)");
+    }
+
+    /**
+     * 内存模式
+     *
+     * @return 记录数超过上限时返回 false
+     */
+    private boolean groupInMemory(File dest) throws IOException {
+        List<String> key1s = new ArrayList<String>();
+        List<String> key2s = new ArrayList<String>();
+        Map<String, Integer> key1First = new HashMap<String, Integer>();
+        Map<String, Integer> key2First = new HashMap<String, Integer>();
+        reset(1024);
+
+        MappedLineReader reader = new MappedLineReader(src, encoding);
+        try {
+            String line;
+            String[] ls;
+            int count = 0;
+            while ((line = reader.readLine()) != null) {
+                ls = line.split(separator);
+                if (ls.length > 1) {
+                    if (count >= memoryPairs) {
+                        return false;
+                    }
+                    int index = add(count++);
+                    key1s.add(link(ls[0], index, key1First, key1s));
+                    key2s.add(link(ls[1], index, key2First, key2s));
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        logger.info("@@@ 自然分组（内存）- 源文件 {} 共计 {} 行待分组记录, key1 {} 个, key2 {} 个",
+                src.getAbsolutePath(), key1s.size(), key1First.size(), key2First.size());
+        key1First = null;
+        key2First = null;
+
+        int count = key1s.size();
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(dest), encoding), BUFFER_SIZE);
+        try {
+            if (count < 1) {
+                writer.newLine();
+                return true;
+            }
+
+            // 按根节点编组 ( 计数排序 , 组序号按首条记录位置分配 )
+            int[] groupOf = new int[count];
+            Arrays.fill(groupOf, -1);
+            int[] members = new int[count];
+            int groups = 0;
+            for (int i = 0; i < count; i++) {
+                int root = find(i);
+                if (groupOf[root] < 0) {
+                    groupOf[root] = groups++;
+                }
+                members[i] = groupOf[root];
+            }
+            int[] offsets = new int[groups + 1];
+            for (int i = 0; i < count; i++) {
+                offsets[members[i] + 1]++;
+            }
+            for (int g = 0; g < groups; g++) {
+                offsets[g + 1] += offsets[g];
+            }
+            int[] filled = Arrays.copyOf(offsets, groups);
+            int[] order = groupOf;
+            for (int i = 0; i < count; i++) {
+                order[filled[members[i]]++] = i;
+            }
+            members = null;
+            filled = null;
+
+            Set<KeyKey> oneGroupedKeyKeys = new LinkedHashSet<KeyKey>();
+            for (int g = 0; g < groups; g++) {
+                oneGroupedKeyKeys.clear();
+                for (int i = offsets[g]; i < offsets[g + 1]; i++) {
+                    oneGroupedKeyKeys.add(new KeyKey(key1s.get(order[i]), key2s.get(order[i]), separator));
+                }
+                writeGroup(writer, oneGroupedKeyKeys);
+            }
+            logger.info("@@@ 自然分组（内存）完成 - 共计 {} 个分组", groups);
+        } finally {
+            writer.close();
+        }
+        return true;
+    }
+
+    /**
+     * 将记录与同 key 首条记录合并
+     *
+     * @return 同 key 首条记录的 key 实例 ( 共享字符串 )
+     */
+    private String link(String key, int index, Map<String, Integer> first, List<String> keys) {
+        Integer head = first.get(key);
+        if (head == null) {
+            first.put(key, index);
+            return key;
+        }
+        union(head, index);
+        return keys.get(head);
+    }
+
+    /**
+     * 溢写模式
+     */
+    private void groupWithSpill(File dest) throws IOException {
+        File dir = new File(dest.getAbsoluteFile().getParentFile(), dest.getName() + "-spill-" + System.currentTimeMillis());
+        if (!dir.mkdirs()) {
+            throw new IOException("无法创建溢写目录: " + dir.getAbsolutePath());
+        }
+        try {
+            // 1. 溢写 key 与记录序号
+            File key1Spill = new File(dir, "key1");
+            File key2Spill = new File(dir, "key2");
+            int count = 0;
+            MappedLineReader reader = new MappedLineReader(src, encoding);
+            BufferedWriter key1Writer = writer(key1Spill);
+            BufferedWriter key2Writer = writer(key2Spill);
+            try {
+                String line;
+                String[] ls;
+                while ((line = reader.readLine()) != null) {
+                    ls = line.split(separator);
+                    if (ls.length > 1) {
+                        key1Writer.write(ls[0] + separator + count);
+                        key1Writer.newLine();
+                        key2Writer.write(ls[1] + separator + count);
+                        key2Writer.newLine();
+                        count++;
+                    }
+                }
+            } finally {
+                reader.close();
+                key1Writer.close();
+                key2Writer.close();
+            }
+            logger.info("@@@ 自然分组（溢写）- 源文件 {} 共计 {} 行待分组记录", src.getAbsolutePath(), count);
+
+            if (count < 1) {
+                BufferedWriter writer = writer(dest);
+                writer.newLine();
+                writer.close();
+                return;
+            }
+
+            // 2. 按 key 排序, 相邻相同 key 的记录合并
+            reset(count);
+            for (int i = 0; i < count; i++) {
+                add(i);
+            }
+            unionSorted(key1Spill);
+            unionSorted(key2Spill);
+
+            // 3. 按根节点排序后逐组输出
+            File groupSpill = new File(dir, "group");
+            reader = new MappedLineReader(src, encoding);
+            BufferedWriter groupWriter = writer(groupSpill);
+            try {
+                String line;
+                String[] ls;
+                int index = 0;
+                while ((line = reader.readLine()) != null) {
+                    ls = line.split(separator);
+                    if (ls.length > 1) {
+                        groupWriter.write(find(index++) + separator + ls[0] + separator + ls[1]);
+                        groupWriter.newLine();
+                    }
+                }
+            } finally {
+                reader.close();
+                groupWriter.close();
+            }
+            parent = null;
+            rank = null;
+            sortSpill(groupSpill);
+
+            BufferedReader groupReader = new BufferedReader(new InputStreamReader(new FileInputStream(groupSpill), encoding), SPILL_BUFFER_SIZE);
+            BufferedWriter writer = writer(dest);
+            try {
+                Set<KeyKey> oneGroupedKeyKeys = new LinkedHashSet<KeyKey>();
+                String current = null;
+                String line;
+                String[] ls;
+                int groups = 0;
+                while ((line = groupReader.readLine()) != null) {
+                    ls = line.split(separator);
+                    if (ls.length < 3) continue;
+                    if (!ls[0].equals(current)) {
+                        if (current != null) {
+                            writeGroup(writer, oneGroupedKeyKeys);
+                            oneGroupedKeyKeys.clear();
+                        }
+                        current = ls[0];
+                        groups++;
+                    }
+                    oneGroupedKeyKeys.add(new KeyKey(ls[1], ls[2], separator));
+                }
+                if (current != null) {
+                    writeGroup(writer, oneGroupedKeyKeys);
+                }
+                logger.info("@@@ 自然分组（溢写）完成 - 共计 {} 个分组", groups);
+            } finally {
+                groupReader.close();
+                writer.close();
+            }
+        } finally {
+            FileUtils.deleteQuietly(dir);
+        }
+    }
+
+    // 排序溢写文件并合并相邻相同 key 的记录
+    private void unionSorted(File spill) throws IOException {
+        sortSpill(spill);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(spill), encoding), SPILL_BUFFER_SIZE);
+        try {
+            String previous = null;
+            int previousIndex = -1;
+            String line;
+            String[] ls;
+            while ((line = reader.readLine()) != null) {
+                ls = line.split(separator);
+                if (ls.length < 2) continue;
+                int index = Integer.parseInt(ls[1]);
+                if (ls[0].equals(previous)) {
+                    union(previousIndex, index);
+                }
+                previous = ls[0];
+                previousIndex = index;
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    // 溢写文件仅需相同 key 相邻, 按字符编码顺序外部排序 ( 内存占用受预算限制 )
+    private void sortSpill(File spill) throws IOException {
+        ExternalSorter.encoded(encoding, separator, 0, true, SortKeyEncoders.string(),
+                sortMemoryBudget, ExternalSorter.DEFAULT_FAN_IN, SPILL_BUFFER_SIZE).sort(spill, spill);
+    }
+
+    private BufferedWriter writer(File file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), encoding), SPILL_BUFFER_SIZE);
+    }
+
+    // 输出一个分组
+    private void writeGroup(BufferedWriter writer, Collection<KeyKey> oneGroupKeyKeys) throws IOException {
+        String uuid = Uuid.getUuid();
+        String multiRecord = oneGroupKeyKeys.size() > 1 ? "n" : "1";
+        for (KeyKey keykey : oneGroupKeyKeys) {
+            writer.write(multiRecord + separator + uuid + separator + keykey.toString());
+            writer.newLine();
+        }
+    }
+
+    // 并查集
+
+    private void reset(int capacity) {
+        parent = new int[capacity];
+        rank = new byte[capacity];
+    }
+
+    private int add(int index) {
+        if (index >= parent.length) {
+            int capacity = Math.max(index + 1, parent.length + (parent.length >> 1));
+            parent = Arrays.copyOf(parent, capacity);
+            rank = Arrays.copyOf(rank, capacity);
+        }
+        parent[index] = index;
+        rank[index] = 0;
+        return index;
+    }
+
+    private int find(int index) {
+        int root = index;
+        while (parent[root] != root) {
+            root = parent[root];
+        }
+        // 路径压缩
+        while (parent[index] != root) {
+            int next = parent[index];
+            parent[index] = root;
+            index = next;
+        }
+        return root;
+    }
+
+    private void union(int a, int b) {
+        int ra = find(a);
+        int rb = find(b);
+        if (ra == rb) return;
+        // 按秩合并
+        if (rank[ra] < rank[rb]) {
+            parent[ra] = rb;
+        } else if (rank[ra] > rank[rb]) {
+            parent[rb] = ra;
+        } else {
+            parent[rb] = ra;
+            rank[ra]++;
+        }
+    }
+}
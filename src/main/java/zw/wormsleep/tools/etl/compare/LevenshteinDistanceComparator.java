@@ -4,8 +4,11 @@ import org.apache.commons.lang3.StringUtils;
 
 /**
  * Created by wormsleep on 2015/12/30.
+ * LevenshteinDistance 相似度比较器 - 编辑距离小于等于阈值时匹配
+ * <p/>
+ * 候选约束: 每次编辑至多破坏 n 个 n-gram , 故至少共享 ( 去重 n-gram 数 - 阈值 * n ) 个 n-gram 。
  */
-public class LevenshteinDistanceComparator implements SimilarityComparator {
+public class LevenshteinDistanceComparator implements SimilarityComparator, CandidateBound {
     private int threshold;
 
     public LevenshteinDistanceComparator(int threshold) {
@@ -14,6 +17,29 @@ public class LevenshteinDistanceComparator implements SimilarityComparator {
 
     @Override
     public boolean compare(String first, String second) {
-        return (threshold == 0) ? (first.equalsIgnoreCase(second)) : (StringUtils.getLevenshteinDistance(first, second, threshold) < 0 ? true : false);
+        // getLevenshteinDistance 在距离超过阈值时返回 -1
+        return (threshold == 0) ? (first.equalsIgnoreCase(second)) : (StringUtils.getLevenshteinDistance(first, second, threshold) >= 0 ? true : false);
+    }
+
+    @Override
+    public boolean lengthCompatible(int firstLength, int secondLength) {
+        return Math.abs(firstLength - secondLength) <= threshold;
+    }
+
+    @Override
+    public int minSharedGrams(int firstLength, int firstGrams, int secondLength, int gramSize) {
+        // 阈值为 0 时忽略大小写比较, n-gram 无法过滤
+        return threshold == 0 ? 0 : firstGrams - threshold * gramSize;
+    }
+
+    @Override
+    public int maxGramSize() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public String normalize(String content) {
+        // 编辑距离区分大小写
+        return content;
     }
 }
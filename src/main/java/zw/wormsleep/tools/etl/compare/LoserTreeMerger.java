@@ -0,0 +1,159 @@
+package zw.wormsleep.tools.etl.compare;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 败者树多路归并 - 供文件域排序归并已排序子文件
+ * <p/>
+ * 每路仅在读入新行时解析一次排序域并缓存排序键 ( 使用排序键编码器时缓存字节排序键 , 比较即字节比较 ;
+ * 否则缓存 KeyValue 交由比较器比较 ) , 每输出一行只需 O(log k) 次比较。
+ * 排序键相等时序号小的子文件优先, 与逐路比较取最小值的结果一致。
+ *
+ * @author zhaowei
+ */
+class LoserTreeMerger {
+    final Logger logger = LoggerFactory.getLogger(LoserTreeMerger.class);
+
+    private List<BufferedReader> readers;
+    private String separator;
+    private int fieldIndex;
+    private Comparator<KeyValue> comparator;
+    private SortKeyEncoder encoder;
+
+    private int k;
+    private String[] lines; // 各路当前行 ( 读取完毕为 null )
+    private byte[][] sortKeys;
+    private KeyValue[] keyValues;
+    private int[] tree; // tree[0] 为胜者, 其余为各内部节点的败者
+
+    /**
+     * @param readers    已排序子文件
+     * @param separator  分隔符
+     * @param fieldIndex 排序域 ( 从 0 开始 )
+     * @param comparator 比较器 ( encoder 为空时使用 )
+     * @param encoder    排序键编码器 ( 不为空时按字节排序键比较 )
+     */
+    LoserTreeMerger(List<BufferedReader> readers, String separator, int fieldIndex,
+                    Comparator<KeyValue> comparator, SortKeyEncoder encoder) {
+        this.readers = readers;
+        this.separator = separator;
+        this.fieldIndex = fieldIndex;
+        this.comparator = comparator;
+        this.encoder = encoder;
+
+        k = readers.size();
+        lines = new String[k];
+        if (encoder != null) {
+            sortKeys = new byte[k][];
+        } else {
+            keyValues = new KeyValue[k];
+        }
+        tree = new int[Math.max(1, k)];
+    }
+
+    /**
+     * 归并输出
+     *
+     * @param writer        输出
+     * @param lineSeparator 行分隔符
+     * @return 输出行数
+     * @throws IOException
+     */
+    long mergeTo(Writer writer, String lineSeparator) throws IOException {
+        if (k < 1) return 0;
+
+        for (int i = 0; i < k; i++) {
+            advance(i);
+        }
+        build();
+
+        long count = 0;
+        int winner;
+        while (lines[winner = tree[0]] != null) {
+            writer.write(lines[winner]);
+            writer.write(lineSeparator);
+            count++;
+
+            advance(winner);
+            if (lines[winner] == null) {
+                logger.info("@@@  子文件 {} 读取完毕！", winner);
+            }
+            adjust(winner);
+        }
+        return count;
+    }
+
+    // 读入下一行并缓存排序键
+    private void advance(int run) throws IOException {
+        String line = readers.get(run).readLine();
+        lines[run] = line;
+        if (line == null) {
+            if (encoder != null) {
+                sortKeys[run] = null;
+            } else {
+                keyValues[run] = null;
+            }
+            return;
+        }
+        String[] ls = line.split(separator);
+        String key = ls.length > fieldIndex ? ls[fieldIndex] : "";
+        if (encoder != null) {
+            sortKeys[run] = encoder.encode(key);
+        } else {
+            keyValues[run] = new KeyValue(key, line);
+        }
+    }
+
+    // 自底向上建树 ( 叶子 i 位于 k + i , 节点 n 的父节点为 n / 2 )
+    private void build() {
+        if (k == 1) {
+            tree[0] = 0;
+            return;
+        }
+        int[] winners = new int[2 * k];
+        for (int i = 0; i < k; i++) {
+            winners[k + i] = i;
+        }
+        for (int n = k - 1; n >= 1; n--) {
+            int a = winners[2 * n];
+            int b = winners[2 * n + 1];
+            if (less(a, b)) {
+                winners[n] = a;
+                tree[n] = b;
+            } else {
+                winners[n] = b;
+                tree[n] = a;
+            }
+        }
+        tree[0] = winners[1];
+    }
+
+    // 自叶子至根重赛
+    private void adjust(int run) {
+        int winner = run;
+        for (int n = (run + k) / 2; n >= 1; n /= 2) {
+            if (less(tree[n], winner)) {
+                int loser = winner;
+                winner = tree[n];
+                tree[n] = loser;
+            }
+        }
+        tree[0] = winner;
+    }
+
+    // 读取完毕的子文件最大, 排序键相等时序号小者优先
+    private boolean less(int a, int b) {
+        if (lines[a] == null) return lines[b] == null && a < b;
+        if (lines[b] == null) return true;
+        int c = encoder != null ? SortKeyEncoders.compare(sortKeys[a], sortKeys[b])
+                : comparator.compare(keyValues[a], keyValues[b]);
+        return c < 0 || (c == 0 && a < b);
+    }
+}
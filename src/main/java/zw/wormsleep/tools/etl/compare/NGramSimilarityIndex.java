@@ -0,0 +1,360 @@
+package zw.wormsleep.tools.etl.compare;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import zw.wormsleep.tools.etl.utils.MappedLineReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * n-gram 倒排索引相似度匹配
+ * <p/>
+ * 对次文件比对内容按字符 n-gram ( 默认二元 ) 建立倒排索引 ( 倒排表按记录序号升序 ) 。
+ * 查询时按比较器阈值推导的共享下限 ( 见 CandidateBound ) 过滤候选记录:
+ * 1. 长度兼容范围内各长度的最小共享下限记为 T , 共享 T 个 n-gram 的记录必然出现在查询内容最短的 ( k - T + 1 ) 个倒排表之一
+ * ( k 为已收录的查询 n-gram 数 ) , 仅扫描这些倒排表计数, 其余较长的倒排表 ( 如 "公司" "有限" ) 仅对候选记录二分查找补足计数
+ * 2. 共享数达到该记录下限的候选记录才交由比较器比对, 避免逐对比较
+ * 3. 下限小于等于 0 的长度 ( 阈值无法过滤 ) 逐一比对该长度全部记录
+ * 故过滤结果与比较器下限一致。比较器未实现 CandidateBound 时要求至少共享一个 n-gram 。
+ * <p/>
+ * n-gram 长度超过比较器下限成立的最大长度 ( CandidateBound.maxGramSize ) 时按该长度建立索引。
+ * 索引及查询的 n-gram 均基于比较器规范化后的内容 ( CandidateBound.normalize , 如 Jaro-Winkler 转小写 ) 提取。
+ * 受限长度范围大于 0 时与 SimilarityMemoryLimitedScopeThread 一致: 仅比对长度在范围内的次比对数据,
+ * 待比对内容长度小于 5 时精确匹配。
+ * <p/>
+ * 索引构建后只读, 可由多个线程共享; 每个线程使用独立的 Searcher 。
+ *
+ * @author zhaowei
+ */
+public class NGramSimilarityIndex {
+    final Logger logger = LoggerFactory.getLogger(NGramSimilarityIndex.class);
+
+    public static final int DEFAULT_GRAM_SIZE = 2;
+
+    private int gramSize;
+    private SimilarityComparator comparator;
+    private CandidateBound bound;
+    private int limitedLengthScope;
+
+    private CompareUnit[] units; // 按内容长度升序
+    private int[] lengthStart; // 各长度记录在 units 中的起始位置
+    private int[] gramCounts; // 各记录去重 n-gram 数
+    private int[] minGramCounts; // 各长度记录的最小去重 n-gram 数
+    private Map<String, Integer> dictionary = new HashMap<String, Integer>();
+    private int[][] postings;
+
+    /**
+     * @param s          次文件 ( 每行格式为 "关键字+分隔符+比对内容" )
+     * @param encoding   次文件编码
+     * @param separator  次文件分隔符
+     * @param gramSize   n-gram 长度
+     * @param comparator 比较器
+     * @throws IOException
+     */
+    public NGramSimilarityIndex(File s, String encoding, String separator, int gramSize,
+                                SimilarityComparator comparator) throws IOException {
+        this(s, encoding, separator, gramSize, comparator, 0);
+    }
+
+    /**
+     * @param s                  次文件 ( 每行格式为 "关键字+分隔符+比对内容" )
+     * @param encoding           次文件编码
+     * @param separator          次文件分隔符
+     * @param gramSize           n-gram 长度
+     * @param comparator         比较器
+     * @param limitedLengthScope 相似度比对受限长度范围 ( 小于等于 0 时不受限 )
+     * @throws IOException
+     */
+    public NGramSimilarityIndex(File s, String encoding, String separator, int gramSize,
+                                SimilarityComparator comparator, int limitedLengthScope) throws IOException {
+        this.comparator = comparator;
+        this.bound = comparator instanceof CandidateBound ? (CandidateBound) comparator : null;
+        this.gramSize = Math.max(1, gramSize);
+        this.limitedLengthScope = limitedLengthScope;
+        if (bound != null && this.gramSize > bound.maxGramSize()) {
+            logger.info("@@@ 比较器 {} 共享下限仅适用于 {} 元 n-gram , 按 {} 元 n-gram 建立索引",
+                    comparator.getClass().getSimpleName(), bound.maxGramSize(), bound.maxGramSize());
+            this.gramSize = Math.max(1, bound.maxGramSize());
+        }
+
+        long startTime = System.currentTimeMillis();
+        load(s, encoding, separator);
+        build();
+        logger.info("@@@ n-gram 索引构建完成 - 记录数: {} n-gram 长度: {} n-gram 数: {} 耗时: {} 毫秒",
+                units.length, this.gramSize, dictionary.size(), System.currentTimeMillis() - startTime);
+    }
+
+    private void load(File s, String encoding, String separator) throws IOException {
+        List<CompareUnit> list = new ArrayList<CompareUnit>();
+        MappedLineReader reader = new MappedLineReader(s, encoding);
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] ls = line.split(separator);
+                if (ls.length > 1) {
+                    list.add(new CompareUnit(ls[0], ls[1], ls[1].length()));
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        units = list.toArray(new CompareUnit[list.size()]);
+        Arrays.sort(units, new Comparator<CompareUnit>() {
+            @Override
+            public int compare(CompareUnit o1, CompareUnit o2) {
+                return o1.length > o2.length ? 1 : (o1.length < o2.length ? -1 : 0);
+            }
+        });
+
+        int maxLength = units.length > 0 ? units[units.length - 1].length : 0;
+        lengthStart = new int[maxLength + 2];
+        int index = 0;
+        for (int length = 0; length <= maxLength + 1; length++) {
+            while (index < units.length && units[index].length < length) {
+                index++;
+            }
+            lengthStart[length] = index;
+        }
+    }
+
+    private void build() {
+        // 第一遍 - 编号并统计各 n-gram 出现次数
+        int[][] unitGrams = new int[units.length][];
+        int[] frequency = new int[1024];
+        gramCounts = new int[units.length];
+        minGramCounts = new int[lengthStart.length];
+        Arrays.fill(minGramCounts, Integer.MAX_VALUE);
+        for (int i = 0; i < units.length; i++) {
+            unitGrams[i] = grams(units[i].content, true);
+            gramCounts[i] = unitGrams[i].length;
+            minGramCounts[units[i].length] = Math.min(minGramCounts[units[i].length], gramCounts[i]);
+            for (int gram : unitGrams[i]) {
+                if (gram >= frequency.length) {
+                    frequency = Arrays.copyOf(frequency, Math.max(gram + 1, frequency.length * 2));
+                }
+                frequency[gram]++;
+            }
+        }
+
+        // 第二遍 - 按次数分配倒排表并按记录序号升序填充
+        postings = new int[dictionary.size()][];
+        int[] filled = new int[dictionary.size()];
+        for (int gram = 0; gram < postings.length; gram++) {
+            postings[gram] = new int[frequency[gram]];
+        }
+        for (int i = 0; i < units.length; i++) {
+            for (int gram : unitGrams[i]) {
+                postings[gram][filled[gram]++] = i;
+            }
+            unitGrams[i] = null;
+        }
+    }
+
+    /**
+     * 提取去重 n-gram 编号 ( 按比较器规范化后的内容提取, 内容长度小于 n 时整体作为一个 n-gram )
+     *
+     * @param content 内容
+     * @param create  是否为新 n-gram 分配编号 ( 查询时为 false, 未收录的 n-gram 编号为 -1 )
+     * @return
+     */
+    private int[] grams(String content, boolean create) {
+        if (bound != null) {
+            content = bound.normalize(content);
+        }
+        int count = content.length() < gramSize ? 1 : content.length() - gramSize + 1;
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            String gram = content.length() < gramSize ? content : content.substring(i, i + gramSize);
+            Integer id = dictionary.get(gram);
+            if (id == null && create) {
+                id = dictionary.size();
+                dictionary.put(gram, id);
+            }
+            ids[i] = id != null ? id : -1;
+        }
+        Arrays.sort(ids);
+
+        // 去重 ( 未收录的 n-gram 各不相同, 予以保留 )
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || ids[i] != ids[i - 1] || ids[i] < 0) {
+                ids[distinct++] = ids[i];
+            }
+        }
+        return distinct == count ? ids : Arrays.copyOf(ids, distinct);
+    }
+
+    /**
+     * 满足阈值时两内容至少共享的 n-gram 数 ( 分别自两侧推导取较大者 )
+     */
+    private int minShared(int firstLength, int firstGrams, int secondLength, int secondGrams) {
+        if (bound == null) {
+            return 1;
+        }
+        if (firstLength < gramSize || secondLength < gramSize) {
+            // 短内容整体作为 n-gram , 无法与其它长度内容的 n-gram 对应
+            return 0;
+        }
+        return Math.max(bound.minSharedGrams(firstLength, firstGrams, secondLength, gramSize),
+                bound.minSharedGrams(secondLength, secondGrams, firstLength, gramSize));
+    }
+
+    /**
+     * 两内容长度是否需要比对 ( 比较器长度约束及受限长度范围, 与 SortedCompareUnits.getLimitedRange 一致 )
+     */
+    private boolean lengthCompatible(int firstLength, int secondLength) {
+        if (limitedLengthScope > 0) {
+            if (firstLength < 5) {
+                return secondLength == firstLength;
+            }
+            if (secondLength < Math.max(firstLength - limitedLengthScope, 4) || secondLength > firstLength + limitedLengthScope) {
+                return false;
+            }
+        }
+        return bound == null || bound.lengthCompatible(firstLength, secondLength);
+    }
+
+    public int size() {
+        return units.length;
+    }
+
+    public SimilarityComparator getComparator() {
+        return comparator;
+    }
+
+    /**
+     * 创建查询器 ( 非线程安全, 每个线程一个 )
+     *
+     * @return
+     */
+    public Searcher searcher() {
+        return new Searcher();
+    }
+
+    /**
+     * 匹配结果回调
+     */
+    public interface MatchHandler {
+        void matched(CompareUnit unit);
+    }
+
+    public class Searcher {
+        // 长度状态
+        private static final int SKIPPED = 0; // 无需比对
+        private static final int FILTERED = 1; // 按共享下限过滤
+        private static final int SCANNED = 2; // 下限小于等于 0 , 逐一比对
+
+        private int[] counts = new int[units.length];
+        private int[] touched = new int[1024];
+        private int[] states = new int[lengthStart.length - 1];
+        private long comparisons = 0;
+
+        /**
+         * 查找与内容相似的次文件记录
+         *
+         * @param content 待比对内容
+         * @param handler 匹配结果回调
+         * @return 匹配数
+         */
+        public int search(String content, MatchHandler handler) {
+            int length = content.length();
+            int[] grams = grams(content, false);
+            // 受限长度范围内的短内容精确匹配 ( 须共享全部 n-gram )
+            boolean exact = limitedLengthScope > 0 && length < 5;
+
+            // 各长度状态及按共享下限过滤的长度中的最小下限
+            int minRequired = Integer.MAX_VALUE;
+            int matched = 0;
+            for (int other = 0; other < states.length; other++) {
+                states[other] = SKIPPED;
+                if (lengthStart[other] == lengthStart[other + 1] || !lengthCompatible(length, other)) {
+                    continue;
+                }
+                int required = exact ? grams.length : minShared(length, grams.length, other, minGramCounts[other]);
+                if (required > 0) {
+                    states[other] = FILTERED;
+                    minRequired = Math.min(minRequired, required);
+                } else {
+                    states[other] = SCANNED;
+                    for (int unit = lengthStart[other]; unit < lengthStart[other + 1]; unit++) {
+                        matched += compare(content, units[unit], exact, handler);
+                    }
+                }
+            }
+            if (minRequired == Integer.MAX_VALUE) {
+                return matched;
+            }
+
+            // 已收录的 n-gram 按倒排表长度升序 ( 未收录的 n-gram 不可能共享 )
+            int[] order = new int[grams.length];
+            int known = 0;
+            for (int gram : grams) {
+                if (gram < 0) continue;
+                int i = known++;
+                while (i > 0 && postings[order[i - 1]].length > postings[gram].length) {
+                    order[i] = order[i - 1];
+                    i--;
+                }
+                order[i] = gram;
+            }
+            // 共享 minRequired 个 n-gram 的记录必然出现在最短的 prefix 个倒排表之一
+            int prefix = known - minRequired + 1;
+            if (prefix <= 0) {
+                return matched;
+            }
+
+            int touchedCount = 0;
+            for (int i = 0; i < prefix; i++) {
+                for (int unit : postings[order[i]]) {
+                    if (counts[unit]++ == 0) {
+                        if (touchedCount == touched.length) {
+                            touched = Arrays.copyOf(touched, touched.length * 2);
+                        }
+                        touched[touchedCount++] = unit;
+                    }
+                }
+            }
+
+            for (int i = 0; i < touchedCount; i++) {
+                int unit = touched[i];
+                int count = counts[unit];
+                counts[unit] = 0;
+                if (states[units[unit].length] != FILTERED) {
+                    continue;
+                }
+                int required = exact ? grams.length : minShared(length, grams.length, units[unit].length, gramCounts[unit]);
+                // 较长的倒排表二分查找补足计数 ( 剩余倒排表全部命中仍不足时提前结束 )
+                for (int j = prefix; j < known && count < required && count + known - j >= required; j++) {
+                    if (Arrays.binarySearch(postings[order[j]], unit) >= 0) {
+                        count++;
+                    }
+                }
+                if (count >= required) {
+                    matched += compare(content, units[unit], exact, handler);
+                }
+            }
+            return matched;
+        }
+
+        private int compare(String content, CompareUnit unit, boolean exact, MatchHandler handler) {
+            comparisons++;
+            if (exact ? content.equals(unit.content) : comparator.compare(content, unit.content)) {
+                handler.matched(unit);
+                return 1;
+            }
+            return 0;
+        }
+
+        /**
+         * 累计比较次数
+         *
+         * @return
+         */
+        public long getComparisons() {
+            return comparisons;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package zw.wormsleep.tools.etl.compare;
+
+/**
+ * 相似度比较器工厂 - 按名称创建比较器
+ * <p/>
+ * jarowinkler - JaroWinklerDistanceComparator ( 阈值为评分下限 )
+ * fastjarowinkler - FastJaroWinklerComparator ( 阈值为评分下限 )
+ * levenshtein - LevenshteinDistanceComparator ( 阈值为编辑距离上限, 取整数部分 )
+ * fastlevenshtein - BitParallelLevenshteinComparator ( 阈值为编辑距离上限, 取整数部分 )
+ *
+ * @author zhaowei
+ */
+public class SimilarityComparators {
+    public static final String JARO_WINKLER = "jarowinkler";
+    public static final String FAST_JARO_WINKLER = "fastjarowinkler";
+    public static final String LEVENSHTEIN = "levenshtein";
+    public static final String FAST_LEVENSHTEIN = "fastlevenshtein";
+
+    /**
+     * 创建比较器
+     *
+     * @param name      比较器名称 ( 不区分大小写 , 为空时使用 jarowinkler )
+     * @param threshold 阈值
+     * @return
+     */
+    public static SimilarityComparator create(String name, Double threshold) {
+        String n = name == null || name.trim().equals("") ? JARO_WINKLER : name.trim().toLowerCase();
+        if (n.equals(JARO_WINKLER)) {
+            return new JaroWinklerDistanceComparator(threshold);
+        } else if (n.equals(FAST_JARO_WINKLER)) {
+            return new FastJaroWinklerComparator(threshold);
+        } else if (n.equals(LEVENSHTEIN)) {
+            return new LevenshteinDistanceComparator(threshold.intValue());
+        } else if (n.equals(FAST_LEVENSHTEIN)) {
+            return new BitParallelLevenshteinComparator(threshold.intValue());
+        }
+        throw new IllegalArgumentException("未知的相似度比较器: " + name);
+    }
+}
@@ -0,0 +1,177 @@
+package zw.wormsleep.tools.etl.compare;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 内存相似度比较执行器
+ * <p/>
+ * 首、次比对数据各载入内存一次, 次比对数据由各工作线程只读共享。
+ * 首比对数据按长度排序后切分为细粒度块 ( 默认每块 DEFAULT_BLOCK_SIZE 条 ) , 工作线程通过共享游标逐块领取,
+ * 先完成的线程继续领取剩余块, 内容长度分布不均时各线程负载仍保持均衡。
+ * 各块匹配结果经队列交由调用线程统一写入输出文件, 不产生临时分割文件及分块结果文件。
+ * <p/>
+ * 受限长度范围大于 0 时与 SimilarityMemoryLimitedScopeThread 一致: 仅比对长度在范围内的次比对数据,
+ * 长度小于 5 的内容精确匹配; 否则与全部次比对数据逐一比较。
+ * 输出行顺序与块完成顺序相关, 不保证与首文件顺序一致。
+ *
+ * @author zhaowei
+ */
+public class SimilarityExecutor {
+    final Logger logger = LoggerFactory.getLogger(SimilarityExecutor.class);
+
+    public static final int DEFAULT_BLOCK_SIZE = 100;
+    // 待写入块结果队列深度
+    private static final int QUEUE_SIZE = 1000;
+    // 工作线程结束标记
+    private static final List<String> END = new ArrayList<String>(0);
+
+    private SortedCompareUnits second;
+    private SimilarityComparator comparator;
+    private int similarityLimitedLengthScope;
+    private int threads;
+    private int blockSize;
+
+    /**
+     * @param second                       次比对数据
+     * @param comparator                   比较器 ( 须可由多个线程共享 )
+     * @param similarityLimitedLengthScope 相似度比对受限长度范围 ( 小于等于 0 时不受限 )
+     * @param threads                      工作线程数
+     * @param blockSize                    每块记录数
+     */
+    public SimilarityExecutor(SortedCompareUnits second, SimilarityComparator comparator,
+                              int similarityLimitedLengthScope, int threads, int blockSize) {
+        this.second = second;
+        this.comparator = comparator;
+        this.similarityLimitedLengthScope = similarityLimitedLengthScope;
+        this.threads = Math.max(1, threads);
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    /**
+     * 执行比较并写入匹配结果 ( 每行 "首关键字+分隔符+次关键字" )
+     *
+     * @param first      首比对数据 ( 按长度排序 )
+     * @param writer     输出
+     * @param mSeparator 输出分隔符
+     * @return 匹配数
+     * @throws IOException
+     */
+    public long execute(final CompareUnit[] first, BufferedWriter writer, final String mSeparator) throws IOException {
+        final BlockingQueue<List<String>> queue = new ArrayBlockingQueue<List<String>>(QUEUE_SIZE);
+        final AtomicInteger cursor = new AtomicInteger(0);
+        final AtomicLong comparisons = new AtomicLong(0);
+        final AtomicBoolean cancelled = new AtomicBoolean(false);
+        final int blocks = (first.length + blockSize - 1) / blockSize;
+
+        CompareTaskExecutor executor = new CompareTaskExecutor("相似度比较（内存）", Executors.newFixedThreadPool(threads));
+        for (int i = 0; i < threads; i++) {
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    long compared = 0;
+                    try {
+                        int block;
+                        while (!cancelled.get() && (block = cursor.getAndIncrement()) < blocks) {
+                            List<String> matched = new ArrayList<String>();
+                            int end = Math.min(first.length, (block + 1) * blockSize);
+                            compared += compareBlock(first, block * blockSize, end, mSeparator, matched);
+                            if (!matched.isEmpty()) {
+                                queue.put(matched);
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (RuntimeException e) {
+                        cancelled.set(true);
+                        throw e;
+                    } catch (Error e) {
+                        cancelled.set(true);
+                        throw e;
+                    } finally {
+                        comparisons.addAndGet(compared);
+                        try {
+                            queue.put(END);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }
+            });
+        }
+
+        // 调用线程统一写入
+        long matchedCount = 0;
+        int ended = 0;
+        try {
+            while (ended < threads) {
+                List<String> lines = queue.take();
+                if (lines == END) {
+                    ended++;
+                    continue;
+                }
+                for (String line : lines) {
+                    if (matchedCount++ > 0) {
+                        writer.newLine();
+                    }
+                    writer.write(line);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("相似度比较被中断 !");
+        } finally {
+            if (ended < threads) {
+                cancelled.set(true);
+                executor.cancel();
+            }
+        }
+
+        // 等待工作线程结束 ( 工作线程异常时抛出 )
+        executor.await();
+
+        logger.info("@@@ 相似度比较（内存）完成 - 首比对记录数: {} 块数: {} 线程数: {} 比较次数: {} 匹配数: {}",
+                first.length, blocks, threads, comparisons.get(), matchedCount);
+        return matchedCount;
+    }
+
+    /**
+     * 比较一块首比对数据
+     *
+     * @return 比较次数
+     */
+    private long compareBlock(CompareUnit[] first, int start, int end, String mSeparator, List<String> matched) {
+        CompareUnit[] units = second.getCompareUnits();
+        long compared = 0;
+        int currentLength = -1;
+        int[] range = new int[]{0, units.length - 1};
+        for (int i = start; i < end; i++) {
+            CompareUnit fcu = first[i];
+            if (similarityLimitedLengthScope > 0 && fcu.length != currentLength) {
+                currentLength = fcu.length;
+                range = second.getLimitedRange(currentLength, similarityLimitedLengthScope);
+            }
+            // 受限范围时比对内容长度小于 5 的进行精确匹配
+            boolean exact = similarityLimitedLengthScope > 0 && currentLength < 5;
+            for (int j = range[0]; j <= range[1]; j++) {
+                CompareUnit scu = units[j];
+                compared++;
+                if (exact ? fcu.content.equals(scu.content) : comparator.compare(fcu.content, scu.content)) {
+                    matched.add(fcu.key + mSeparator + scu.key);
+                }
+            }
+        }
+        return compared;
+    }
+}
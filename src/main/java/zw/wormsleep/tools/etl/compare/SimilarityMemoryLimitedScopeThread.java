@@ -108,6 +108,7 @@ public class SimilarityMemoryLimitedScopeThread extends Thread {
 
         } catch (IOException e) {
             logger.error("IO 异常", e);
+            throw new IllegalStateException("相似度匹配子文件读写异常 : " + matched.getAbsolutePath(), e);
         }
     }
 
@@ -90,6 +90,7 @@ public class SimilarityMemoryThread extends Thread {
 
         } catch (IOException e) {
             logger.error("IO 异常", e);
+            throw new IllegalStateException("相似度匹配子文件读写异常 : " + matched.getAbsolutePath(), e);
         }
     }
 }
@@ -0,0 +1,10 @@
+package zw.wormsleep.tools.etl.compare;
+
+/**
+ * 排序键编码器 - 将排序域一次性编码为可按无符号字节逐位比较 ( memcmp ) 的字节数组
+ * <p/>
+ * 实现须可由多个线程共享。
+ */
+public interface SortKeyEncoder {
+    byte[] encode(String value); // 编码排序域 ( 字节序即排序顺序 )
+}
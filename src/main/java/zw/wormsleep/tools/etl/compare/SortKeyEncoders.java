@@ -0,0 +1,187 @@
+package zw.wormsleep.tools.etl.compare;
+
+import java.math.BigDecimal;
+import java.text.Collator;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+
+/**
+ * 排序键编码器工厂
+ * <p/>
+ * collation - 按排序规则 ( CollationKey ) 编码, Locale.CHINA 为拼音顺序, Locale.TAIWAN 为笔画顺序
+ * string - 按 UTF-16 字符编码, 与 String.compareTo 顺序一致
+ * numeric - 按数值编码 ( 任意精度 ) , 无法解析的值排在最前并按原文排序
+ * date - 按指定格式解析后的时间编码, 无法解析的值排在最前并按原文排序
+ *
+ * @author zhaowei
+ */
+public class SortKeyEncoders {
+
+    /**
+     * 中文拼音顺序
+     *
+     * @return
+     */
+    public static SortKeyEncoder chinese() {
+        return collation(Locale.CHINA);
+    }
+
+    /**
+     * 按排序规则编码
+     *
+     * @param locale 区域
+     * @return
+     */
+    public static SortKeyEncoder collation(final Locale locale) {
+        return new SortKeyEncoder() {
+            // Collator 非线程安全, 按线程缓存
+            private final ThreadLocal<Collator> collator = new ThreadLocal<Collator>() {
+                @Override
+                protected Collator initialValue() {
+                    return Collator.getInstance(locale);
+                }
+            };
+
+            @Override
+            public byte[] encode(String value) {
+                return collator.get().getCollationKey(value).toByteArray();
+            }
+        };
+    }
+
+    /**
+     * 按 UTF-16 字符编码 ( 每字符两字节, 高位在前 )
+     *
+     * @return
+     */
+    public static SortKeyEncoder string() {
+        return new SortKeyEncoder() {
+            @Override
+            public byte[] encode(String value) {
+                return chars(value, 0);
+            }
+        };
+    }
+
+    /**
+     * 按数值编码
+     * <p/>
+     * 格式: 类别 ( 无法解析 0x00 / 负数 0x40 / 零 0x80 / 正数 0xC0 ) + 十进制指数 ( 4 字节, 翻转符号位 ) + 有效数字 + 0x00 ,
+     * 负数对类别之后的各字节取反。
+     *
+     * @return
+     */
+    public static SortKeyEncoder numeric() {
+        return new SortKeyEncoder() {
+            @Override
+            public byte[] encode(String value) {
+                BigDecimal number;
+                try {
+                    number = new BigDecimal(value.trim());
+                } catch (NumberFormatException e) {
+                    return unparsed(value);
+                }
+                int sign = number.signum();
+                if (sign == 0) {
+                    return new byte[]{(byte) 0x80};
+                }
+                BigDecimal abs = number.abs().stripTrailingZeros();
+                String digits = abs.unscaledValue().toString();
+                int exponent = digits.length() - abs.scale() - 1;
+
+                byte[] key = new byte[1 + 4 + digits.length() + 1];
+                key[0] = (byte) (sign < 0 ? 0x40 : 0xC0);
+                putInt(key, 1, exponent ^ Integer.MIN_VALUE);
+                for (int i = 0; i < digits.length(); i++) {
+                    key[5 + i] = (byte) digits.charAt(i);
+                }
+                if (sign < 0) {
+                    for (int i = 1; i < key.length; i++) {
+                        key[i] = (byte) ~key[i];
+                    }
+                }
+                return key;
+            }
+        };
+    }
+
+    /**
+     * 按日期编码
+     * <p/>
+     * 格式: 类别 ( 无法解析 0x00 / 日期 0x01 ) + 毫秒数 ( 8 字节, 翻转符号位 )
+     *
+     * @param pattern 日期格式 ( SimpleDateFormat )
+     * @return
+     */
+    public static SortKeyEncoder date(final String pattern) {
+        return new SortKeyEncoder() {
+            // SimpleDateFormat 非线程安全, 按线程缓存
+            private final ThreadLocal<SimpleDateFormat> format = new ThreadLocal<SimpleDateFormat>() {
+                @Override
+                protected SimpleDateFormat initialValue() {
+                    SimpleDateFormat format = new SimpleDateFormat(pattern);
+                    format.setLenient(false);
+                    return format;
+                }
+            };
+
+            @Override
+            public byte[] encode(String value) {
+                long time;
+                try {
+                    time = format.get().parse(value.trim()).getTime();
+                } catch (ParseException e) {
+                    return unparsed(value);
+                }
+                byte[] key = new byte[9];
+                key[0] = 0x01;
+                long flipped = time ^ Long.MIN_VALUE;
+                for (int i = 0; i < 8; i++) {
+                    key[1 + i] = (byte) (flipped >>> (56 - 8 * i));
+                }
+                return key;
+            }
+        };
+    }
+
+    /**
+     * 无符号字节逐位比较
+     *
+     * @param a
+     * @param b
+     * @return
+     */
+    public static int compare(byte[] a, byte[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            int c = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (c != 0) return c;
+        }
+        return a.length - b.length;
+    }
+
+    // 无法解析的值 - 0x00 + 原文字符
+    private static byte[] unparsed(String value) {
+        byte[] key = chars(value, 1);
+        key[0] = 0x00;
+        return key;
+    }
+
+    private static byte[] chars(String value, int offset) {
+        byte[] key = new byte[offset + value.length() * 2];
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            key[offset + 2 * i] = (byte) (c >>> 8);
+            key[offset + 2 * i + 1] = (byte) c;
+        }
+        return key;
+    }
+
+    private static void putInt(byte[] key, int offset, int value) {
+        key[offset] = (byte) (value >>> 24);
+        key[offset + 1] = (byte) (value >>> 16);
+        key[offset + 2] = (byte) (value >>> 8);
+        key[offset + 3] = (byte) value;
+    }
+}
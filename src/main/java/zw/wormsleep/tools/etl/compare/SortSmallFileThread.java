@@ -28,8 +28,13 @@ public class SortSmallFileThread extends Thread {
 
     private List<String> lines;
     private Comparator<KeyValue> comparator;
+    private SortKeyEncoder encoder;
 
     public SortSmallFileThread(File inout, String encoding, String separator, int fieldIndex, boolean allowEmptyField, Comparator<KeyValue> comparator) throws IOException {
+        this(inout, encoding, separator, fieldIndex, allowEmptyField, comparator, null);
+    }
+
+    private SortSmallFileThread(File inout, String encoding, String separator, int fieldIndex, boolean allowEmptyField, Comparator<KeyValue> comparator, SortKeyEncoder encoder) throws IOException {
         this.inout = inout;
         lines = FileUtils.readLines(inout, encoding);
         this.encoding = encoding != null ? encoding : "UTF-8";
@@ -37,6 +42,16 @@ public class SortSmallFileThread extends Thread {
         this.fieldIndex = fieldIndex;
         this.allowEmptyField = allowEmptyField;
         this.comparator = comparator;
+        this.encoder = encoder;
+    }
+
+    /**
+     * 按字节排序键排序 ( 每行排序域编码一次, 以基数排序代替比较器排序 )
+     * <p/>
+     * 以静态方法创建, 避免与比较器构造方法在传入 null 时产生歧义。
+     */
+    public static SortSmallFileThread encoded(File inout, String encoding, String separator, int fieldIndex, boolean allowEmptyField, SortKeyEncoder encoder) throws IOException {
+        return new SortSmallFileThread(inout, encoding, separator, fieldIndex, allowEmptyField, null, encoder);
     }
 
     @Override
@@ -66,7 +81,21 @@ public class SortSmallFileThread extends Thread {
 
         // 排序
         KeyValue[] kvs = keyValues.toArray(new KeyValue[keyValues.size()]);
-        Arrays.sort(kvs, comparator);
+        if (encoder != null) {
+            byte[][] keys = new byte[kvs.length][];
+            for (int i = 0; i < kvs.length; i++) {
+                keys[i] = encoder.encode(kvs[i].getKey());
+            }
+            int[] order = ByteKeySorter.sort(keys);
+            keys = null;
+            KeyValue[] sorted = new KeyValue[kvs.length];
+            for (int i = 0; i < order.length; i++) {
+                sorted[i] = kvs[order[i]];
+            }
+            kvs = sorted;
+        } else {
+            Arrays.sort(kvs, comparator);
+        }
         keyValues = null;
 
         keyValues = new ArrayList<KeyValue>();
@@ -80,7 +109,8 @@ public class SortSmallFileThread extends Thread {
             long consuming = (endTime - startTime) / 1000;
             logger.info("@@@ 线程：{} - 结束！耗时：{}", threadName, (consuming / 60) > 0 ? (String.valueOf(consuming / 60) + " 分钟") : "小于 1 分钟 (约为 " + String.valueOf(consuming % 60) + " 秒)");
         } catch (IOException e) {
-            e.printStackTrace();
+            logger.error("IO 异常", e);
+            throw new IllegalStateException("子文件排序写出异常 : " + inout.getAbsolutePath(), e);
         }
     }
 }
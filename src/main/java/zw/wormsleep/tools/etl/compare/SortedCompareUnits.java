@@ -1,8 +1,8 @@
 package zw.wormsleep.tools.etl.compare;
 
-import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import zw.wormsleep.tools.etl.utils.MappedLineReader;
 
 import java.io.File;
 import java.io.IOException;
@@ -30,15 +30,19 @@ public class SortedCompareUnits {
     }
 
     private void init() throws IOException {
-        List<String> lines = FileUtils.readLines(in, encoding);
-
-        // 组装有效比对数据对象集
+        // 组装有效比对数据对象集 ( 逐行读取, 不整体读入文件内容 )
         List<CompareUnit> _compareUnits = new ArrayList<CompareUnit>();
-        for (String line : lines) {
-            String[] ls = line.split(separator);
-            if (ls.length > 1) {
-                _compareUnits.add(new CompareUnit(ls[0], ls[1], ls[1].length()));
+        MappedLineReader reader = new MappedLineReader(in, encoding);
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] ls = line.split(separator);
+                if (ls.length > 1) {
+                    _compareUnits.add(new CompareUnit(ls[0], ls[1], ls[1].length()));
+                }
             }
+        } finally {
+            reader.close();
         }
 
         // toArray
@@ -87,6 +91,18 @@ public class SortedCompareUnits {
      * @return
      */
     public CompareUnit[] getLimitedCompareUnits(int length, int scope) {
+        int[] range = getLimitedRange(length, scope);
+        return range[1] >= range[0] ? Arrays.copyOfRange(compareUnits, range[0], range[1] + 1) : new CompareUnit[]{};
+    }
+
+    /**
+     * 获取比对对象子集在 getCompareUnits() 中的位置 ( 不复制数组 )
+     *
+     * @param length 待比对内容长度
+     * @param scope  正负范围
+     * @return [起始位置, 终止位置] ( 均包含 , 无比对对象时终止位置小于起始位置 )
+     */
+    public int[] getLimitedRange(int length, int scope) {
         int start = -1;
         int end = -1;
 
@@ -111,12 +127,12 @@ public class SortedCompareUnits {
                 }
             }
 
-            return (end >= start && start >= 0 && end >= 0) ? Arrays.copyOfRange(compareUnits, start, end + 1) : new CompareUnit[]{};
+            return (end >= start && start >= 0 && end >= 0) ? new int[]{start, end} : new int[]{0, -1};
 
         } else {
             int position = Arrays.binarySearch(groupedLength, length);
 
-            return position >= 0 ? Arrays.copyOfRange(compareUnits, groupedLengthObject.get(groupedLength[position])[0], groupedLengthObject.get(groupedLength[position])[1] + 1) : new CompareUnit[]{};
+            return position >= 0 ? new int[]{groupedLengthObject.get(groupedLength[position])[0], groupedLengthObject.get(groupedLength[position])[1]} : new int[]{0, -1};
         }
     }
 
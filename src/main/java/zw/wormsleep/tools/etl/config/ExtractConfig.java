@@ -1,5 +1,6 @@
 package zw.wormsleep.tools.etl.config;
 
+import java.util.List;
 import java.util.Map;
 
 public interface ExtractConfig {
@@ -44,4 +45,30 @@ public interface ExtractConfig {
     int getFetchSize(); // 源数据库 table 模式 ( 表对表批量传输使用 )
 
     boolean columnNameToLowerCase(); // 源数据库表字段转小写
+
+    String getPartitionColumn(); // 分区并行抽取字段 ( 数值或日期类型 )
+
+    int getPartitions(); // 分区并行抽取分区数 ( 默认 1 即不分区 )
+
+    String getPartitionMode(); // 分区方式 ( range 默认按最小最大值等分 || mod 取模 || hash 哈希取模 ( 仅限 Oracle / MySQL ) || rowid Oracle ROWID 块号取模 )
+
+    List<String> getPartitionBoundaries(); // 显式分区边界值 ( SQL 字面量, 配置后按边界分区且忽略分区数 )
+
+    String getQuote(); // 文本文件域引号字符 ( 未配置时不处理引号 )
+
+    String getEscape(); // 文本文件转义字符 ( 未配置时不处理转义 )
+
+    boolean trimValues(); // 文本文件域值是否去除首尾空白 ( 默认 true )
+
+    int getMaxQuotedLines(); // 文本文件引号域最多跨越行数 ( 默认 100 , 超出或至文件末尾仍未闭合时跳过该行 )
+
+    int getChunks(); // 文本文件分块并行抽取块数 ( 默认 1 即不分块 )
+
+    String getChunkMode(); // 分块加载方式 ( merge 默认合并为单一数据流由一个加载器加载 || loader 每块独立加载器及连接 )
+
+    String getXmlMode(); // XML 抽取方式 ( dom 默认整体解析 || auto 路径可流式匹配时流式抽取 || stream 流式 )
+
+    String getExcelMode(); // Excel 抽取方式 ( usermodel 默认整体加载 Workbook || stream 流式逐行解析 )
+
+    int getSheetThreads(); // Excel 多 Sheet 并行加载线程数 ( 默认 1 即逐个 Sheet 串行加载 )
 }
@@ -42,6 +42,10 @@ public interface LoadConfig {
 
     int getThreadCount(); // 线程数  ( 表对表批量传输使用 )
 
+    int getSourceMaxThreads(); // 同一源数据库最大并发任务数 ( 表对表批量传输使用 , 0 为不限 )
+
+    int getTargetMaxThreads(); // 同一目标数据库最大并发任务数 ( 表对表批量传输使用 , 0 为不限 )
+
     int getBatchSize(); // 批量处理数  ( 数据库 )
 
     boolean truncateTableBeforeLoad(); // 导入数据库前是否先清除表数据
@@ -55,4 +59,28 @@ public interface LoadConfig {
     List<String> getKeyFields(); // 获取目标表主键字段集合
 
     List<String> getNonUpdateFields(); // 获取目的表不需要更新字段集合
+
+    String getLoadMode(); // 数据库加载模式 ( normal 默认串行 || pipeline 抽取、转换、加载流水线并行 || record 按位置记录 )
+
+    int getQueueSize(); // 流水线模式下各阶段之间的缓冲队列深度 ( 队列满时上游阶段阻塞等待 )
+
+    int getWriterThreads(); // 并行写入线程数 ( 大于 1 时每个写入线程独占一个目标数据库连接并每批次独立提交; 非表对表拷贝且配置主键字段时按 1 处理 )
+
+    boolean bulkLoad(); // 表对表拷贝或加载前清表 ( 未配置主键 ) 时是否启用数据库专有批量加载方式 ( MySQL 多行 VALUES || Oracle APPEND_VALUES || Sybase 纯插入 )
+
+    String getUpsertMode(); // 排重插入方式 ( row 默认逐行判断 || staging 批量插入暂存表后集合式合并 )
+
+    String getStagingTable(); // 暂存表名 ( 未配置时按目标表结构自动创建 表名_S 加唯一后缀且总长不超过 30 的暂存表, 加载结束后删除 )
+
+    String getStagingScope(); // 暂存表合并时机 ( batch 默认每批次合并 || load 全部加载后合并一次 )
+
+    boolean adaptiveBatch(); // 是否按实测提交耗时自适应调整批次大小 ( batchsize 作为初始值 )
+
+    int getMinBatchSize(); // 自适应批次大小下限
+
+    int getMaxBatchSize(); // 自适应批次大小上限
+
+    long getTargetLatency(); // 自适应批次目标提交耗时 ( 毫秒 )
+
+    String getCommitInterval(); // 提交间隔 ( 未配置每批次提交 || 行数 || 毫秒数加 ms || end 仅结束时提交 )
 }
@@ -7,6 +7,7 @@ import org.slf4j.LoggerFactory;
 import zw.wormsleep.tools.etl.utils.ConfigParserUtils;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,6 +33,19 @@ public class SimpleExtractConfig implements ExtractConfig {
     final String NODE_INPUT_TABLE_PATTERN = "input.tablepattern";
     final String NODE_INPUT_FETCH_SIZE = "input.fetchsize";
     final String NODE_INPUT_COLUMN_NAME_TOLOWERCASE = "input.columnnametolowercase";
+    final String NODE_INPUT_PARTITION_COLUMN = "input.partitioncolumn";
+    final String NODE_INPUT_PARTITIONS = "input.partitions";
+    final String NODE_INPUT_PARTITION_MODE = "input.partitionmode";
+    final String NODE_INPUT_PARTITION_BOUNDARIES = "input.partitionboundaries";
+    final String NODE_INPUT_QUOTE = "input.quote";
+    final String NODE_INPUT_ESCAPE = "input.escape";
+    final String NODE_INPUT_TRIM = "input.trim";
+    final String NODE_INPUT_MAX_QUOTED_LINES = "input.maxquotedlines";
+    final String NODE_INPUT_CHUNKS = "input.chunks";
+    final String NODE_INPUT_CHUNK_MODE = "input.chunkmode";
+    final String NODE_INPUT_XML_MODE = "input.xmlmode";
+    final String NODE_INPUT_EXCEL_MODE = "input.excelmode";
+    final String NODE_INPUT_SHEET_THREADS = "input.sheetthreads";
 
     final String PROP_COLUMN_HEADER = "columns[@header]";
     final String NODE_COLUMN = "columns.column";
@@ -79,6 +93,53 @@ public class SimpleExtractConfig implements ExtractConfig {
         return ConfigParserUtils.getSeparator(business.getString(NODE_INPUT_SEPARATOR));
     }
 
+    @Override
+    public String getQuote() {
+        String quote = business.getString(NODE_INPUT_QUOTE);
+        return (quote != null && !quote.equals("")) ? quote : null;
+    }
+
+    @Override
+    public String getEscape() {
+        String escape = business.getString(NODE_INPUT_ESCAPE);
+        return (escape != null && !escape.equals("")) ? escape : null;
+    }
+
+    @Override
+    public boolean trimValues() {
+        return business.getBoolean(NODE_INPUT_TRIM, true);
+    }
+
+    @Override
+    public int getMaxQuotedLines() {
+        return business.getInt(NODE_INPUT_MAX_QUOTED_LINES, 100);
+    }
+
+    @Override
+    public int getChunks() {
+        return business.getInt(NODE_INPUT_CHUNKS, 1);
+    }
+
+    @Override
+    public String getChunkMode() {
+        return business.getString(NODE_INPUT_CHUNK_MODE, "merge");
+    }
+
+    @Override
+    public String getXmlMode() {
+        return business.getString(NODE_INPUT_XML_MODE, "dom");
+    }
+
+    @Override
+    public String getExcelMode() {
+        return business.getString(NODE_INPUT_EXCEL_MODE, "usermodel");
+    }
+
+    @Override
+    public int getSheetThreads() {
+        return business.getInt(NODE_INPUT_SHEET_THREADS, 1);
+    }
+
     @Override
     public int getRowStart() {
         return business.getInt(NODE_INPUT_ROW_START, 0);
@@ -206,4 +267,35 @@ public class SimpleExtractConfig implements ExtractConfig {
         return business.getBoolean(NODE_INPUT_COLUMN_NAME_TOLOWERCASE, false);
     }
 
+    @Override
+    public String getPartitionColumn() {
+        String partitionColumn = business.getString(NODE_INPUT_PARTITION_COLUMN);
+        return (partitionColumn != null && !partitionColumn.equals("")) ? partitionColumn : null;
+    }
+
+    @Override
+    public int getPartitions() {
+        return business.getInt(NODE_INPUT_PARTITIONS, 1);
+    }
+
+    @Override
+    public String getPartitionMode() {
+        return business.getString(NODE_INPUT_PARTITION_MODE, "range");
+    }
+
+    @Override
+    public List<String> getPartitionBoundaries() {
+        List<String> result = new ArrayList<String>();
+
+        List<Object> boundaries = business.getList(NODE_INPUT_PARTITION_BOUNDARIES);
+        for (Object boundary : boundaries) {
+            String value = ((String) boundary).trim();
+            if (!value.equals("")) {
+                result.add(value);
+            }
+        }
+
+        return result;
+    }
+
 }
@@ -32,6 +32,8 @@ public class SimpleLoadConfig implements LoadConfig {
     final String NODE_OUTPUT_AUTO_CREATE_TABLE = "output.autocreatetable";
     final String NODE_OUTPUT_TRANSMIT_DATA = "output.transmitdata";
     final String NODE_OUTPUT_THREAD_COUNT = "output.threadcount";
+    final String NODE_OUTPUT_SOURCE_MAX_THREADS = "output.sourcemaxthreads";
+    final String NODE_OUTPUT_TARGET_MAX_THREADS = "output.targetmaxthreads";
     final String NODE_OUTPUT_BATCH_SIZE = "output.batchsize";
     final String NODE_OUTPUT_TEMPLATE_COLLECTION = "templatecollection";
     final String NODE_OUTPUT_TRUNCATE_TABLE_BEFORE_LOAD = "output.truncatetablebeforeload";
@@ -40,6 +42,18 @@ public class SimpleLoadConfig implements LoadConfig {
     final String NODE_OUTPUT_NODE_OUTPUT_SELECT_SQL = "output.selectsql";
     final String NODE_OUTPUT_NODE_OUTPUT_KEY_FIELDS = "output.keyfields";
     final String NODE_OUTPUT_NODE_OUTPUT_NON_UPDATE_FIELDS = "output.nonupdatefields";
+    final String NODE_OUTPUT_LOAD_MODE = "output.loadmode";
+    final String NODE_OUTPUT_QUEUE_SIZE = "output.queuesize";
+    final String NODE_OUTPUT_WRITER_THREADS = "output.writerthreads";
+    final String NODE_OUTPUT_BULK_LOAD = "output.bulkload";
+    final String NODE_OUTPUT_UPSERT_MODE = "output.upsertmode";
+    final String NODE_OUTPUT_STAGING_TABLE = "output.stagingtable";
+    final String NODE_OUTPUT_STAGING_SCOPE = "output.stagingscope";
+    final String NODE_OUTPUT_ADAPTIVE_BATCH = "output.adaptivebatch";
+    final String NODE_OUTPUT_MIN_BATCH_SIZE = "output.minbatchsize";
+    final String NODE_OUTPUT_MAX_BATCH_SIZE = "output.maxbatchsize";
+    final String NODE_OUTPUT_TARGET_LATENCY = "output.targetlatency";
+    final String NODE_OUTPUT_COMMIT_INTERVAL = "output.commitinterval";
 
     private HierarchicalConfiguration business;
     private Map<String, String> database;
@@ -185,6 +199,16 @@ public class SimpleLoadConfig implements LoadConfig {
         return business.getInt(NODE_OUTPUT_THREAD_COUNT, 1);
     }
 
+    @Override
+    public int getSourceMaxThreads() {
+        return business.getInt(NODE_OUTPUT_SOURCE_MAX_THREADS, 0);
+    }
+
+    @Override
+    public int getTargetMaxThreads() {
+        return business.getInt(NODE_OUTPUT_TARGET_MAX_THREADS, 0);
+    }
+
     @Override
     public int getBatchSize() {
         return business.getInt(NODE_OUTPUT_BATCH_SIZE, 200);
@@ -238,6 +262,68 @@ public class SimpleLoadConfig implements LoadConfig {
         return result;
     }
 
+    @Override
+    public String getLoadMode() {
+        return business.getString(NODE_OUTPUT_LOAD_MODE, "normal");
+    }
+
+    @Override
+    public int getQueueSize() {
+        return business.getInt(NODE_OUTPUT_QUEUE_SIZE, 10000);
+    }
+
+    @Override
+    public int getWriterThreads() {
+        return business.getInt(NODE_OUTPUT_WRITER_THREADS, 1);
+    }
+
+    @Override
+    public boolean bulkLoad() {
+        return business.getBoolean(NODE_OUTPUT_BULK_LOAD, true);
+    }
+
+    @Override
+    public String getUpsertMode() {
+        return business.getString(NODE_OUTPUT_UPSERT_MODE, "row");
+    }
+
+    @Override
+    public String getStagingTable() {
+        String stagingTable = business.getString(NODE_OUTPUT_STAGING_TABLE);
+        return (stagingTable != null && !stagingTable.equals("")) ? stagingTable : null;
+    }
+
+    @Override
+    public String getStagingScope() {
+        return business.getString(NODE_OUTPUT_STAGING_SCOPE, "batch");
+    }
+
+    @Override
+    public boolean adaptiveBatch() {
+        return business.getBoolean(NODE_OUTPUT_ADAPTIVE_BATCH, false);
+    }
+
+    @Override
+    public int getMinBatchSize() {
+        return business.getInt(NODE_OUTPUT_MIN_BATCH_SIZE, 50);
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return business.getInt(NODE_OUTPUT_MAX_BATCH_SIZE, 10000);
+    }
+
+    @Override
+    public long getTargetLatency() {
+        return business.getLong(NODE_OUTPUT_TARGET_LATENCY, 1000);
+    }
+
+    @Override
+    public String getCommitInterval() {
+        String commitInterval = business.getString(NODE_OUTPUT_COMMIT_INTERVAL);
+        return (commitInterval != null && !commitInterval.equals("")) ? commitInterval : null;
+    }
+
     @Override
     public String getTemplateCollection() {
         return business.getString(NODE_OUTPUT_TEMPLATE_COLLECTION, "data1");
@@ -0,0 +1,272 @@
+package zw.wormsleep.tools.etl.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import zw.wormsleep.tools.etl.record.ETLRecord;
+import zw.wormsleep.tools.etl.record.RecordSchema;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Map;
+
+/**
+ * PreparedStatement 参数绑定计划
+ * <p/>
+ * 加载前按参数位置及目标字段类型 ( ResultSetMetaData ) 一次性编译出每个参数的专用绑定器
+ * ( setLong setBigDecimal setTimestamp setString setNull ... ), 逐行绑定时按数组序号循环,
+ * 不再进行参数位置集合遍历、按列名查找类型以及 setObject 的通用类型分派。
+ * <p/>
+ * 值类型与字段类型不匹配 ( 例如文本文件中的字符串数值 ) 时回退为 setObject(index, value, type, 6),
+ * 与 DatabaseHelper.fillParamters 的处理方式一致。
+ *
+ * @author zhaowei
+ */
+public class BindingPlan {
+    static final Logger logger = LoggerFactory.getLogger(BindingPlan.class);
+
+    private String[] names;
+    private int[] types;
+    private Binder[] binders;
+    private int[] positions;
+
+    /**
+     * @param params 参数位置集合 ( 序号从 1 开始 )
+     * @param types  参数数据库字段类型集合
+     */
+    public BindingPlan(Map<Integer, String> params, Map<String, Integer> types) {
+        int count = params.size();
+        this.names = new String[count];
+        this.types = new int[count];
+        this.binders = new Binder[count];
+
+        for (int i = 0; i < count; i++) {
+            String name = params.get(i + 1);
+            Integer type = types.get(name);
+            this.names[i] = name;
+            this.types[i] = type != null ? type : Types.OTHER;
+            this.binders[i] = type != null ? getBinder(type) : UNTYPED_BINDER;
+        }
+    }
+
+    /**
+     * 将参数名解析为记录位置 ( 记录结构中不存在的参数追加至结构, 以便转换器写入 )
+     *
+     * @param schema     记录结构
+     * @param ignoreCase 是否忽略大小写匹配 ( Oracle 字段名大写 )
+     */
+    public void resolve(RecordSchema schema, boolean ignoreCase) {
+        positions = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            int position = schema.indexOf(names[i]);
+            if (position < 0 && ignoreCase) {
+                position = schema.indexOfIgnoreCase(names[i]);
+            }
+            positions[i] = position < 0 ? schema.add(names[i]) : position;
+        }
+    }
+
+    /**
+     * 按参数名从 Map 取值绑定
+     *
+     * @param pstmt 待填充 PrepareStatement
+     * @param data  参数数据集合
+     */
+    public void bind(PreparedStatement pstmt, Map<String, Object> data) {
+        for (int i = 0; i < names.length; i++) {
+            bind(pstmt, i, 0, data.get(names[i]));
+        }
+    }
+
+    /**
+     * 按记录位置取值绑定 ( 需先调用 resolve )
+     *
+     * @param pstmt  待填充 PrepareStatement
+     * @param record 记录
+     */
+    public void bind(PreparedStatement pstmt, ETLRecord record) {
+        for (int i = 0; i < positions.length; i++) {
+            bind(pstmt, i, 0, record.get(positions[i]));
+        }
+    }
+
+    /**
+     * 按参数名从 Map 取出参数值 ( 供缓存后按偏移绑定 )
+     *
+     * @param data 参数数据集合
+     * @return 按参数位置排列的值
+     */
+    public Object[] values(Map<String, Object> data) {
+        Object[] values = new Object[names.length];
+        for (int i = 0; i < names.length; i++) {
+            values[i] = data.get(names[i]);
+        }
+        return values;
+    }
+
+    /**
+     * 按记录位置取出参数值 ( 需先调用 resolve )
+     *
+     * @param record 记录
+     * @return 按参数位置排列的值
+     */
+    public Object[] values(ETLRecord record) {
+        Object[] values = new Object[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            values[i] = record.get(positions[i]);
+        }
+        return values;
+    }
+
+    /**
+     * 按偏移绑定参数值 ( 多行 VALUES 语句中第 n 行的偏移为 n * size() )
+     *
+     * @param pstmt  待填充 PrepareStatement
+     * @param values 按参数位置排列的值
+     * @param offset 参数序号偏移
+     */
+    public void bind(PreparedStatement pstmt, Object[] values, int offset) {
+        for (int i = 0; i < values.length; i++) {
+            bind(pstmt, i, offset, values[i]);
+        }
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    private void bind(PreparedStatement pstmt, int i, int offset, Object value) {
+        int index = offset + i + 1;
+        try {
+            if (value == null) {
+                pstmt.setNull(index, types[i]);
+            } else if (!binders[i].bind(pstmt, index, value)) {
+                pstmt.setObject(index, value, types[i], 6);
+            }
+        } catch (SQLException e) {
+            logger.error("SQL 异常 !", e);
+        }
+    }
+
+    private static Binder getBinder(int type) {
+        switch (type) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return LONG_BINDER;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return DECIMAL_BINDER;
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return DOUBLE_BINDER;
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+                return STRING_BINDER;
+            case Types.DATE:
+            case Types.TIMESTAMP:
+                return TIMESTAMP_BINDER;
+            default:
+                return OBJECT_BINDER;
+        }
+    }
+
+    /**
+     * 参数绑定器
+     */
+    private static abstract class Binder {
+        /**
+         * @return 值类型不匹配无法专用绑定时返回 false
+         */
+        abstract boolean bind(PreparedStatement pstmt, int index, Object value) throws SQLException;
+    }
+
+    private static final Binder LONG_BINDER = new Binder() {
+        @Override
+        boolean bind(PreparedStatement pstmt, int index, Object value) throws SQLException {
+            if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                pstmt.setLong(index, ((Number) value).longValue());
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private static final Binder DECIMAL_BINDER = new Binder() {
+        @Override
+        boolean bind(PreparedStatement pstmt, int index, Object value) throws SQLException {
+            if (value instanceof BigDecimal) {
+                pstmt.setBigDecimal(index, (BigDecimal) value);
+                return true;
+            } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                pstmt.setBigDecimal(index, BigDecimal.valueOf(((Number) value).longValue()));
+                return true;
+            } else if (value instanceof BigInteger) {
+                pstmt.setBigDecimal(index, new BigDecimal((BigInteger) value));
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private static final Binder DOUBLE_BINDER = new Binder() {
+        @Override
+        boolean bind(PreparedStatement pstmt, int index, Object value) throws SQLException {
+            if (value instanceof Double || value instanceof Float) {
+                pstmt.setDouble(index, ((Number) value).doubleValue());
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private static final Binder STRING_BINDER = new Binder() {
+        @Override
+        boolean bind(PreparedStatement pstmt, int index, Object value) throws SQLException {
+            if (value instanceof String) {
+                pstmt.setString(index, (String) value);
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private static final Binder TIMESTAMP_BINDER = new Binder() {
+        @Override
+        boolean bind(PreparedStatement pstmt, int index, Object value) throws SQLException {
+            if (value instanceof Timestamp) {
+                pstmt.setTimestamp(index, (Timestamp) value);
+                return true;
+            } else if (value instanceof java.util.Date) {
+                pstmt.setTimestamp(index, new Timestamp(((java.util.Date) value).getTime()));
+                return true;
+            }
+            return false;
+        }
+    };
+
+    // 未获取到字段类型时由驱动自行推断
+    private static final Binder UNTYPED_BINDER = new Binder() {
+        @Override
+        boolean bind(PreparedStatement pstmt, int index, Object value) throws SQLException {
+            pstmt.setObject(index, value);
+            return true;
+        }
+    };
+
+    private static final Binder OBJECT_BINDER = new Binder() {
+        @Override
+        boolean bind(PreparedStatement pstmt, int index, Object value) throws SQLException {
+            return false;
+        }
+    };
+}
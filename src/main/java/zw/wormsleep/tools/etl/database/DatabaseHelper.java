@@ -9,7 +9,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import zw.wormsleep.tools.etl.multitask.MultiTaskMultiThread;
 import zw.wormsleep.tools.etl.multitask.Task;
-import zw.wormsleep.tools.etl.multitask.multithread.NTaskPerThread;
+import zw.wormsleep.tools.etl.multitask.multithread.SharedQueueMultiThread;
 import zw.wormsleep.tools.etl.multitask.task.Table2TableTask;
 import zw.wormsleep.tools.etl.utils.ConfigBuilderUtils;
 import zw.wormsleep.tools.etl.utils.ConfigParserUtils;
@@ -476,6 +476,136 @@ public class DatabaseHelper {
         return batchInsertSQL;
     }
 
+    /**
+     * 获取批量加载插入语句 ( 非排重, 仅用于目标表无需排重插入的场景 )
+     * <p/>
+     * 1. Oracle 使用 APPEND_VALUES 提示, 批量执行时以数组绑定方式直接路径插入
+     * 2. MySQL 与默认相同, 由加载器组装多行 VALUES 或交由驱动 rewriteBatchedStatements 改写
+     * 3. Sybase 去除 if exists 判断, 以纯插入方式批量执行
+     *
+     * @param dbType 数据库类型
+     * @param table  表名
+     * @param fields 字段 ( 主键值 true )
+     * @return
+     */
+    public static String getBulkInsertSQL(String dbType, String table,
+                                          Map<String, Boolean> fields) {
+        if (dbType != null && dbType.equalsIgnoreCase("oracle")) {
+            return assembleOracleBulkInsertSQL(table, fields);
+        }
+        return assembleDefaultBatchInsertSQL(table, fields);
+    }
+
+    /**
+     * 获取暂存表创建语句 ( 按目标表结构创建空表 )
+     *
+     * @param dbType       数据库类型
+     * @param table        目标表名
+     * @param stagingTable 暂存表名
+     * @return
+     */
+    public static String getCreateStagingTableSQL(String dbType, String table, String stagingTable) {
+        if (dbType != null && dbType.equalsIgnoreCase("sybase")) {
+            return "select * into " + stagingTable + " from " + table + " where 1=0";
+        }
+        return "create table " + stagingTable + " as select * from " + table + " where 1=0";
+    }
+
+    /**
+     * 获取暂存表集合式排重合并语句
+     * <p/>
+     * 1. Oracle 使用 MERGE INTO ... USING 暂存表
+     * 2. Sybase 使用 UPDATE ... FROM 关联更新及 INSERT ... WHERE NOT EXISTS
+     * 3. MySQL 使用多表 UPDATE 关联更新及 INSERT ... WHERE NOT EXISTS
+     * 4. 其他数据库使用相关子查询更新及 INSERT ... WHERE NOT EXISTS
+     * <p/>
+     * 最后清空暂存表。注意: 同一批次暂存数据中主键须唯一。
+     *
+     * @param dbType       数据库类型
+     * @param table        目标表名
+     * @param stagingTable 暂存表名
+     * @param fields       字段 ( 主键值 true )
+     * @param updateFields 需更新字段
+     * @param ignoreUpdate 是否忽略更新 ( 仅插入不存在的记录 )
+     * @return 依次执行的语句
+     */
+    public static List<String> getStagingUpsertSQLs(String dbType, String table, String stagingTable,
+                                                    Map<String, Boolean> fields,
+                                                    List<String> updateFields,
+                                                    boolean ignoreUpdate) {
+        List<String> sqls = new ArrayList<String>();
+        StringBuffer fieldsPart = new StringBuffer();
+        StringBuffer valuesPart = new StringBuffer();
+        StringBuffer wherePart = new StringBuffer();
+        List<String> setFields = new ArrayList<String>();
+
+        // 动态生成部分
+        for (String key : fields.keySet()) {
+            fieldsPart.append(key + COMMA);
+            valuesPart.append("N." + key + COMMA);
+            if (fields.get(key)) {
+                wherePart.append("M." + key + "=N." + key + CONST_AND);
+            } else if (updateFields.contains(key)) {
+                setFields.add(key);
+            }
+        }
+        String fieldsList = fieldsPart.substring(0, fieldsPart.length() - 1);
+        String valuesList = valuesPart.substring(0, valuesPart.length() - 1);
+        String where = wherePart.substring(0, wherePart.length() - 5);
+        boolean update = !ignoreUpdate && setFields.size() > 0;
+
+        if (dbType != null && dbType.equalsIgnoreCase("oracle")) {
+            StringBuffer sql = new StringBuffer();
+            sql.append(" MERGE INTO " + table + " M ");
+            sql.append(" USING " + stagingTable + " N ");
+            sql.append(" ON (" + where + ")");
+            if (update) {
+                StringBuffer updatePart = new StringBuffer();
+                for (String field : setFields) {
+                    updatePart.append("M." + field + "=N." + field + COMMA);
+                }
+                sql.append(" WHEN MATCHED THEN ");
+                sql.append(" UPDATE SET " + updatePart.substring(0, updatePart.length() - 1));
+            }
+            sql.append(" WHEN NOT MATCHED THEN ");
+            sql.append(" INSERT (" + fieldsList + ") VALUES (" + valuesList + ")");
+            sqls.add(sql.toString());
+        } else {
+            if (update) {
+                StringBuffer sql = new StringBuffer();
+                StringBuffer updatePart = new StringBuffer();
+                if (dbType != null && dbType.equalsIgnoreCase("sybase")) {
+                    // Sybase 更新目标以 from 子句中的别名指定 ( 以表名指定时视为另一实例, 形成笛卡尔积更新 )
+                    for (String field : setFields) {
+                        updatePart.append(field + "=N." + field + COMMA);
+                    }
+                    sql.append("update M set " + updatePart.substring(0, updatePart.length() - 1));
+                    sql.append(" from " + table + " M, " + stagingTable + " N");
+                    sql.append(" where " + where);
+                } else if (dbType != null && dbType.equalsIgnoreCase("mysql")) {
+                    for (String field : setFields) {
+                        updatePart.append("M." + field + "=N." + field + COMMA);
+                    }
+                    sql.append("update " + table + " M, " + stagingTable + " N");
+                    sql.append(" set " + updatePart.substring(0, updatePart.length() - 1));
+                    sql.append(" where " + where);
+                } else {
+                    for (String field : setFields) {
+                        updatePart.append(field + "=(select N." + field + " from " + stagingTable + " N where " + where + ")" + COMMA);
+                    }
+                    sql.append("update " + table + " M set " + updatePart.substring(0, updatePart.length() - 1));
+                    sql.append(" where exists (select 1 from " + stagingTable + " N where " + where + ")");
+                }
+                sqls.add(sql.toString());
+            }
+            sqls.add("insert into " + table + " (" + fieldsList + ") select " + valuesList
+                    + " from " + stagingTable + " N where not exists (select 1 from " + table + " M where " + where + ")");
+        }
+        sqls.add("delete from " + stagingTable);
+
+        return sqls;
+    }
+
     /**
      * 通过预定义字段获取 Select SQL 供后期获取这些字段对应的数据库字段类型
      *
@@ -688,6 +818,34 @@ public class DatabaseHelper {
         return sql.toString();
     }
 
+    /**
+     * Oracle 数据库直接路径插入语句 - 非排重
+     * <p/>
+     * 注意: 直接路径插入后同一事务内不可再次访问该表, 每次批量执行后需提交。
+     *
+     * @param table  表名
+     * @param fields 字段 ( 主键值 true )
+     * @return INSERT ( APPEND_VALUES 提示 ) INTO TABLE_NAME ( FIELD1,FIELD2,... ) VALUES ( :FIELD1,:FIELD2,... )
+     */
+    public static String assembleOracleBulkInsertSQL(String table,
+                                                     Map<String, Boolean> fields) {
+        StringBuffer sql = new StringBuffer();
+        StringBuffer fieldsPart = new StringBuffer();
+        StringBuffer valuesPart = new StringBuffer();
+
+        // 动态生成部分
+        for (String key : fields.keySet()) {
+            fieldsPart.append(key + COMMA);
+            valuesPart.append(":" + key + COMMA);
+        }
+        sql.append(" insert /*+ APPEND_VALUES */ into " + table);
+        sql.append(" (" + fieldsPart.substring(0, fieldsPart.length() - 1)
+                + ")");
+        sql.append(" values ("
+                + valuesPart.substring(0, valuesPart.length() - 1) + ")");
+        return sql.toString();
+    }
+
     /**
      * 默认数据库批量插入语句 - 非排重
      *
@@ -795,8 +953,28 @@ public class DatabaseHelper {
      * @param copydata            是否拷贝数据
      * @param threadCount         线程数
      */
-    @SuppressWarnings("unchecked")
     public static void tables2tables(String srcDatabase, String srcCatalog, String srcSchemaPattern, String srcTableNamePattern, String destDatabase, String destCatalog, String destSchemaPattern, boolean dropandcreate, boolean copydata, int threadCount) {
+        tables2tables(srcDatabase, srcCatalog, srcSchemaPattern, srcTableNamePattern, destDatabase, destCatalog, destSchemaPattern, dropandcreate, copydata, threadCount, 0, 0);
+    }
+
+    /**
+     * 异构或同构数据库表对表拷贝 - 多线程从共享任务队列领取表任务 ( 按估算行数大表优先 ) , 全部完成后返回
+     *
+     * @param srcDatabase         源数据库
+     * @param srcCatalog          catalog ( null 为全部 )
+     * @param srcSchemaPattern    schema 模式 ( null 为全部 其中对于 Oracle 数据库最好指明 )
+     * @param srcTableNamePattern 表名模式
+     * @param destDatabase        目标数据库
+     * @param destCatalog         catalog ( null 为全部 )
+     * @param destSchemaPattern   schema 模式 ( null 为全部 其中对于 Oracle 数据库最好指明 )
+     * @param dropandcreate       是否重建表
+     * @param copydata            是否拷贝数据
+     * @param threadCount         线程数
+     * @param srcMaxThreads       同一源数据库最大并发任务数 ( 0 为不限 )
+     * @param destMaxThreads      同一目标数据库最大并发任务数 ( 0 为不限 )
+     */
+    @SuppressWarnings("unchecked")
+    public static void tables2tables(String srcDatabase, String srcCatalog, String srcSchemaPattern, String srcTableNamePattern, String destDatabase, String destCatalog, String destSchemaPattern, boolean dropandcreate, boolean copydata, int threadCount, int srcMaxThreads, int destMaxThreads) {
         logger.info("@@@ 数据库表对表批量拷贝 \n 初始化参数 \n 1. 源数据库参数 - [配置节点]: {} [CATALOG]: {} [SCHEMAPATTERN]: {} [TABLENAMEPATTERN]: {} \n 2. 目标数据库参数 - [配置节点]: {} [CATALOG]: {} [SCHEMAPATTERN]: {} \n 3. 执行参数 - [自动建表]: {} [传输表数据]: {} [预分配线程数]: {}", srcDatabase, srcCatalog, srcSchemaPattern, srcTableNamePattern, destDatabase, destCatalog, destSchemaPattern, dropandcreate, copydata, threadCount);
         Map<String, Map<String, Map<String, Object>>> srcTablesObject = null;
         Map<String, String> tablesDDL = new LinkedHashMap<String, String>();
@@ -876,14 +1054,23 @@ public class DatabaseHelper {
             // @@@ 执行数据拷贝 - 支持多线程
             if (copydata) {
                 logger.info("@@@ 准备表对表数据传输 ... ");
-                // 多任务初始化
+                // 多任务初始化 - 附源表估算行数 ( 大表优先调度 )
                 List<Task> tasks = new ArrayList<Task>();
                 for (String businessType : srcTables) {
-                    tasks.add(new Table2TableTask(businessType, configuration));
+                    long estimatedRows = getEstimatedRowCount(srcDatabaseMetaData, srcCatalog, srcSchemaPattern, businessType);
+                    logger.debug("@@@ 表 {} 估算行数: {}", businessType, estimatedRows);
+                    tasks.add(new Table2TableTask(businessType, configuration, srcDatabase, destDatabase, estimatedRows));
                 }
                 logger.info("@@@ 待传输表总数: {} 分配线程数: {}", tasks.size(), threadCount);
-                // 多线程执行
-                MultiTaskMultiThread mtmt = new NTaskPerThread(tasks, threadCount);
+                // 元数据分析完毕 - 传输前归还连接 ( 各任务自行获取连接, 避免占用连接池 )
+                close(rs);
+                rs = null;
+                close(srcConn);
+                srcConn = null;
+                close(destConn);
+                destConn = null;
+                // 多线程执行 - 阻塞至全部表传输完成
+                MultiTaskMultiThread mtmt = new SharedQueueMultiThread(tasks, threadCount, srcMaxThreads, destMaxThreads);
                 mtmt.executeBatch();
             }
 
@@ -931,6 +1118,26 @@ public class DatabaseHelper {
         }
     }
 
+    private static void close(ResultSet rs) {
+        if (rs != null) {
+            try {
+                rs.close();
+            } catch (SQLException e) {
+                logger.error("SQL 异常 !", e);
+            }
+        }
+    }
+
+    private static void close(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                logger.error("SQL 异常 !", e);
+            }
+        }
+    }
+
     /**
      * 获取表元数据描述对象集
      *
@@ -1086,6 +1293,56 @@ public class DatabaseHelper {
         return result;
     }
 
+    /**
+     * 获取表估算行数 - 取自 JDBC 索引元数据中的表统计信息 ( tableIndexStatistic 的 CARDINALITY )
+     * 驱动不支持或表未收集统计信息时返回 -1
+     *
+     * @param metaData  数据库元数据
+     * @param tableName 表名
+     * @return
+     */
+    public static long getEstimatedRowCount(DatabaseMetaData metaData, String tableName) {
+        return getEstimatedRowCount(metaData, null, null, tableName);
+    }
+
+    /**
+     * 获取表估算行数 - 取自 JDBC 索引元数据中的表统计信息 ( tableIndexStatistic 的 CARDINALITY )
+     * 驱动不支持或表未收集统计信息时返回 -1
+     *
+     * @param metaData      数据库元数据
+     * @param catalog       CATALOG
+     * @param schemaPattern SCHEMAPATTERN ( getIndexInfo 不支持模式匹配, 含 % 时按 null 处理 )
+     * @param tableName     表名
+     * @return
+     */
+    public static long getEstimatedRowCount(DatabaseMetaData metaData, String catalog, String schemaPattern, String tableName) {
+        long rows = -1;
+        ResultSet rs = null;
+        String schema = (schemaPattern != null && schemaPattern.indexOf('%') < 0) ? schemaPattern : null;
+        try {
+            rs = metaData.getIndexInfo(catalog, schema, tableName, false, true);
+            while (rs.next()) {
+                if (rs.getShort("TYPE") == DatabaseMetaData.tableIndexStatistic) {
+                    long cardinality = rs.getLong("CARDINALITY");
+                    if (!rs.wasNull()) {
+                        rows = Math.max(rows, cardinality);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.debug("@@@ 表 {} 无法获取估算行数 - {}", tableName, e.getMessage());
+        } finally {
+            if (rs != null) {
+                try {
+                    rs.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        return rows;
+    }
+
     /**
      * 根据产品名称判断数据库类型
      *
@@ -0,0 +1,128 @@
+package zw.wormsleep.tools.etl.extractor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import zw.wormsleep.tools.etl.ETLExtractor;
+import zw.wormsleep.tools.etl.config.ExtractConfig;
+import zw.wormsleep.tools.etl.utils.MappedLineReader;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分块并行文本抽取器
+ * <p/>
+ * 将文件按字节等分为 N 块, 各块边界向后对齐至换行符 ( \n ) 之后, 每块由独立的 TextETLExtractor 以内存映射方式解析。
+ * 既可通过 walker() 合并为单一数据流, 也可通过 getChunkExtractors() 获取各块抽取器供并行加载使用。
+ * <p/>
+ * 编码说明: UTF-8 多字节序列及 GBK 双字节字符的各字节均不会等于 0x0A, 故按换行字节切分不会截断字符。
+ * UTF-16 / UTF-32 编码不满足该条件, 按单块处理。
+ * <p/>
+ * 注意: 被引号包围且包含换行的域可能跨越块边界, 此类文件请勿分块抽取。
+ *
+ * @author zhaowei
+ */
+public class ChunkedTextExtractor implements ETLExtractor {
+    final Logger logger = LoggerFactory.getLogger(ChunkedTextExtractor.class);
+
+    // 合并数据流时的缓冲队列深度
+    private static final int QUEUE_SIZE = 10000;
+
+    private List<ETLExtractor> chunks = new ArrayList<ETLExtractor>();
+
+    public ChunkedTextExtractor(File in, ExtractConfig extractConfig) throws FileNotFoundException {
+        int count = extractConfig.getChunks();
+        String encoding = extractConfig.getEncoding();
+        if (!MappedLineReader.isMappable(encoding)) {
+            logger.info("@@@ 编码 {} 不支持按换行字节分块, 按单块处理 !", encoding);
+            count = 1;
+        }
+
+        List<long[]> ranges = split(in, count);
+        for (long[] range : ranges) {
+            chunks.add(new TextETLExtractor(in, extractConfig, range[0], range[1]));
+            logger.debug("@@@ 文本分块 - 起始: {} 结束: {}", range[0], range[1]);
+        }
+
+        logger.info("@@@ 分块并行抽取 - 文件: {} 大小: {} 字节 分块数: {}", in.getName(), in.length(), chunks.size());
+    }
+
+    /**
+     * 各块抽取器 ( 供并行加载使用 )
+     * <p/>
+     * 各块独立加载时须逐块检查加载结果 ( 见 ETLUtils 并行加载 ), 否则部分块失败时仅加载文件的一部分。
+     *
+     * @return
+     */
+    public List<ETLExtractor> getChunkExtractors() {
+        return chunks;
+    }
+
+    /**
+     * 按字节等分文件并将各分块起始位置对齐至换行符之后
+     *
+     * @return 各块 [起始, 结束) 字节位置
+     */
+    private List<long[]> split(File in, int count) {
+        List<long[]> ranges = new ArrayList<long[]>();
+        long size = in.length();
+        List<Long> starts = new ArrayList<Long>();
+        starts.add(0L);
+
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(in, "r");
+            byte[] buffer = new byte[8192];
+            for (int i = 1; i < count; i++) {
+                long pos = size * i / count;
+                if (pos <= starts.get(starts.size() - 1)) continue;
+
+                // 自 pos - 1 起查找换行符 ( pos - 1 恰为换行符时 pos 即为行首 )
+                long start = -1;
+                long offset = pos - 1;
+                raf.seek(offset);
+                int read;
+                while (start < 0 && (read = raf.read(buffer)) > 0) {
+                    for (int j = 0; j < read; j++) {
+                        if (buffer[j] == '\n') {
+                            start = offset + j + 1;
+                            break;
+                        }
+                    }
+                    offset += read;
+                }
+                if (start < 0 || start >= size) break;
+                starts.add(start);
+            }
+        } catch (IOException e) {
+            logger.error("IO 异常 !", e);
+            starts.subList(1, starts.size()).clear();
+        } finally {
+            if (raf != null) {
+                try {
+                    raf.close();
+                } catch (IOException e) {
+                    logger.error("IO 异常 !", e);
+                }
+            }
+        }
+
+        for (int i = 0; i < starts.size(); i++) {
+            long end = i + 1 < starts.size() ? starts.get(i + 1) : size;
+            ranges.add(new long[]{starts.get(i), end});
+        }
+        return ranges;
+    }
+
+    @Override
+    public Iterator<Map<String, Object>> walker() {
+        return new MergedWalker(chunks, QUEUE_SIZE, "etl-chunk");
+    }
+
+}
@@ -3,15 +3,19 @@ package zw.wormsleep.tools.etl.extractor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import zw.wormsleep.tools.etl.ETLExtractor;
+import zw.wormsleep.tools.etl.ETLRecordExtractor;
 import zw.wormsleep.tools.etl.config.ExtractConfig;
 import zw.wormsleep.tools.etl.database.ConnectionPool;
 import zw.wormsleep.tools.etl.database.DatabaseHelper;
+import zw.wormsleep.tools.etl.record.ETLRecord;
+import zw.wormsleep.tools.etl.record.RecordSchema;
 
 import java.beans.PropertyVetoException;
+import java.io.Closeable;
 import java.sql.*;
 import java.util.*;
 
-public class DatabaseExtractor implements ETLExtractor {
+public class DatabaseExtractor implements ETLExtractor, ETLRecordExtractor, Closeable {
     final Logger logger = LoggerFactory.getLogger(DatabaseExtractor.class);
 
     private ExtractConfig extractConfig;
@@ -23,6 +27,7 @@ public class DatabaseExtractor implements ETLExtractor {
     private List<String> fields = new ArrayList<String>();
     private int fetchSize;
     private boolean columnNameToLowerCase;
+    private RecordSchema schema;
 
     public DatabaseExtractor(ExtractConfig extractConfig) {
         this.extractConfig = extractConfig;
@@ -48,10 +53,11 @@ public class DatabaseExtractor implements ETLExtractor {
         fetchSize = extractConfig.getFetchSize();
         columnNameToLowerCase = extractConfig.columnNameToLowerCase();
 
-        if (table != null && !table.equals("")) {
-            sql = "select * from " + table;
-        } else {
-            if (sql == null) {
+        // 构造时显式指定的 SQL ( 例如分区抽取语句 ) 优先
+        if (sql == null) {
+            if (table != null && !table.equals("")) {
+                sql = "select * from " + table;
+            } else {
                 sql = extractConfig.getSQL();
                 logger.info("@@@ Config SQL: \n {}", sql);
                 sql = DatabaseHelper.getReplacedSQL(sql, parameters);
@@ -94,40 +100,77 @@ public class DatabaseExtractor implements ETLExtractor {
         return new Walker();
     }
 
-    private class Walker implements Iterator<Map<String, Object>> {
+    @Override
+    public synchronized RecordSchema getSchema() {
+        if (schema == null) {
+            schema = new RecordSchema();
+            for (String field : fields) {
+                schema.add(columnNameToLowerCase ? field.toLowerCase() : field);
+            }
+        }
+        return schema;
+    }
 
-        @Override
-        public boolean hasNext() {
-            boolean result = false;
+    @Override
+    public Iterator<ETLRecord> records() {
+        return new RecordWalker();
+    }
 
-            try {
-                result = rs.next();
+    /**
+     * 移动至下一条记录, 无记录时释放数据库资源
+     *
+     * @return
+     */
+    private boolean advance() {
+        boolean result = false;
 
-                if (!result) {
-                    if (rs != null) {
-                        rs.close();
-                        rs = null;
-                        logger.debug("@@@ [ 源数据库 ] 销毁 ResultSet 成功!");
-                    }
+        try {
+            result = rs.next();
 
-                    if (stmt != null) {
-                        stmt.close();
-                        stmt = null;
-                        logger.debug("@@@ [ 源数据库 ] 销毁 Statement 成功!");
-                    }
+            if (!result) {
+                close();
+            }
 
-                    if (conn != null) {
-                        conn.close();
-                        conn = null;
-                        logger.debug("@@@ [ 源数据库 ] 销毁 Connection 成功!");
-                    }
-                }
+        } catch (SQLException e) {
+            logger.error("SQL 异常 !", e);
+        }
 
-            } catch (SQLException e) {
-                logger.error("SQL 异常 !", e);
+        return result;
+    }
+
+    /**
+     * 释放数据库资源 ( 读取完毕时自动调用, 提前终止读取时由调用方调用 )
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            if (rs != null) {
+                rs.close();
+                rs = null;
+                logger.debug("@@@ [ 源数据库 ] 销毁 ResultSet 成功!");
+            }
+
+            if (stmt != null) {
+                stmt.close();
+                stmt = null;
+                logger.debug("@@@ [ 源数据库 ] 销毁 Statement 成功!");
             }
 
-            return result;
+            if (conn != null) {
+                conn.close();
+                conn = null;
+                logger.debug("@@@ [ 源数据库 ] 销毁 Connection 成功!");
+            }
+        } catch (SQLException e) {
+            logger.error("SQL 异常 !", e);
+        }
+    }
+
+    private class Walker implements Iterator<Map<String, Object>> {
+
+        @Override
+        public boolean hasNext() {
+            return advance();
         }
 
         @Override
@@ -157,4 +200,35 @@ public class DatabaseExtractor implements ETLExtractor {
 
     }
 
+    /**
+     * 按位置记录遍历器 ( 复用同一 ETLRecord 对象, 结果集第 i+1 列对应记录第 i 位 )
+     */
+    private class RecordWalker implements Iterator<ETLRecord> {
+        private ETLRecord record = new ETLRecord(getSchema());
+        private int fieldCount = fields.size();
+
+        @Override
+        public boolean hasNext() {
+            return advance();
+        }
+
+        @Override
+        public ETLRecord next() {
+            record.clear();
+            for (int i = 0; i < fieldCount; i++) {
+                try {
+                    record.set(i, rs.getObject(i + 1));
+                } catch (SQLException e) {
+                    logger.error("SQL 异常 !", e);
+                }
+            }
+            return record;
+        }
+
+        @Override
+        public void remove() {
+        }
+
+    }
+
 }
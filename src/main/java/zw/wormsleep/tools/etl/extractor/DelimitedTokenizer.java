@@ -0,0 +1,187 @@
+package zw.wormsleep.tools.etl.extractor;
+
+/**
+ * 分隔文本行解析器
+ * <p/>
+ * 逐字符扫描单行文本 ( 不使用正则表达式 ), 仅截取需要的域并写入可复用的域槽位, 扫描至最后一个需要的域后即停止。
+ * 1. 支持单字符及多字符分隔符
+ * 2. 支持引号包围的域 ( 域内分隔符及换行原样保留, 连续两个引号表示一个引号字符 )
+ * 3. 支持转义字符 ( 转义字符后的一个字符原样保留 )
+ * 4. 可选去除域值首尾空白
+ * <p/>
+ * 兼容原正则分隔符写法: 形如 \| 的转义单字符按字面字符处理。
+ * 非线程安全, 每个遍历器使用独立实例。
+ *
+ * @author zhaowei
+ */
+public class DelimitedTokenizer {
+    /**
+     * 行末尚处于引号内 ( 域值包含换行, 需拼接下一行后重新解析 )
+     */
+    public static final int UNTERMINATED = -1;
+
+    private String separator;
+    private char separatorChar;
+    private int separatorLength;
+    private char quote;
+    private char escape;
+    private boolean trim;
+    private boolean[] wanted;
+    private int maxWanted;
+    private String[] slots;
+    private StringBuilder buffer = new StringBuilder();
+    private boolean separatorFound;
+
+    /**
+     * @param separator 分隔符
+     * @param quote     引号字符 ( 为 null 或空时不处理引号 )
+     * @param escape    转义字符 ( 为 null 或空时不处理转义 )
+     * @param trim      是否去除域值首尾空白
+     * @param fields    需要截取的域序号 ( 从 0 开始 )
+     */
+    public DelimitedTokenizer(String separator, String quote, String escape, boolean trim, int[] fields) {
+        // 兼容正则转义写法的单字符分隔符
+        if (separator.length() == 2 && separator.charAt(0) == '\\' && !Character.isLetterOrDigit(separator.charAt(1))) {
+            separator = separator.substring(1);
+        }
+        this.separator = separator;
+        this.separatorChar = separator.charAt(0);
+        this.separatorLength = separator.length();
+        this.quote = (quote != null && quote.length() > 0) ? quote.charAt(0) : 0;
+        this.escape = (escape != null && escape.length() > 0) ? escape.charAt(0) : 0;
+        this.trim = trim;
+
+        maxWanted = -1;
+        for (int field : fields) {
+            maxWanted = Math.max(maxWanted, field);
+        }
+        wanted = new boolean[maxWanted + 1];
+        for (int field : fields) {
+            wanted[field] = true;
+        }
+        slots = new String[maxWanted + 1];
+    }
+
+    /**
+     * 解析一行文本
+     *
+     * @param line 文本行
+     * @return 已扫描的域数量 ( 扫描至最后一个需要的域后停止, 故可能小于实际域数量 ), 引号未闭合时返回 UNTERMINATED
+     */
+    public int tokenize(String line) {
+        int length = line.length();
+        int pos = 0;
+        int field = 0;
+        separatorFound = false;
+
+        while (true) {
+            boolean keep = field <= maxWanted && wanted[field];
+            int end;
+
+            if (quote != 0 && pos < length && line.charAt(pos) == quote) {
+                // 引号域
+                buffer.setLength(0);
+                pos++;
+                boolean closed = false;
+                while (pos < length) {
+                    char c = line.charAt(pos);
+                    if (c == escape && escape != 0 && pos + 1 < length) {
+                        buffer.append(line.charAt(pos + 1));
+                        pos += 2;
+                    } else if (c == quote) {
+                        if (pos + 1 < length && line.charAt(pos + 1) == quote) {
+                            buffer.append(quote);
+                            pos += 2;
+                        } else {
+                            pos++;
+                            closed = true;
+                            break;
+                        }
+                    } else {
+                        buffer.append(c);
+                        pos++;
+                    }
+                }
+                if (!closed) {
+                    return UNTERMINATED;
+                }
+                // 闭合引号之后至分隔符之前的字符并入域值
+                end = indexOfSeparator(line, pos);
+                if (keep) {
+                    buffer.append(line, pos, end);
+                    slots[field] = value(buffer.toString());
+                }
+            } else if (escape != 0 && line.indexOf(escape, pos) >= 0) {
+                // 含转义字符的普通域
+                buffer.setLength(0);
+                end = pos;
+                while (end < length && !isSeparator(line, end)) {
+                    char c = line.charAt(end);
+                    if (c == escape && end + 1 < length) {
+                        buffer.append(line.charAt(end + 1));
+                        end += 2;
+                    } else {
+                        buffer.append(c);
+                        end++;
+                    }
+                }
+                if (keep) {
+                    slots[field] = value(buffer.toString());
+                }
+            } else {
+                // 普通域
+                end = indexOfSeparator(line, pos);
+                if (keep) {
+                    slots[field] = value(line.substring(pos, end));
+                }
+            }
+
+            field++;
+            if (end >= length) {
+                break;
+            }
+            separatorFound = true;
+            pos = end + separatorLength;
+            // 需要的域已全部截取
+            if (field > maxWanted) {
+                break;
+            }
+        }
+
+        return field;
+    }
+
+    /**
+     * 最近一次解析的行是否包含分隔符且包含全部需要的域
+     *
+     * @param count tokenize 返回值
+     * @return
+     */
+    public boolean isComplete(int count) {
+        return separatorFound && count > maxWanted;
+    }
+
+    /**
+     * 获取最近一次解析的域值
+     *
+     * @param field 域序号
+     * @return
+     */
+    public String get(int field) {
+        return slots[field];
+    }
+
+    private String value(String value) {
+        return trim ? value.trim() : value;
+    }
+
+    private boolean isSeparator(String line, int pos) {
+        return line.charAt(pos) == separatorChar
+                && (separatorLength == 1 || line.startsWith(separator, pos));
+    }
+
+    private int indexOfSeparator(String line, int pos) {
+        int index = separatorLength == 1 ? line.indexOf(separatorChar, pos) : line.indexOf(separator, pos);
+        return index < 0 ? line.length() : index;
+    }
+}
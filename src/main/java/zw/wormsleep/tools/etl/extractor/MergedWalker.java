@@ -0,0 +1,170 @@
+package zw.wormsleep.tools.etl.extractor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import zw.wormsleep.tools.etl.ETLExtractor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 合并遍历器 - 每个子抽取器由独立线程读取并汇入同一有界队列 ( 记录顺序不保证 )
+ * <p/>
+ * 任一读取线程异常时投递失败标记, hasNext() / next() 以 IllegalStateException 抛出原始异常并终止其余读取线程。
+ * 调用方提前停止消费时须调用 close() : 中断读取线程、清空队列, 读取线程退出时释放子抽取器资源 ( 如连接池连接 ) 。
+ *
+ * @author zhaowei
+ */
+public class MergedWalker implements Iterator<Map<String, Object>>, Closeable {
+    final Logger logger = LoggerFactory.getLogger(MergedWalker.class);
+
+    // 结束标记 ( 通过引用比较识别 )
+    private static final Map<String, Object> END = new HashMap<String, Object>(0);
+    // 失败标记 ( 通过引用比较识别 )
+    private static final Map<String, Object> FAILED = new HashMap<String, Object>(0);
+
+    private BlockingQueue<Map<String, Object>> queue;
+    private List<Reader> readers = new ArrayList<Reader>();
+    private int running;
+    private Map<String, Object> current;
+    private volatile Throwable failure;
+    private volatile boolean closed = false;
+
+    /**
+     * @param extractors 子抽取器
+     * @param queueSize  缓冲队列深度
+     * @param name       读取线程名称前缀 ( 日志使用 )
+     */
+    public MergedWalker(List<? extends ETLExtractor> extractors, int queueSize, String name) {
+        queue = new ArrayBlockingQueue<Map<String, Object>>(queueSize);
+        running = extractors.size();
+        for (int i = 0; i < extractors.size(); i++) {
+            Reader reader = new Reader(extractors.get(i), name + "-" + i);
+            reader.setDaemon(true);
+            readers.add(reader);
+        }
+        for (Reader reader : readers) {
+            reader.start();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        checkFailure();
+        if (closed) return false;
+        try {
+            while (current == null && running > 0) {
+                Map<String, Object> data = queue.take();
+                if (data == FAILED) {
+                    checkFailure();
+                } else if (data == END) {
+                    running--;
+                } else {
+                    current = data;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new IllegalStateException("并行抽取被中断 !", e);
+        }
+        return current != null;
+    }
+
+    @Override
+    public Map<String, Object> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Map<String, Object> result = current;
+        current = null;
+        return result;
+    }
+
+    @Override
+    public void remove() {
+    }
+
+    /**
+     * 终止读取 ( 调用方提前停止消费或异常退出时调用 )
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        current = null;
+        for (Reader reader : readers) {
+            reader.interrupt();
+        }
+        // 清空队列, 唤醒阻塞在 put() 上的读取线程
+        queue.clear();
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            close();
+            throw new IllegalStateException("并行抽取异常 !", failure);
+        }
+    }
+
+    private class Reader extends Thread {
+        private ETLExtractor extractor;
+
+        Reader(ETLExtractor extractor, String name) {
+            super(name);
+            this.extractor = extractor;
+        }
+
+        @Override
+        public void run() {
+            long cnt = 0;
+            boolean completed = false;
+            try {
+                Iterator<Map<String, Object>> iter = extractor.walker();
+                while (!closed && iter.hasNext()) {
+                    Map<String, Object> data = iter.next();
+                    // 优化数据正确性 - 跳过无效行
+                    if (data == null) continue;
+                    queue.put(data);
+                    cnt++;
+                }
+                completed = !closed;
+                if (completed) {
+                    queue.put(END);
+                    logger.info("@@@ {} 抽取完成 - 共计: {} 条", getName(), cnt);
+                }
+            } catch (InterruptedException e) {
+                logger.info("@@@ {} 抽取已终止 - 已抽取: {} 条", getName(), cnt);
+            } catch (Throwable e) {
+                logger.error("@@@ " + getName() + " 并行抽取异常 !", e);
+                if (failure == null) {
+                    failure = e;
+                }
+                try {
+                    if (!closed) {
+                        queue.put(FAILED);
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            } finally {
+                // 未读取完毕时由读取线程自行释放子抽取器资源
+                if (!completed && extractor instanceof Closeable) {
+                    try {
+                        ((Closeable) extractor).close();
+                    } catch (IOException e) {
+                        logger.error("IO 异常 !", e);
+                    }
+                }
+            }
+        }
+    }
+}
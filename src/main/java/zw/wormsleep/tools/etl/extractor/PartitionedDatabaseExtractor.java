@@ -0,0 +1,241 @@
+package zw.wormsleep.tools.etl.extractor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import zw.wormsleep.tools.etl.ETLExtractor;
+import zw.wormsleep.tools.etl.config.ExtractConfig;
+import zw.wormsleep.tools.etl.database.ConnectionPool;
+import zw.wormsleep.tools.etl.database.DatabaseHelper;
+
+import java.beans.PropertyVetoException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+/**
+ * 分区并行数据库抽取器
+ * <p/>
+ * 按配置的分区字段将抽取语句拆分为 N 个互不重叠的查询, 每个分区使用连接池中的独立连接并发读取,
+ * 经 walker() 合并为单一数据流。
+ * <p/>
+ * 分区方式
+ * 1. range 按最小最大值探测后等分 ( 数值或日期字段 ), 或按显式配置的边界值分区
+ * 2. mod 按字段取模 ( 整数字段 )
+ * 3. hash 按字段哈希取模 ( 仅限 Oracle ORA_HASH / MySQL CRC32 )
+ * 4. rowid 按 Oracle ROWID 数据块号取模 ( 仅限 Oracle 且 input.table 单表抽取 )
+ * 数据库类型或抽取方式不支持所配置的分区方式时构造抛出 IllegalArgumentException 。
+ * <p/>
+ * 注意: 连接池最大连接数需不小于分区数。
+ *
+ * @author zhaowei
+ */
+public class PartitionedDatabaseExtractor implements ETLExtractor {
+    final Logger logger = LoggerFactory.getLogger(PartitionedDatabaseExtractor.class);
+
+    // 合并数据流时的缓冲队列深度
+    private static final int QUEUE_SIZE = 10000;
+    private ExtractConfig extractConfig;
+    private Map<String, String> parameters;
+    private String dbType;
+    private List<ETLExtractor> partitions = new ArrayList<ETLExtractor>();
+
+    public PartitionedDatabaseExtractor(ExtractConfig extractConfig) {
+        this.extractConfig = extractConfig;
+        initial();
+    }
+
+    public PartitionedDatabaseExtractor(ExtractConfig extractConfig,
+                                        Map<String, String> parameters) {
+        this.parameters = parameters;
+        this.extractConfig = extractConfig;
+        initial();
+    }
+
+    private void initial() {
+        String table = extractConfig.getTable();
+        String column = extractConfig.getPartitionColumn();
+        String mode = extractConfig.getPartitionMode();
+        int count = extractConfig.getPartitions();
+        dbType = extractConfig.getDatabaseType() != null ? extractConfig.getDatabaseType() : "";
+        validate(table, mode);
+
+        String sql;
+        if (table != null && !table.equals("")) {
+            sql = "select * from " + table;
+        } else {
+            sql = DatabaseHelper.getReplacedSQL(extractConfig.getSQL(), parameters);
+        }
+
+        List<String> conditions;
+        if (mode.equalsIgnoreCase("rowid")) {
+            conditions = getModConditions("mod(dbms_rowid.rowid_block_number(rowid), " + count + ")", null, count);
+        } else if (mode.equalsIgnoreCase("mod")) {
+            String express = dbType.equalsIgnoreCase("sybase") ? ("abs(" + column + " % " + count + ")") : ("abs(mod(" + column + ", " + count + "))");
+            conditions = getModConditions(express, column, count);
+        } else if (mode.equalsIgnoreCase("hash")) {
+            String express = dbType.equalsIgnoreCase("mysql") ? ("mod(crc32(" + column + "), " + count + ")") : ("mod(ora_hash(" + column + "), " + count + ")");
+            conditions = getModConditions(express, column, count);
+        } else {
+            List<String> boundaries = extractConfig.getPartitionBoundaries();
+            if (boundaries.size() == 0) {
+                boundaries = probeBoundaries(sql, column, count);
+            }
+            conditions = getRangeConditions(column, boundaries);
+        }
+
+        logger.info("@@@ 分区并行抽取 - 分区方式: {} 分区字段: {} 分区数: {}", mode, column, conditions.size());
+
+        for (String condition : conditions) {
+            String partitionSQL;
+            if (mode.equalsIgnoreCase("rowid")) {
+                partitionSQL = sql + " where " + condition;
+            } else {
+                partitionSQL = "select * from (" + sql + ") t where " + condition;
+            }
+            partitions.add(new DatabaseExtractor(partitionSQL, extractConfig));
+        }
+    }
+
+    /**
+     * 校验分区方式与数据库类型及抽取方式是否匹配
+     *
+     * @throws IllegalArgumentException 不支持时抛出
+     */
+    private void validate(String table, String mode) {
+        if (mode.equalsIgnoreCase("hash")
+                && !dbType.equalsIgnoreCase("oracle") && !dbType.equalsIgnoreCase("mysql")) {
+            throw new IllegalArgumentException("hash 分区方式仅支持 Oracle 及 MySQL 数据库 - databasetype: " + dbType);
+        }
+        if (mode.equalsIgnoreCase("rowid")) {
+            if (!dbType.equalsIgnoreCase("oracle")) {
+                throw new IllegalArgumentException("rowid 分区方式仅支持 Oracle 数据库 - databasetype: " + dbType);
+            }
+            if (table == null || table.equals("")) {
+                throw new IllegalArgumentException("rowid 分区方式仅支持 input.table 单表抽取 !");
+            }
+        }
+    }
+
+    /**
+     * 取模分区条件 ( 分区字段为空值的记录归入首个分区 )
+     */
+    private List<String> getModConditions(String express, String column, int count) {
+        List<String> conditions = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            if (i == 0 && column != null) {
+                conditions.add("(" + express + " = 0 or " + column + " is null)");
+            } else {
+                conditions.add(express + " = " + i);
+            }
+        }
+        return conditions;
+    }
+
+    /**
+     * 区间分区条件 ( 分区字段为空值的记录归入首个分区 )
+     */
+    private List<String> getRangeConditions(String column, List<String> boundaries) {
+        List<String> conditions = new ArrayList<String>();
+        int size = boundaries.size();
+        if (size == 0) {
+            conditions.add("1=1");
+            return conditions;
+        }
+        conditions.add("(" + column + " < " + boundaries.get(0) + " or " + column + " is null)");
+        for (int i = 1; i < size; i++) {
+            conditions.add(column + " >= " + boundaries.get(i - 1) + " and " + column + " < " + boundaries.get(i));
+        }
+        conditions.add(column + " >= " + boundaries.get(size - 1));
+        return conditions;
+    }
+
+    /**
+     * 探测分区字段最小最大值并等分, 返回 SQL 字面量形式的边界值
+     */
+    private List<String> probeBoundaries(String sql, String column, int count) {
+        List<String> boundaries = new ArrayList<String>();
+        String probeSQL = "select min(" + column + "), max(" + column + ") from (" + sql + ") t";
+
+        logger.info("@@@ 分区边界探测 SQL: \n {}", probeSQL);
+
+        Connection conn = null;
+        Statement stmt = null;
+        ResultSet rs = null;
+        try {
+            conn = ConnectionPool.getConnection(extractConfig.getDatabase(), extractConfig.getDatabaseConfiguration());
+            stmt = conn.createStatement();
+            rs = stmt.executeQuery(probeSQL);
+            if (rs.next()) {
+                Object min = rs.getObject(1);
+                Object max = rs.getObject(2);
+                logger.info("@@@ 分区字段 {} 最小值: {} 最大值: {}", column, min, max);
+                if (min instanceof Number && max instanceof Number) {
+                    BigDecimal lower = new BigDecimal(min.toString());
+                    BigDecimal step = new BigDecimal(max.toString()).subtract(lower)
+                            .divide(new BigDecimal(count), MathContext.DECIMAL64);
+                    for (int i = 1; i < count; i++) {
+                        boundaries.add(lower.add(step.multiply(new BigDecimal(i))).toPlainString());
+                    }
+                } else if (min instanceof java.util.Date && max instanceof java.util.Date) {
+                    long lower = ((java.util.Date) min).getTime();
+                    long step = (((java.util.Date) max).getTime() - lower) / count;
+                    for (int i = 1; i < count; i++) {
+                        boundaries.add(getDateLiteral(new java.util.Date(lower + step * i)));
+                    }
+                } else if (min != null) {
+                    logger.error("@@@ 分区字段 {} 非数值或日期类型, 不进行分区 !", column);
+                }
+            }
+        } catch (PropertyVetoException e) {
+            logger.error("属性异常 !", e);
+        } catch (SQLException e) {
+            logger.error("SQL 异常 !", e);
+        } finally {
+            if (rs != null) {
+                try {
+                    rs.close();
+                } catch (SQLException e) {
+                    logger.error("SQL 异常 !", e);
+                }
+            }
+
+            if (stmt != null) {
+                try {
+                    stmt.close();
+                } catch (SQLException e) {
+                    logger.error("SQL 异常 !", e);
+                }
+            }
+
+            if (conn != null) {
+                try {
+                    conn.close();
+                } catch (SQLException e) {
+                    logger.error("SQL 异常 !", e);
+                }
+            }
+        }
+
+        // 去除等分后重复的边界 ( 取值范围小于分区数时 )
+        return new ArrayList<String>(new LinkedHashSet<String>(boundaries));
+    }
+
+    private String getDateLiteral(java.util.Date date) {
+        String value = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(date);
+        if (dbType.equalsIgnoreCase("oracle")) {
+            return "to_timestamp('" + value + "', 'YYYY-MM-DD HH24:MI:SS.FF3')";
+        }
+        return "'" + value + "'";
+    }
+
+    @Override
+    public Iterator<Map<String, Object>> walker() {
+        return new MergedWalker(partitions, QUEUE_SIZE, "etl-partition");
+    }
+
+}
@@ -0,0 +1,592 @@
+package zw.wormsleep.tools.etl.extractor;
+
+import org.apache.poi.POIXMLDocument;
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.record.*;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.NPOIFSFileSystem;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+import zw.wormsleep.tools.etl.ETLExtractor;
+import zw.wormsleep.tools.etl.config.ExtractConfig;
+import zw.wormsleep.tools.etl.utils.ExcelUtils;
+
+import javax.xml.parsers.SAXParserFactory;
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Excel 流式抽取器
+ * <p/>
+ * 不构建 Workbook 对象, xlsx 通过 XSSFReader 以 SAX 方式逐行解析各 Sheet XML, xls 通过 HSSFEventFactory 逐条处理记录,
+ * 解析线程将数据行写入有界队列, 内存占用与文件行数无关 ( xlsx 共享字符串表除外 ) 。
+ * <p/>
+ * 各 Sheet 依次抽取并合并为单一数据流, 每个 Sheet 独立进行列头匹配:
+ * 1. 有列头 - 缓存前 maxheaderrows 行后通过 ExcelUtils.getMatchedInfo 定位数据起始行及列位置, 未匹配的 Sheet 跳过
+ * 2. 无列头 - 自 rowstart 起按 getIndexedColumns() 定位列
+ * 配置 rowend 时仅抽取至该行。
+ * <p/>
+ * 与 ExcelExtractor 的差异: 公式单元格取缓存的计算结果而非公式文本, 无任何单元格的行不输出。
+ * 输入流方式读取时 POI 需将文件内容整体读入内存, 大文件请使用文件方式。
+ * 解析异常 ( 如文件损坏 ) 经队列传递, 遍历器以 IllegalStateException 抛出。
+ * 调用方提前停止消费时须关闭遍历器 ( Closeable ), 解析线程随即退出并释放文件。
+ *
+ * @author zhaowei
+ */
+public class StreamingExcelExtractor implements ETLExtractor {
+    final Logger logger = LoggerFactory.getLogger(StreamingExcelExtractor.class);
+
+    // 缓冲队列深度
+    private static final int QUEUE_SIZE = 10000;
+    // 队列满时检查终止标记的间隔 ( 毫秒 )
+    private static final long OFFER_TIMEOUT = 100;
+    // 结束标记 ( 通过引用比较识别 )
+    private static final Map<String, Object> END = new HashMap<String, Object>(0);
+    // 失败标记 ( 通过引用比较识别 )
+    private static final Map<String, Object> FAILED = new HashMap<String, Object>(0);
+
+    private File file;
+    private InputStream ins;
+    private boolean xls;
+    private ExtractConfig extractConfig;
+
+    public StreamingExcelExtractor(File in, ExtractConfig extractConfig) throws IOException {
+        this.file = in;
+        this.extractConfig = extractConfig;
+        InputStream inp = new BufferedInputStream(new FileInputStream(in));
+        try {
+            this.xls = detect(inp);
+        } finally {
+            inp.close();
+        }
+    }
+
+    public StreamingExcelExtractor(InputStream inp, ExtractConfig extractConfig) throws IOException {
+        this.ins = inp.markSupported() ? inp : new BufferedInputStream(inp);
+        this.extractConfig = extractConfig;
+        this.xls = detect(ins);
+    }
+
+    /**
+     * 判断文件格式
+     *
+     * @param inp 支持 mark 的输入流
+     * @return 是否为 xls 格式
+     * @throws IOException
+     */
+    private boolean detect(InputStream inp) throws IOException {
+        if (POIFSFileSystem.hasPOIFSHeader(inp)) {
+            return true;
+        }
+        if (POIXMLDocument.hasOOXMLHeader(inp)) {
+            return false;
+        }
+        throw new IOException("无法识别的 Excel 文件格式 !");
+    }
+
+    @Override
+    public Iterator<Map<String, Object>> walker() {
+        return new Walker();
+    }
+
+    private class Walker implements Iterator<Map<String, Object>>, Closeable {
+        private BlockingQueue<Map<String, Object>> queue = new ArrayBlockingQueue<Map<String, Object>>(QUEUE_SIZE);
+        private Map<String, Object> current;
+        private boolean finished = false;
+        private Parser parser;
+
+        public Walker() {
+            parser = new Parser(queue, "etl-excel");
+            parser.setDaemon(true);
+            parser.start();
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (current == null && !finished) {
+                    Map<String, Object> data = queue.take();
+                    if (data == END) {
+                        finished = true;
+                    } else if (data == FAILED) {
+                        // 解析失败不得视为正常结束 ( 否则加载部分数据后静默完成 )
+                        finished = true;
+                        throw new IllegalStateException("Excel 流式抽取异常 !", parser.failure);
+                    } else {
+                        current = data;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new IllegalStateException("Excel 流式抽取被中断 !", e);
+            }
+            return current != null;
+        }
+
+        @Override
+        public Map<String, Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Map<String, Object> result = current;
+            current = null;
+            return result;
+        }
+
+        @Override
+        public void remove() {
+        }
+
+        /**
+         * 终止解析 ( 调用方提前停止消费或异常退出时调用 )
+         */
+        @Override
+        public void close() {
+            if (finished && current == null) return;
+            finished = true;
+            current = null;
+            parser.stopped = true;
+            // 清空队列, 解析线程于下次投递时发现终止标记后退出
+            queue.clear();
+        }
+    }
+
+    /**
+     * 解析线程
+     */
+    private class Parser extends Thread {
+        private BlockingQueue<Map<String, Object>> queue;
+        private long count = 0;
+        private volatile Throwable failure;
+        private volatile boolean stopped = false;
+
+        Parser(BlockingQueue<Map<String, Object>> queue, String name) {
+            super(name);
+            this.queue = queue;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (xls) {
+                    parseXls();
+                } else {
+                    parseXlsx();
+                }
+                logger.info("@@@ Excel 流式抽取完成 - 共计: {} 条", count);
+            } catch (Throwable e) {
+                if (stopped) {
+                    // 遍历器已关闭, 解析异常 ( 含 CancellationException ) 无需再传递
+                    logger.info("@@@ Excel 流式抽取已终止 - 已抽取: {} 条", count);
+                    return;
+                }
+                logger.error("Excel 流式抽取异常 !", e);
+                failure = e;
+            }
+            try {
+                offer(failure != null ? FAILED : END);
+            } catch (CancellationException e) {
+                logger.info("@@@ Excel 流式抽取已终止 - 已抽取: {} 条", count);
+            }
+        }
+
+        void emit(Map<String, Object> data) {
+            offer(data);
+            count++;
+        }
+
+        /**
+         * 向队列投递数据。队列满时按间隔重试, 遍历器关闭后抛出 CancellationException 终止解析
+         */
+        private void offer(Map<String, Object> data) {
+            try {
+                while (!stopped) {
+                    if (queue.offer(data, OFFER_TIMEOUT, TimeUnit.MILLISECONDS)) return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stopped = true;
+            }
+            throw new CancellationException("Excel 流式抽取已终止 !");
+        }
+
+        private void parseXlsx() throws Exception {
+            OPCPackage pkg = file != null ? OPCPackage.open(file.getPath(), PackageAccess.READ) : OPCPackage.open(ins);
+            try {
+                XSSFReader reader = new XSSFReader(pkg);
+                ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+                StylesTable styles = reader.getStylesTable();
+
+                SAXParserFactory factory = SAXParserFactory.newInstance();
+                factory.setNamespaceAware(true);
+
+                XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+                while (sheets.hasNext()) {
+                    InputStream sheetData = sheets.next();
+                    SheetRows rows = new SheetRows(sheets.getSheetName(), this);
+                    try {
+                        XMLReader xmlReader = factory.newSAXParser().getXMLReader();
+                        xmlReader.setContentHandler(new XlsxSheetHandler(strings, styles, rows));
+                        xmlReader.parse(new InputSource(sheetData));
+                    } finally {
+                        sheetData.close();
+                    }
+                    rows.end();
+                }
+            } finally {
+                pkg.revert();
+            }
+        }
+
+        private void parseXls() throws IOException {
+            NPOIFSFileSystem fs = file != null ? new NPOIFSFileSystem(file, true) : new NPOIFSFileSystem(ins);
+            try {
+                XlsListener listener = new XlsListener(this);
+                HSSFRequest request = new HSSFRequest();
+                request.addListenerForAllRecords(listener.formats);
+                new HSSFEventFactory().processWorkbookEvents(request, fs.getRoot());
+                listener.end();
+            } finally {
+                fs.close();
+            }
+        }
+    }
+
+    /**
+     * 单个 Sheet 的行过滤 - 列头匹配, 起止行及列定位
+     */
+    private class SheetRows {
+        private String sheetName;
+        private Parser parser;
+        private boolean hasHeader;
+        private int maxHeaderRows;
+        private int rowEnd;
+        private Boolean matched;
+        private Map<Integer, Map<Integer, Object>> headerRows = new TreeMap<Integer, Map<Integer, Object>>();
+        private int rowStart = 0;
+        private Map<String, Integer> columnPosition;
+
+        @SuppressWarnings("unchecked")
+        SheetRows(String sheetName, Parser parser) {
+            this.sheetName = sheetName;
+            this.parser = parser;
+            this.hasHeader = extractConfig.hasHeader();
+            this.maxHeaderRows = extractConfig.getMaxHeaderCheckRows();
+            this.rowEnd = extractConfig.getRowEnd();
+            if (!hasHeader) {
+                matched = true;
+                rowStart = Math.max(0, extractConfig.getRowStart());
+                columnPosition = (Map<String, Integer>) extractConfig.getIndexedColumns();
+                logger.debug("@@@ Sheet {} - 数据抽取 - 起始行 {} 终止行 {} 定位列 {}", sheetName, rowStart, rowEnd,
+                        columnPosition);
+            }
+        }
+
+        void row(int rowIndex, Map<Integer, Object> cells) {
+            if (matched == null) {
+                if (rowIndex < maxHeaderRows) {
+                    headerRows.put(rowIndex, cells);
+                    return;
+                }
+                match();
+            }
+            accept(rowIndex, cells);
+        }
+
+        void end() {
+            if (matched == null) {
+                match();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void match() {
+            Map<String, Object> matchResult = ExcelUtils.getMatchedInfo(sheetName, headerRows,
+                    extractConfig.getCheckColumns(), maxHeaderRows);
+            matched = matchResult.get("matched").equals(true);
+            if (matched) {
+                rowStart = (Integer) matchResult.get("rowstart");
+                columnPosition = (Map<String, Integer>) matchResult.get("position");
+                logger.debug("@@@ Sheet {} - 数据抽取 - 起始行 {} 终止行 {} 定位列 {}", sheetName, rowStart, rowEnd,
+                        columnPosition);
+                for (Map.Entry<Integer, Map<Integer, Object>> row : headerRows.entrySet()) {
+                    accept(row.getKey(), row.getValue());
+                }
+            } else {
+                logger.info("@@@ Sheet {} 未找到匹配列头, 跳过 !", sheetName);
+            }
+            headerRows = null;
+        }
+
+        private void accept(int rowIndex, Map<Integer, Object> cells) {
+            if (!matched || rowIndex < rowStart || (rowEnd > 0 && rowIndex > rowEnd)) return;
+
+            Map<String, Object> map = new HashMap<String, Object>();
+            for (String field : columnPosition.keySet()) {
+                map.put(field, cells.get(columnPosition.get(field)));
+            }
+            parser.emit(map);
+        }
+    }
+
+    /**
+     * 数值单元格值 ( 日期格式转换为 Date )
+     */
+    private static Object numericValue(double value, int formatIndex, String formatString) {
+        if (formatString == null) {
+            formatString = BuiltinFormats.getBuiltinFormat(formatIndex);
+        }
+        if (formatString != null && DateUtil.isADateFormat(formatIndex, formatString)
+                && DateUtil.isValidExcelDate(value)) {
+            return DateUtil.getJavaDate(value);
+        }
+        return value;
+    }
+
+    /**
+     * xlsx Sheet XML 解析
+     */
+    private static class XlsxSheetHandler extends DefaultHandler {
+        private ReadOnlySharedStringsTable strings;
+        private StylesTable styles;
+        private SheetRows rows;
+
+        private int rowIndex = -1;
+        private Map<Integer, Object> cells;
+        private int columnIndex = -1;
+        private String type;
+        private String style;
+        private boolean inInlineString = false;
+        private boolean capturing = false;
+        private StringBuilder text = new StringBuilder();
+
+        XlsxSheetHandler(ReadOnlySharedStringsTable strings, StylesTable styles, SheetRows rows) {
+            this.strings = strings;
+            this.styles = styles;
+            this.rows = rows;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            if ("row".equals(localName)) {
+                String r = attributes.getValue("r");
+                rowIndex = r != null ? Integer.parseInt(r) - 1 : rowIndex + 1;
+                cells = new TreeMap<Integer, Object>();
+                columnIndex = -1;
+            } else if ("c".equals(localName)) {
+                String r = attributes.getValue("r");
+                columnIndex = r != null ? columnIndex(r) : columnIndex + 1;
+                type = attributes.getValue("t");
+                style = attributes.getValue("s");
+                text.setLength(0);
+            } else if ("v".equals(localName)) {
+                capturing = true;
+                text.setLength(0);
+            } else if ("is".equals(localName)) {
+                inInlineString = true;
+                text.setLength(0);
+            } else if ("t".equals(localName) && inInlineString) {
+                capturing = true;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (capturing) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            if ("v".equals(localName) || "t".equals(localName)) {
+                capturing = false;
+            } else if ("is".equals(localName)) {
+                inInlineString = false;
+            } else if ("c".equals(localName)) {
+                cells.put(columnIndex, value());
+            } else if ("row".equals(localName)) {
+                rows.row(rowIndex, cells);
+                cells = null;
+            }
+        }
+
+        private Object value() {
+            String v = text.toString();
+            if ("s".equals(type)) {
+                return v.length() > 0 ? strings.getEntryAt(Integer.parseInt(v)) : null;
+            } else if ("inlineStr".equals(type) || "str".equals(type)) {
+                return v;
+            } else if ("b".equals(type)) {
+                return v.length() > 0 ? "1".equals(v) : null;
+            } else if ("e".equals(type) || v.length() == 0) {
+                return null;
+            }
+
+            double value = Double.parseDouble(v);
+            if (style == null || styles == null) {
+                return value;
+            }
+            XSSFCellStyle cellStyle = styles.getStyleAt(Integer.parseInt(style));
+            if (cellStyle == null) {
+                return value;
+            }
+            return numericValue(value, cellStyle.getDataFormat(), cellStyle.getDataFormatString());
+        }
+
+        /**
+         * 单元格引用 ( 如 AB12 ) 转换为列号 ( 从 0 开始 )
+         */
+        private static int columnIndex(String reference) {
+            int column = 0;
+            for (int i = 0; i < reference.length(); i++) {
+                char c = reference.charAt(i);
+                if (c < 'A' || c > 'Z') break;
+                column = column * 26 + (c - 'A' + 1);
+            }
+            return column - 1;
+        }
+    }
+
+    /**
+     * xls 记录处理 - 单元格记录按行、列顺序出现, 行号变化时输出上一行
+     */
+    private class XlsListener implements HSSFListener {
+        private Parser parser;
+        private FormatTrackingHSSFListener formats;
+        private List<String> sheetNames = new ArrayList<String>();
+        private SSTRecord strings;
+        private int depth = 0;
+        private int sheetIndex = -1;
+        private SheetRows rows;
+        private int rowIndex = -1;
+        private Map<Integer, Object> cells;
+        private FormulaRecord pendingFormula;
+
+        XlsListener(Parser parser) {
+            this.parser = parser;
+            this.formats = new FormatTrackingHSSFListener(this);
+        }
+
+        @Override
+        public void processRecord(Record record) {
+            switch (record.getSid()) {
+                case BoundSheetRecord.sid:
+                    sheetNames.add(((BoundSheetRecord) record).getSheetname());
+                    break;
+                case SSTRecord.sid:
+                    strings = (SSTRecord) record;
+                    break;
+                case BOFRecord.sid:
+                    depth++;
+                    if (depth == 1 && ((BOFRecord) record).getType() == BOFRecord.TYPE_WORKSHEET) {
+                        sheetIndex++;
+                        String name = sheetIndex < sheetNames.size() ? sheetNames.get(sheetIndex) : "Sheet" + sheetIndex;
+                        rows = new SheetRows(name, parser);
+                        rowIndex = -1;
+                    }
+                    break;
+                case EOFRecord.sid:
+                    depth--;
+                    if (depth == 0) {
+                        end();
+                    }
+                    break;
+                case NumberRecord.sid:
+                    NumberRecord number = (NumberRecord) record;
+                    cell(number, numericValue(number.getValue(), formats.getFormatIndex(number),
+                            formats.getFormatString(number)));
+                    break;
+                case LabelSSTRecord.sid:
+                    LabelSSTRecord label = (LabelSSTRecord) record;
+                    cell(label, strings.getString(label.getSSTIndex()).getString());
+                    break;
+                case LabelRecord.sid:
+                    LabelRecord plain = (LabelRecord) record;
+                    cell(plain, plain.getValue());
+                    break;
+                case BoolErrRecord.sid:
+                    BoolErrRecord boolErr = (BoolErrRecord) record;
+                    cell(boolErr, boolErr.isBoolean() ? boolErr.getBooleanValue() : null);
+                    break;
+                case FormulaRecord.sid:
+                    formula((FormulaRecord) record);
+                    break;
+                case StringRecord.sid:
+                    if (pendingFormula != null) {
+                        cell(pendingFormula, ((StringRecord) record).getString());
+                        pendingFormula = null;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void formula(FormulaRecord formula) {
+            if (formula.hasCachedResultString()) {
+                // 字符串结果位于随后的 StringRecord
+                pendingFormula = formula;
+                return;
+            }
+            switch (formula.getCachedResultType()) {
+                case Cell.CELL_TYPE_NUMERIC:
+                    cell(formula, numericValue(formula.getValue(), formats.getFormatIndex(formula),
+                            formats.getFormatString(formula)));
+                    break;
+                case Cell.CELL_TYPE_BOOLEAN:
+                    cell(formula, formula.getCachedBooleanValue());
+                    break;
+                default:
+                    cell(formula, null);
+            }
+        }
+
+        private void cell(CellValueRecordInterface record, Object value) {
+            if (rows == null || depth != 1) return;
+            if (record.getRow() != rowIndex) {
+                flush();
+                rowIndex = record.getRow();
+                cells = new TreeMap<Integer, Object>();
+            }
+            cells.put((int) record.getColumn(), value);
+        }
+
+        private void flush() {
+            if (cells != null) {
+                rows.row(rowIndex, cells);
+                cells = null;
+            }
+        }
+
+        void end() {
+            if (rows != null) {
+                flush();
+                rows.end();
+                rows = null;
+            }
+        }
+    }
+
+}
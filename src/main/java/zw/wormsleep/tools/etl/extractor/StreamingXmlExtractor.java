@@ -0,0 +1,293 @@
+package zw.wormsleep.tools.etl.extractor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import zw.wormsleep.tools.etl.ETLExtractor;
+import zw.wormsleep.tools.etl.config.ExtractConfig;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.*;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * XML 流式抽取器
+ * <p/>
+ * 以 StAX 逐事件遍历输入, 增量匹配记录节点路径, 每匹配一个节点输出一行 ( 子节点名称经 getCheckColumns() 映射为字段名 ),
+ * 内存占用与文件大小无关。
+ * <p/>
+ * 支持的路径为 input.xpath 的简单子集: 由 / ( 子节点 ) 、 // ( 后代节点 ) 及节点名称或 * 组成,
+ * 例如 //DZPT/BODY/DSMXS/DSMX 。不支持谓词、属性、函数及命名空间前缀, 此类路径请使用 XmlExtractor 。
+ * 节点值取子节点直接包含的文本并去除首尾空白、合并连续空白 ( 与 dom4j getTextTrim 一致 ) 。
+ * 记录节点内嵌套的同路径节点不再单独输出。
+ * <p/>
+ * 文件输入每次调用 walker() 重新读取, 输入流仅可遍历一次。
+ * 文档格式错误时遍历器以 IllegalStateException 抛出解析异常 ( 不以正常结束处理 ) 。
+ *
+ * @author zhaowei
+ */
+public class StreamingXmlExtractor implements ETLExtractor {
+    final Logger logger = LoggerFactory.getLogger(StreamingXmlExtractor.class);
+
+    private static final Pattern STEP = Pattern.compile("\\*|[A-Za-z_][\\w.\\-]*");
+
+    private File file;
+    private InputStream ins;
+    private String encoding;
+    private String[] steps;
+    private boolean[] descendants;
+    private Map<String, String> checkColumns;
+
+    public StreamingXmlExtractor(File in, ExtractConfig extractConfig) {
+        this.file = in;
+        initial(extractConfig);
+    }
+
+    public StreamingXmlExtractor(InputStream ins, ExtractConfig extractConfig) {
+        this.ins = ins;
+        initial(extractConfig);
+    }
+
+    private void initial(ExtractConfig extractConfig) {
+        String xpath = extractConfig.getXpath();
+        if (!parse(xpath)) {
+            throw new IllegalArgumentException("XML 流式抽取不支持该路径: " + xpath);
+        }
+        encoding = extractConfig.getEncoding();
+        checkColumns = extractConfig.getCheckColumns();
+    }
+
+    /**
+     * 路径是否可流式匹配
+     *
+     * @param xpath 记录节点路径
+     * @return
+     */
+    public static boolean isSupported(String xpath) {
+        return new StreamingXmlExtractor().parse(xpath);
+    }
+
+    private StreamingXmlExtractor() {
+    }
+
+    /**
+     * 解析路径为节点名称及轴 ( 子节点 / 后代节点 ) 序列
+     *
+     * @param xpath 记录节点路径
+     * @return 是否为支持的路径
+     */
+    private boolean parse(String xpath) {
+        if (xpath == null || xpath.trim().equals("")) return false;
+        String path = xpath.trim();
+
+        List<String> names = new ArrayList<String>();
+        List<Boolean> axes = new ArrayList<Boolean>();
+        int pos = 0;
+        while (pos < path.length()) {
+            boolean descendant = false;
+            if (path.startsWith("//", pos)) {
+                descendant = true;
+                pos += 2;
+            } else if (path.charAt(pos) == '/') {
+                pos++;
+            } else if (pos > 0) {
+                return false;
+            }
+            int end = path.indexOf('/', pos);
+            String name = path.substring(pos, end < 0 ? path.length() : end);
+            if (!STEP.matcher(name).matches()) return false;
+            names.add(name);
+            axes.add(descendant);
+            pos = end < 0 ? path.length() : end;
+        }
+        if (names.isEmpty()) return false;
+
+        steps = names.toArray(new String[names.size()]);
+        descendants = new boolean[axes.size()];
+        for (int i = 0; i < descendants.length; i++) {
+            descendants[i] = axes.get(i);
+        }
+        return true;
+    }
+
+    /**
+     * 判断当前节点栈是否匹配路径 ( 自最后一个节点向前匹配 )
+     *
+     * @param stack 节点栈
+     * @param step  路径节点序号
+     * @param depth 节点栈序号
+     * @return
+     */
+    private boolean matches(List<String> stack, int step, int depth) {
+        String name = steps[step];
+        if (!name.equals("*") && !name.equals(stack.get(depth))) return false;
+        if (step == 0) return descendants[0] || depth == 0;
+        if (descendants[step]) {
+            for (int d = depth - 1; d >= 0; d--) {
+                if (matches(stack, step - 1, d)) return true;
+            }
+            return false;
+        }
+        return depth > 0 && matches(stack, step - 1, depth - 1);
+    }
+
+    @Override
+    public Iterator<Map<String, Object>> walker() {
+        return new Walker();
+    }
+
+    private class Walker implements Iterator<Map<String, Object>> {
+        private InputStream input;
+        private XMLStreamReader reader;
+        private List<String> stack = new ArrayList<String>();
+        private int recordDepth = -1;
+        private String child;
+        private StringBuilder text = new StringBuilder();
+        private Map<String, Object> record;
+        private boolean ready = false;
+
+        public Walker() {
+            try {
+                if (file != null) {
+                    input = new BufferedInputStream(new FileInputStream(file));
+                } else {
+                    input = ins;
+                    ins = null;
+                }
+                if (input == null) {
+                    logger.error("@@@ 输入流仅可遍历一次 !");
+                    return;
+                }
+
+                XMLInputFactory factory = XMLInputFactory.newInstance();
+                factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+                reader = encoding != null ? factory.createXMLStreamReader(input, encoding)
+                        : factory.createXMLStreamReader(input);
+            } catch (FileNotFoundException e) {
+                logger.error("文件不存在 !", e);
+            } catch (XMLStreamException e) {
+                logger.error("XML 解析异常 !", e);
+                close();
+                throw new IllegalStateException("XML 解析异常 !", e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!ready && reader != null) {
+                advance();
+            }
+            return ready;
+        }
+
+        @Override
+        public Map<String, Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ready = false;
+            Map<String, Object> map = record;
+            record = null;
+            return map;
+        }
+
+        private void advance() {
+            try {
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    switch (event) {
+                        case XMLStreamConstants.START_ELEMENT:
+                            stack.add(reader.getLocalName());
+                            if (recordDepth < 0) {
+                                if (matches(stack, steps.length - 1, stack.size() - 1)) {
+                                    recordDepth = stack.size();
+                                    record = new HashMap<String, Object>();
+                                }
+                            } else if (stack.size() == recordDepth + 1) {
+                                child = reader.getLocalName();
+                                text.setLength(0);
+                            }
+                            break;
+                        case XMLStreamConstants.CHARACTERS:
+                        case XMLStreamConstants.CDATA:
+                        case XMLStreamConstants.SPACE:
+                            if (child != null && stack.size() == recordDepth + 1) {
+                                text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                            }
+                            break;
+                        case XMLStreamConstants.END_ELEMENT:
+                            if (recordDepth > 0 && stack.size() == recordDepth + 1) {
+                                String columnName = checkColumns.get(child);
+                                if (columnName != null) {
+                                    record.put(columnName, normalize(text));
+                                }
+                                child = null;
+                            }
+                            stack.remove(stack.size() - 1);
+                            if (stack.size() == recordDepth - 1) {
+                                recordDepth = -1;
+                                ready = true;
+                                return;
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                }
+            } catch (XMLStreamException e) {
+                // 解析失败不得视为正常结束 ( 否则加载部分数据后静默完成 )
+                logger.error("XML 解析异常 !", e);
+                close();
+                throw new IllegalStateException("XML 解析异常 !", e);
+            }
+            close();
+        }
+
+        private void close() {
+            try {
+                if (reader != null) {
+                    reader.close();
+                }
+            } catch (XMLStreamException e) {
+                logger.error("XML 解析异常 !", e);
+            }
+            reader = null;
+            if (input != null) {
+                try {
+                    input.close();
+                } catch (IOException e) {
+                    logger.error("IO 异常 !", e);
+                }
+                input = null;
+            }
+        }
+
+        @Override
+        public void remove() {
+        }
+
+    }
+
+    private static String normalize(CharSequence text) {
+        StringBuilder value = new StringBuilder();
+        int length = text.length();
+        boolean space = false;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = value.length() > 0;
+            } else {
+                if (space) {
+                    value.append(' ');
+                    space = false;
+                }
+                value.append(c);
+            }
+        }
+        return value.toString();
+    }
+
+}
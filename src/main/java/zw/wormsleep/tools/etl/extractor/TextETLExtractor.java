@@ -3,26 +3,51 @@ package zw.wormsleep.tools.etl.extractor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import zw.wormsleep.tools.etl.ETLExtractor;
+import zw.wormsleep.tools.etl.ETLRecordExtractor;
 import zw.wormsleep.tools.etl.config.ExtractConfig;
+import zw.wormsleep.tools.etl.record.ETLRecord;
+import zw.wormsleep.tools.etl.record.RecordSchema;
+import zw.wormsleep.tools.etl.utils.MappedLineReader;
 
 import java.io.*;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.Map;
 
-public class TextETLExtractor implements ETLExtractor {
+public class TextETLExtractor implements ETLExtractor, ETLRecordExtractor, Closeable {
     final Logger logger = LoggerFactory.getLogger(TextETLExtractor.class);
     private final int BUFFER_SIZE = 20 * 1024 * 1024;
     private BufferedInputStream inp;
+    private MappedLineReader lineReader; // 文件输入时以内存映射方式读取
     private String encoding = "UTF-8";
     private String separator = "\t";
     private ExtractConfig extractConfig;
     private Map<String, Integer> columnPosition = new HashMap<String, Integer>();
     private int columnCount = -1;
+    private RecordSchema schema;
+    private String[] names; // 记录第 i 位对应的列名
+    private int[] positions; // 记录第 i 位对应的文本域序号
 
     public TextETLExtractor(File in, ExtractConfig extractConfig)
             throws FileNotFoundException {
-        inp = new BufferedInputStream(new FileInputStream(in), BUFFER_SIZE);
+        lineReader = new MappedLineReader(in, extractConfig.getEncoding());
+        this.extractConfig = extractConfig;
+        initial();
+    }
+
+    /**
+     * 抽取文件中 [start, end) 字节区间 ( 分块并行抽取使用, 起始位置需为行首 )
+     *
+     * @param in            文件
+     * @param extractConfig 抽取配置
+     * @param start         起始字节位置
+     * @param end           结束字节位置
+     * @throws FileNotFoundException
+     */
+    public TextETLExtractor(File in, ExtractConfig extractConfig, long start, long end)
+            throws FileNotFoundException {
+        lineReader = new MappedLineReader(in, extractConfig.getEncoding(), start, end);
         this.extractConfig = extractConfig;
         initial();
     }
@@ -39,6 +64,16 @@ public class TextETLExtractor implements ETLExtractor {
         columnPosition = extractConfig.getIndexedColumns();
         columnCount = columnPosition.size();
 
+        // 列名一次性解析为位置序号
+        schema = new RecordSchema();
+        names = new String[columnCount];
+        positions = new int[columnCount];
+        for (String key : columnPosition.keySet()) {
+            int i = schema.add(key);
+            names[i] = key;
+            positions[i] = columnPosition.get(key);
+        }
+
         logger.debug(
                 "@@@ - 抽取初始化 - Encoding {} Seperaotr {} columnPosition {}",
                 encoding, separator, columnPosition);
@@ -49,14 +84,48 @@ public class TextETLExtractor implements ETLExtractor {
         return new Walker();
     }
 
+    @Override
+    public RecordSchema getSchema() {
+        return schema;
+    }
+
+    @Override
+    public Iterator<ETLRecord> records() {
+        return new RecordWalker();
+    }
+
+    /**
+     * 释放文件资源 ( 读取完毕时自动释放, 提前终止读取时由调用方调用 )
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        if (lineReader != null) {
+            lineReader.close();
+        }
+        if (inp != null) {
+            inp.close();
+        }
+    }
+
+    private DelimitedTokenizer newTokenizer() {
+        return new DelimitedTokenizer(separator, extractConfig.getQuote(), extractConfig.getEscape(),
+                extractConfig.trimValues(), positions);
+    }
+
     private class Walker implements Iterator<Map<String, Object>> {
-        private BufferedReader reader;
+        private MappedLineReader reader;
         private String line = null;
+        private DelimitedTokenizer tokenizer = newTokenizer();
+        private int count;
+        private int maxQuotedLines = Math.max(1, extractConfig.getMaxQuotedLines());
+        private LinkedList<String> pending = new LinkedList<String>(); // 引号未闭合时退回待重新解析的行
+        private long lineNumber;
 
         public Walker() {
             try {
-                reader = new BufferedReader(
-                        new InputStreamReader(inp, encoding));
+                reader = lineReader != null ? lineReader : new MappedLineReader(inp, encoding);
             } catch (IOException e) {
                 logger.error(e.getMessage());
             }
@@ -66,10 +135,14 @@ public class TextETLExtractor implements ETLExtractor {
         public boolean hasNext() {
             boolean result = false;
             try {
-                line = reader.readLine();
+                line = readLine();
                 if (line != null) {
                     result = true;
-                } else {
+                    count = tokenizer.tokenize(line);
+                    if (count == DelimitedTokenizer.UNTERMINATED) {
+                        join();
+                    }
+                } else if (reader != null) {
                     reader.close();
                     reader = null;
                 }
@@ -79,20 +152,49 @@ public class TextETLExtractor implements ETLExtractor {
             return result;
         }
 
+        /**
+         * 引号内包含换行 - 拼接后续行 ( 至多 maxQuotedLines 行 ) 。
+         * 超出或至文件末尾仍未闭合时视为无效记录, 仅跳过起始行, 已读取的后续行退回重新逐行解析。
+         */
+        private void join() throws IOException {
+            long start = lineNumber;
+            String first = line;
+            LinkedList<String> joined = new LinkedList<String>();
+            StringBuilder buffer = new StringBuilder(line);
+            String more;
+            while (count == DelimitedTokenizer.UNTERMINATED && joined.size() < maxQuotedLines - 1
+                    && (more = readLine()) != null) {
+                joined.add(more);
+                buffer.append('\n').append(more);
+                count = tokenizer.tokenize(buffer.toString());
+            }
+            if (count == DelimitedTokenizer.UNTERMINATED) {
+                logger.error("@@@ 第 {} 行引号未闭合 ( 已拼接 {} 行 ) , 跳过该行 !", start, joined.size() + 1);
+                lineNumber -= joined.size();
+                pending.addAll(0, joined);
+                line = first;
+            } else {
+                line = buffer.toString();
+            }
+        }
+
+        private String readLine() throws IOException {
+            String next = !pending.isEmpty() ? pending.removeFirst() : (reader != null ? reader.readLine() : null);
+            if (next != null) {
+                lineNumber++;
+            }
+            return next;
+        }
+
         @Override
         public Map<String, Object> next() {
             Map<String, Object> map = null;
 
-            // 优化数据正确性 - 分隔符判断
-            if (line.contains(separator)) {
-                String[] values = line.split(separator);
-
-                // 优化数据正确性 - 分割值数量判断
-                if (values.length >= columnCount) {
-                    map = new HashMap<String, Object>();
-                    for (String key : columnPosition.keySet()) {
-                        map.put(key, values[columnPosition.get(key)].trim());
-                    }
+            // 优化数据正确性 - 分隔符及域数量判断
+            if (isValid()) {
+                map = new HashMap<String, Object>();
+                for (int i = 0; i < columnCount; i++) {
+                    map.put(names[i], tokenizer.get(positions[i]));
                 }
             }
 
@@ -103,6 +205,49 @@ public class TextETLExtractor implements ETLExtractor {
         public void remove() {
         }
 
+        boolean isValid() {
+            return tokenizer.isComplete(count);
+        }
+
+    }
+
+    /**
+     * 按位置记录遍历器 ( 复用同一 ETLRecord 对象, 跳过分隔符或域数量不符的行 )
+     */
+    private class RecordWalker implements Iterator<ETLRecord> {
+        private Walker lines = new Walker();
+        private ETLRecord record = new ETLRecord(schema);
+        private boolean ready = false;
+        private boolean eof = false;
+
+        @Override
+        public boolean hasNext() {
+            while (!ready && !eof) {
+                if (!lines.hasNext()) {
+                    eof = true;
+                    break;
+                }
+                // 优化数据正确性 - 分隔符及域数量判断
+                ready = lines.isValid();
+            }
+            return ready;
+        }
+
+        @Override
+        public ETLRecord next() {
+            hasNext();
+            record.clear();
+            for (int i = 0; i < positions.length; i++) {
+                record.set(i, lines.tokenizer.get(positions[i]));
+            }
+            ready = false;
+            return record;
+        }
+
+        @Override
+        public void remove() {
+        }
+
     }
 
 }
@@ -0,0 +1,77 @@
+package zw.wormsleep.tools.etl.loader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import zw.wormsleep.tools.etl.config.LoadConfig;
+
+/**
+ * 自适应批次大小控制器
+ * <p/>
+ * 每次批量提交后记录 executeBatch + commit 耗时及行数, 按实测吞吐量 ( 条/毫秒 ) 推算达到目标耗时所需的批次大小,
+ * 单次调整幅度限制在当前大小的 1/2 至 2 倍之间, 并约束在配置的上下限内。
+ * 耗时处于目标耗时的 1/2 至 3/2 之间时不做调整, 避免抖动。
+ * <p/>
+ * 未启用自适应时固定返回配置的批次大小。
+ *
+ * @author zhaowei
+ */
+public class AdaptiveBatchSizer {
+    final Logger logger = LoggerFactory.getLogger(AdaptiveBatchSizer.class);
+
+    private boolean adaptive;
+    private int batchSize;
+    private int minBatchSize;
+    private int maxBatchSize;
+    private long targetLatency;
+    private String table;
+
+    public AdaptiveBatchSizer(LoadConfig loadConfig) {
+        this.adaptive = loadConfig.adaptiveBatch();
+        this.minBatchSize = Math.max(1, loadConfig.getMinBatchSize());
+        this.maxBatchSize = Math.max(minBatchSize, loadConfig.getMaxBatchSize());
+        this.targetLatency = Math.max(1, loadConfig.getTargetLatency());
+        this.table = loadConfig.getTable();
+        this.batchSize = adaptive ? clamp(loadConfig.getBatchSize()) : loadConfig.getBatchSize();
+        if (adaptive) {
+            logger.info("@@@ 自适应批次 - 表: {} 初始: {} 范围: [{}, {}] 目标耗时: {} 毫秒",
+                    table, batchSize, minBatchSize, maxBatchSize, targetLatency);
+        }
+    }
+
+    /**
+     * 当前批次大小
+     *
+     * @return
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * 记录一次批量提交结果并调整批次大小
+     *
+     * @param rows    本批次行数
+     * @param elapsed executeBatch + commit 耗时 ( 毫秒 )
+     */
+    public void record(long rows, long elapsed) {
+        if (!adaptive || rows <= 0) return;
+        // 未满批次 ( 最后一批 ) 不作为调整依据
+        if (rows < batchSize) return;
+
+        long latency = Math.max(1, elapsed);
+        if (latency * 2 >= targetLatency && latency * 2 <= targetLatency * 3) return;
+
+        long projected = rows * targetLatency / latency;
+        projected = Math.max(batchSize / 2, Math.min(projected, (long) batchSize * 2));
+        int size = clamp(projected);
+        if (size != batchSize) {
+            logger.info("@@@ 自适应批次 - 表: {} 批次大小: {} -> {} ( 耗时: {} 毫秒 吞吐: {} 条/秒 )",
+                    table, batchSize, size, elapsed, rows * 1000 / latency);
+            batchSize = size;
+        }
+    }
+
+    private int clamp(long size) {
+        return (int) Math.max(minBatchSize, Math.min(size, maxBatchSize));
+    }
+}
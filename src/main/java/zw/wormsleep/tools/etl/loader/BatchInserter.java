@@ -0,0 +1,134 @@
+package zw.wormsleep.tools.etl.loader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import zw.wormsleep.tools.etl.database.BindingPlan;
+import zw.wormsleep.tools.etl.record.ETLRecord;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量插入执行器
+ * <p/>
+ * 1. 单行方式 - 逐行绑定后 addBatch, executeBatch 时由驱动批量执行 ( Oracle 数组绑定 )
+ * 2. 多行方式 - 每 rowsPerStatement 行绑定至同一条 insert ... values (...),(...) 语句执行 ( MySQL ),
+ * 不足一条语句的剩余行在 executeBatch 时以单行方式批量执行
+ * <p/>
+ * 多行方式仅适用于 values 子句位于末尾的纯插入语句。
+ *
+ * @author zhaowei
+ */
+public class BatchInserter {
+    final Logger logger = LoggerFactory.getLogger(BatchInserter.class);
+
+    private PreparedStatement pstmt;
+    private BindingPlan plan;
+    private int rowsPerStatement = 1;
+    private PreparedStatement multiPstmt;
+    private List<Object[]> pending;
+
+    /**
+     * 单行方式
+     *
+     * @param pstmt 单行插入预处理语句
+     * @param plan  参数绑定计划
+     */
+    public BatchInserter(PreparedStatement pstmt, BindingPlan plan) {
+        this.pstmt = pstmt;
+        this.plan = plan;
+    }
+
+    /**
+     * 多行方式
+     *
+     * @param conn             目标数据库连接
+     * @param pstmt            单行插入预处理语句 ( 剩余行使用 )
+     * @param sql              单行插入语句 ( 参数已替换为 ? )
+     * @param plan             参数绑定计划
+     * @param rowsPerStatement 每条语句行数
+     * @throws SQLException
+     */
+    public BatchInserter(Connection conn, PreparedStatement pstmt, String sql,
+                         BindingPlan plan, int rowsPerStatement) throws SQLException {
+        this.pstmt = pstmt;
+        this.plan = plan;
+        this.rowsPerStatement = rowsPerStatement;
+        this.pending = new ArrayList<Object[]>(rowsPerStatement);
+
+        StringBuffer row = new StringBuffer(",(");
+        for (int i = 0; i < plan.size(); i++) {
+            row.append(i > 0 ? ",?" : "?");
+        }
+        row.append(")");
+        StringBuffer multiSQL = new StringBuffer(sql.trim());
+        for (int i = 1; i < rowsPerStatement; i++) {
+            multiSQL.append(row);
+        }
+        this.multiPstmt = conn.prepareStatement(multiSQL.toString());
+        logger.info("@@@ 多行插入 - 每条语句 {} 行", rowsPerStatement);
+    }
+
+    public void add(Map<String, Object> data) throws SQLException {
+        if (multiPstmt == null) {
+            plan.bind(pstmt, data);
+            pstmt.addBatch();
+        } else {
+            addPending(plan.values(data));
+        }
+    }
+
+    public void add(ETLRecord record) throws SQLException {
+        if (multiPstmt == null) {
+            plan.bind(pstmt, record);
+            pstmt.addBatch();
+        } else {
+            addPending(plan.values(record));
+        }
+    }
+
+    /**
+     * 执行剩余批次 ( 调用方随后提交 )
+     *
+     * @throws SQLException
+     */
+    public void executeBatch() throws SQLException {
+        if (pending != null && pending.size() > 0) {
+            for (Object[] values : pending) {
+                plan.bind(pstmt, values, 0);
+                pstmt.addBatch();
+            }
+            pending.clear();
+        }
+        pstmt.executeBatch();
+        pstmt.clearBatch();
+    }
+
+    public void close() {
+        if (multiPstmt != null) {
+            try {
+                multiPstmt.close();
+                multiPstmt = null;
+                logger.debug("@@@ [ 目标数据库 ] 销毁多行插入 PrepareStatement 成功!");
+            } catch (SQLException e) {
+                logger.error("SQL 异常 !", e);
+            }
+        }
+    }
+
+    private void addPending(Object[] values) throws SQLException {
+        pending.add(values);
+        if (pending.size() == rowsPerStatement) {
+            int size = plan.size();
+            for (int i = 0; i < rowsPerStatement; i++) {
+                plan.bind(multiPstmt, pending.get(i), i * size);
+            }
+            multiPstmt.executeUpdate();
+            pending.clear();
+        }
+    }
+}
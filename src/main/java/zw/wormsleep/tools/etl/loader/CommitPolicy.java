@@ -0,0 +1,73 @@
+package zw.wormsleep.tools.etl.loader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 提交策略
+ * <p/>
+ * 将事务提交频率与 JDBC 批次大小分离, 一个事务内可执行多个批次。提交间隔配置格式
+ * 1. 未配置 - 每批次提交 ( 默认 )
+ * 2. 数字 - 按行数提交, 例如 100000
+ * 3. 数字 + ms - 按时间提交 ( 毫秒 ), 例如 5000ms
+ * 4. end - 仅在加载结束时提交一次 ( 适用于清表重载 )
+ *
+ * @author zhaowei
+ */
+public class CommitPolicy {
+    final Logger logger = LoggerFactory.getLogger(CommitPolicy.class);
+
+    private long rowsInterval = 0;
+    private long millisInterval = 0;
+    private boolean atEnd = false;
+    private long uncommitted = 0;
+    private long lastCommit = System.currentTimeMillis();
+
+    /**
+     * @param interval 提交间隔配置 ( 为 null 时每批次提交 )
+     */
+    public CommitPolicy(String interval) {
+        if (interval == null || interval.trim().equals("")) {
+            return;
+        }
+        String value = interval.trim().toLowerCase();
+        try {
+            if (value.equals("end")) {
+                atEnd = true;
+            } else if (value.endsWith("ms")) {
+                millisInterval = Long.parseLong(value.substring(0, value.length() - 2).trim());
+            } else {
+                rowsInterval = Long.parseLong(value);
+            }
+            logger.info("@@@ 提交间隔: {}", value);
+        } catch (NumberFormatException e) {
+            logger.error("@@@ 提交间隔配置无效: {} , 按每批次提交处理 !", interval);
+        }
+    }
+
+    /**
+     * 批次执行完成后判断是否需要提交
+     *
+     * @param rows 本批次行数
+     * @return
+     */
+    public boolean batchExecuted(long rows) {
+        uncommitted += rows;
+        if (atEnd) {
+            return false;
+        } else if (rowsInterval > 0) {
+            return uncommitted >= rowsInterval;
+        } else if (millisInterval > 0) {
+            return System.currentTimeMillis() - lastCommit >= millisInterval;
+        }
+        return true;
+    }
+
+    /**
+     * 已提交
+     */
+    public void committed() {
+        uncommitted = 0;
+        lastCommit = System.currentTimeMillis();
+    }
+}
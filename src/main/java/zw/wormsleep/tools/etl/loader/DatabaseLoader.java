@@ -2,38 +2,86 @@ package zw.wormsleep.tools.etl.loader;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import zw.wormsleep.tools.etl.ETLExtractor;
-import zw.wormsleep.tools.etl.ETLLoader;
-import zw.wormsleep.tools.etl.ETLTransformer;
+import zw.wormsleep.tools.etl.*;
 import zw.wormsleep.tools.etl.config.LoadConfig;
+import zw.wormsleep.tools.etl.database.BindingPlan;
 import zw.wormsleep.tools.etl.database.ConnectionPool;
 import zw.wormsleep.tools.etl.database.DatabaseHelper;
+import zw.wormsleep.tools.etl.record.MapTransformerAdapter;
+import zw.wormsleep.tools.etl.record.ETLRecord;
+import zw.wormsleep.tools.etl.record.RecordSchema;
 
 import java.beans.PropertyVetoException;
+import java.io.Closeable;
+import java.io.IOException;
 import java.sql.*;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-public class DatabaseLoader implements ETLLoader {
+public class DatabaseLoader implements ETLLoader, ETLRecordLoader {
 
     final Logger logger = LoggerFactory.getLogger(DatabaseLoader.class);
 
+    // MySQL 多行插入单条语句最大行数
+    private static final int MAX_ROWS_PER_STATEMENT = 1000;
+    // 单条语句最大参数个数 ( MySQL 预处理语句占位符上限 )
+    private static final int MAX_PARAMETERS = 65535;
+    // 暂存表名最大长度 ( Oracle 标识符上限 30 )
+    private static final int MAX_STAGING_NAME_LENGTH = 30;
+    // 暂存表名序号 ( 同一进程内多个加载器同时加载同一目标表时区分暂存表 )
+    private static final AtomicInteger STAGING_SEQUENCE = new AtomicInteger();
+    // 暂存表名进程标识 ( 区分不同进程 )
+    private static final String STAGING_TOKEN = Integer.toString(36 * 36 + new Random().nextInt(35 * 36 * 36), 36);
+
     private LoadConfig loadConfig;
+    // 自动创建的暂存表名
+    private String stagingTableName;
+    // 是否与其他加载器同时写入同一目标表
+    private boolean sharedTarget = false;
+    // 最近一次加载是否失败
+    private boolean failed = false;
 
     public DatabaseLoader(LoadConfig loadConfig) {
         this.loadConfig = loadConfig;
     }
 
+    /**
+     * @param loadConfig   加载配置
+     * @param sharedTarget 是否与其他加载器同时写入同一目标表 ( 多 Sheet 或分块并行加载 ) ,
+     *                     是则不启用暂存表合并及 Oracle 直接路径插入
+     */
+    public DatabaseLoader(LoadConfig loadConfig, boolean sharedTarget) {
+        this.loadConfig = loadConfig;
+        this.sharedTarget = sharedTarget;
+    }
+
+    /**
+     * 最近一次加载是否因 SQL 或连接池异常中止 ( 异常已记录日志且不向上抛出, 供多任务调度汇总失败 )
+     *
+     * @return
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+
     @Override
     public void load(ETLExtractor extractor,
                      ETLTransformer transformer) {
+        failed = false;
+        // 按位置记录模式 - 抽取器支持时改由记录通道加载
+        if ("record".equalsIgnoreCase(loadConfig.getLoadMode()) && extractor instanceof ETLRecordExtractor) {
+            load((ETLRecordExtractor) extractor, new MapTransformerAdapter(transformer));
+            return;
+        }
+
         Connection conn = null;
-        Statement stmt = null;
-        ResultSet rs = null;
         PreparedStatement pstmt = null;
         int batchSize = loadConfig.getBatchSize();
         Map<Integer, String> params = new HashMap<Integer, String>();
@@ -43,6 +91,522 @@ public class DatabaseLoader implements ETLLoader {
         Map<String, String> poolConfig = loadConfig.getDatabaseConfiguration();
         String table = loadConfig.getTable();
 
+        // 是否以流水线模式加载 ( 抽取、转换、加载三阶段并行 )
+        boolean pipelined = "pipeline".equalsIgnoreCase(loadConfig.getLoadMode());
+        PipelinedWalker pipeline = null;
+        // 并行写入线程数 ( 大于 1 时启用多连接并行写入 )
+        int writerThreads = getWriterThreads();
+        ParallelBatchWriter writer = null;
+        BatchInserter inserter = null;
+        List<String> upsertSQLs = null;
+        Iterator<Map<String, Object>> iter = null;
+
+        try {
+            // 连接数据库
+            conn = ConnectionPool.getConnection(database, poolConfig);
+            // 关闭自动提交
+            conn.setAutoCommit(false);
+            // 是否启用数据库专有批量加载方式
+            boolean bulk = useBulkLoad(writerThreads > 1 || sharedTarget);
+            // 暂存表集合式合并语句 ( 非暂存表合并方式时为 null )
+            upsertSQLs = newUpsertSQLs(bulk, writerThreads > 1 || sharedTarget);
+            // 组装预处理语句 ( 并行写入时各写入连接独立提交, 需先行提交清表操作 )
+            String sql = prepareInsertSQL(conn, params, types, writerThreads > 1, bulk, upsertSQLs);
+            boolean staged = upsertSQLs != null && upsertSQLs.size() > 0;
+            boolean mergeEachBatch = staged && !"load".equalsIgnoreCase(loadConfig.getStagingScope());
+            if (writerThreads > 1) {
+                // 各写入线程在独立连接上创建预处理语句
+                writer = new ParallelBatchWriter(database, poolConfig, sql, params, types, table, writerThreads);
+            } else {
+                logger.info("@@@ 准备 prepareStatement ...");
+                pstmt = conn.prepareStatement(sql);
+                logger.info("@@@ prepareStatement 已创建 !");
+                // 参数绑定计划 ( 按目标字段类型预编译 )
+                BindingPlan plan = new BindingPlan(params, types);
+                inserter = createInserter(conn, pstmt, sql, plan, bulk);
+            }
+            List<Map<String, Object>> batch = new ArrayList<Map<String, Object>>(batchSize);
+            // 获取遍历器
+            long lcnt = 0; // 处理记录数
+            int pending = 0; // 未提交记录数
+            // 批次大小控制 ( 自适应时按提交耗时调整 )
+            AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(loadConfig);
+            // 提交策略 ( 一个事务内可执行多个批次 )
+            CommitPolicy commitPolicy = newCommitPolicy(bulk);
+
+            if (pipelined) {
+                pipeline = new PipelinedWalker(extractor, transformer, loadConfig.getQueueSize());
+                iter = pipeline;
+            } else {
+                iter = extractor.walker();
+            }
+
+            Map<String, Object> data = null;
+
+            long startTime = System.currentTimeMillis();
+
+            while (iter.hasNext()) {
+                data = iter.next();
+                // 优化数据正确性
+                if (data == null) {
+                    continue;
+                }
+                // 数据转换 ( 流水线模式下已由转换阶段完成 )
+                if (!pipelined) {
+                    transformer.transform(data);
+                }
+
+                // 特殊处理 - 向 Oracle 数据库传输数据时, 倍增其大写字段内容
+                Map<String, Object> convertedData = new HashMap<String, Object>();
+                if (dbType.equalsIgnoreCase("oracle")) {
+                    for (String key : data.keySet()) {
+                        convertedData.put(key.toUpperCase(), data.get(key));
+                    }
+                } else {
+                    convertedData = data;
+                }
+
+//				logger.debug("@@@ 待导入数据 {}", data);
+
+                lcnt++;
+                if (writer != null) {
+                    batch.add(convertedData);
+                    if (lcnt % batchSize == 0) {
+                        writer.write(batch);
+                        batch = new ArrayList<Map<String, Object>>(batchSize);
+                        logger.info("已分发：{} 条 - ( {} )", lcnt, table);
+                    }
+                    continue;
+                }
+
+                inserter.add(convertedData);
+                pending++;
+
+                if (pending >= sizer.getBatchSize()) {
+                    long batchStart = System.currentTimeMillis();
+                    inserter.executeBatch();
+                    if (mergeEachBatch) {
+                        executeStatements(conn, upsertSQLs);
+                    }
+                    if (commitPolicy.batchExecuted(pending)) {
+                        conn.commit(); // 提交
+                        commitPolicy.committed();
+                    }
+                    sizer.record(pending, System.currentTimeMillis() - batchStart);
+                    pending = 0;
+                    logger.info("已处理：{} 条 - ( {} )", lcnt, table);
+                }
+
+            }
+
+            if (writer != null) {
+                writer.write(batch);
+                // 等待全部写入线程完成
+                ParallelBatchWriter finished = writer;
+                writer = null;
+                finished.close();
+            } else {
+                inserter.executeBatch();
+                if (staged) {
+                    executeStatements(conn, upsertSQLs);
+                }
+                conn.commit(); // 提交
+            }
+            logger.info("已处理：{} 条 - ( {} )", lcnt, table);
+            logger.info("共计：{} 条 - ( {} )", lcnt, table);
+
+            logConsuming(lcnt, startTime);
+        } catch (SQLException e) {
+            failed = true;
+            logger.error("SQL 异常 !", e);
+        } catch (PropertyVetoException e) {
+            failed = true;
+            logger.error("属性异常 !", e);
+        } finally {
+            if (pipeline != null) {
+                pipeline.shutdown();
+            } else if (iter instanceof Closeable) {
+                // 终止并行抽取读取线程 ( 异常退出时避免其阻塞并占用源数据库连接 )
+                try {
+                    ((Closeable) iter).close();
+                } catch (IOException e) {
+                    logger.error("IO 异常 !", e);
+                }
+            }
+
+            // 异常退出时仍需回收写入线程及其连接
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (SQLException e) {
+                    logger.error("SQL 异常 !", e);
+                }
+            }
+
+            if (inserter != null) {
+                inserter.close();
+            }
+
+            dropStagingTable(conn, upsertSQLs);
+
+            close(pstmt, conn);
+        }
+    }
+
+    /**
+     * 按位置记录加载
+     * <p/>
+     * 预处理语句各参数在加载前一次性解析为记录中的位置序号, 逐行仅按序号取值绑定,
+     * 无需新建或复制 Map ( 包括 Oracle 大写字段处理 )。
+     * 注意: 该通道仅支持串行批量提交 ( 不支持流水线及并行写入 )。
+     *
+     * @param extractor   按位置记录抽取器
+     * @param transformer 按位置记录转换器
+     */
+    @Override
+    public void load(ETLRecordExtractor extractor, ETLRecordTransformer transformer) {
+        failed = false;
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        Map<Integer, String> params = new HashMap<Integer, String>();
+        Map<String, Integer> types = new HashMap<String, Integer>();
+        String dbType = loadConfig.getDatabaseType();
+        String database = loadConfig.getDatabase();
+        Map<String, String> poolConfig = loadConfig.getDatabaseConfiguration();
+        String table = loadConfig.getTable();
+        BatchInserter inserter = null;
+        List<String> upsertSQLs = null;
+
+        try {
+            // 连接数据库
+            conn = ConnectionPool.getConnection(database, poolConfig);
+            // 关闭自动提交
+            conn.setAutoCommit(false);
+            // 是否启用数据库专有批量加载方式
+            boolean bulk = useBulkLoad(sharedTarget);
+            // 暂存表集合式合并语句 ( 非暂存表合并方式时为 null )
+            upsertSQLs = newUpsertSQLs(bulk, sharedTarget);
+            String sql = prepareInsertSQL(conn, params, types, false, bulk, upsertSQLs);
+            boolean staged = upsertSQLs != null && upsertSQLs.size() > 0;
+            boolean mergeEachBatch = staged && !"load".equalsIgnoreCase(loadConfig.getStagingScope());
+            logger.info("@@@ 准备 prepareStatement ...");
+            pstmt = conn.prepareStatement(sql);
+            logger.info("@@@ prepareStatement 已创建 !");
+
+            // 参数位置 -> 记录位置 ( 转换器生成的目标列预先追加至记录结构 )
+            RecordSchema schema = extractor.getSchema();
+            BindingPlan plan = new BindingPlan(params, types);
+            boolean oracle = dbType.equalsIgnoreCase("oracle");
+            if (oracle) {
+                // 与 Map 通道转换后键名转大写一致: 转换器按小写列名写入时与预先追加的大写目标列为同一位置
+                schema.setIgnoreCase(true);
+            }
+            plan.resolve(schema, oracle);
+            logger.info("@@@ 记录结构: {}", schema);
+            inserter = createInserter(conn, pstmt, sql, plan, bulk);
+
+            long lcnt = 0; // 处理记录数
+            int pending = 0; // 未提交记录数
+            // 批次大小控制 ( 自适应时按提交耗时调整 )
+            AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(loadConfig);
+            // 提交策略 ( 一个事务内可执行多个批次 )
+            CommitPolicy commitPolicy = newCommitPolicy(bulk);
+
+            Iterator<ETLRecord> iter = extractor.records();
+
+            long startTime = System.currentTimeMillis();
+
+            while (iter.hasNext()) {
+                ETLRecord record = iter.next();
+                // 数据转换
+                transformer.transform(record);
+
+                lcnt++;
+                inserter.add(record);
+                pending++;
+
+                if (pending >= sizer.getBatchSize()) {
+                    long batchStart = System.currentTimeMillis();
+                    inserter.executeBatch();
+                    if (mergeEachBatch) {
+                        executeStatements(conn, upsertSQLs);
+                    }
+                    if (commitPolicy.batchExecuted(pending)) {
+                        conn.commit(); // 提交
+                        commitPolicy.committed();
+                    }
+                    sizer.record(pending, System.currentTimeMillis() - batchStart);
+                    pending = 0;
+                    logger.info("已处理：{} 条 - ( {} )", lcnt, table);
+                }
+            }
+
+            inserter.executeBatch();
+            if (staged) {
+                executeStatements(conn, upsertSQLs);
+            }
+            conn.commit(); // 提交
+            logger.info("已处理：{} 条 - ( {} )", lcnt, table);
+            logger.info("共计：{} 条 - ( {} )", lcnt, table);
+
+            logConsuming(lcnt, startTime);
+        } catch (SQLException e) {
+            failed = true;
+            logger.error("SQL 异常 !", e);
+        } catch (PropertyVetoException e) {
+            failed = true;
+            logger.error("属性异常 !", e);
+        } finally {
+            if (inserter != null) {
+                inserter.close();
+            }
+
+            dropStagingTable(conn, upsertSQLs);
+
+            close(pstmt, conn);
+        }
+    }
+
+    /**
+     * 是否启用数据库专有批量加载方式
+     * <p/>
+     * 仅限表对表拷贝或加载前清表 ( 目标表无既有数据 ) 的加载: 表对表拷贝本即纯插入;
+     * 加载前清表但配置了主键时保留排重插入 ( 源数据可能含重复主键 ) 。
+     *
+     * @param parallel 是否并行写入 ( 多连接写入或与其他加载器共享目标表 )
+     * @return
+     */
+    private boolean useBulkLoad(boolean parallel) {
+        if (!loadConfig.bulkLoad()) {
+            return false;
+        }
+        String dbType = loadConfig.getDatabaseType();
+        // Oracle 直接路径插入持有表级排他锁, 多连接并行写入时相互阻塞
+        if (parallel && "oracle".equalsIgnoreCase(dbType)) {
+            logger.info("@@@ 并行写入不启用 Oracle 直接路径插入 !");
+            return false;
+        }
+        if (loadConfig.tableToTable()) {
+            return true;
+        }
+        if (!loadConfig.truncateTableBeforeLoad()) {
+            return false;
+        }
+        return !hasKeyFields();
+    }
+
+    /**
+     * 是否配置了主键字段 ( 字段定义或 keyfields , 非表对表拷贝时按主键逐行排重插入 )
+     */
+    private boolean hasKeyFields() {
+        return loadConfig.getFields().containsValue(true) || loadConfig.getKeyFields().size() > 0;
+    }
+
+    /**
+     * 实际并行写入线程数
+     * <p/>
+     * 1. 配置主键字段时各连接会对同一主键并发执行逐行合并 ( MERGE / if exists ... else insert ) ,
+     * 导致唯一约束冲突或重复记录且最终写入值不确定, 故改为单连接写入
+     * 2. 并行写入时各写入线程每批次独立提交, 提交间隔及自适应批次配置不生效
+     *
+     * @return
+     */
+    private int getWriterThreads() {
+        int writerThreads = loadConfig.getWriterThreads();
+        if (writerThreads <= 1) {
+            return writerThreads;
+        }
+        if (!loadConfig.tableToTable() && hasKeyFields()) {
+            logger.warn("@@@ 配置主键字段时并行写入会对同一主键并发排重插入, 改为单连接写入 ( writerthreads: {} ) !", writerThreads);
+            return 1;
+        }
+        if (loadConfig.getCommitInterval() != null || loadConfig.adaptiveBatch()) {
+            logger.warn("@@@ 并行写入各写入线程每批次独立提交, 忽略提交间隔 ( commitinterval: {} ) 及自适应批次 ( adaptivebatch: {} ) 配置 !",
+                    loadConfig.getCommitInterval(), loadConfig.adaptiveBatch());
+        }
+        return writerThreads;
+    }
+
+    /**
+     * 创建提交策略 ( Oracle 直接路径插入后同一事务内不可再次插入, 需每批次提交 )
+     */
+    private CommitPolicy newCommitPolicy(boolean bulk) {
+        if (bulk && "oracle".equalsIgnoreCase(loadConfig.getDatabaseType())) {
+            if (loadConfig.getCommitInterval() != null) {
+                logger.warn("@@@ Oracle 直接路径插入需每批次提交, 忽略提交间隔配置 ( commitinterval: {} ) , 如需按提交间隔提交请关闭 bulkload !",
+                        loadConfig.getCommitInterval());
+            }
+            return new CommitPolicy(null);
+        }
+        return new CommitPolicy(loadConfig.getCommitInterval());
+    }
+
+    /**
+     * 是否以暂存表集合式合并方式排重插入
+     *
+     * @param bulk     是否已启用批量加载 ( 无需排重 )
+     * @param parallel 是否并行写入 ( 多连接写入或与其他加载器共享目标表 )
+     * @return 待填充的合并语句集合, 不采用暂存表合并时返回 null
+     */
+    private List<String> newUpsertSQLs(boolean bulk, boolean parallel) {
+        if (bulk || !"staging".equalsIgnoreCase(loadConfig.getUpsertMode())) {
+            return null;
+        }
+        if (parallel) {
+            logger.info("@@@ 并行写入不支持暂存表合并, 按逐行排重插入处理 !");
+            return null;
+        }
+        return new ArrayList<String>();
+    }
+
+    /**
+     * 准备暂存表 ( 已配置则清空, 否则按目标表结构创建 )
+     *
+     * @param conn 目标数据库连接
+     * @return 暂存表名
+     * @throws SQLException
+     */
+    private String prepareStagingTable(Connection conn) throws SQLException {
+        String stagingTable = loadConfig.getStagingTable();
+        if (stagingTable != null) {
+            DatabaseHelper.executeUpdate(conn, "delete from " + stagingTable);
+            return stagingTable;
+        }
+
+        stagingTable = newStagingTableName(loadConfig.getTable());
+        stagingTableName = stagingTable;
+        // DDL 以自动提交方式执行 ( Sybase select into 不允许在多语句事务中执行 )
+        conn.setAutoCommit(true);
+        try {
+            dropTable(conn, stagingTable);
+            List<String> sqls = new ArrayList<String>();
+            sqls.add(DatabaseHelper.getCreateStagingTableSQL(loadConfig.getDatabaseType(), loadConfig.getTable(), stagingTable));
+            executeStatements(conn, sqls);
+            logger.info("@@@ 暂存表 {} 已创建", stagingTable);
+        } finally {
+            conn.setAutoCommit(false);
+        }
+        return stagingTable;
+    }
+
+    /**
+     * 生成暂存表名 ( 目标表名截断后附加进程标识及序号, 总长不超过 30 , 模式前缀保留 )
+     *
+     * @param table 目标表名
+     * @return
+     */
+    private String newStagingTableName(String table) {
+        int dot = table.lastIndexOf('.');
+        String schema = dot >= 0 ? table.substring(0, dot + 1) : "";
+        String name = table.substring(dot + 1);
+        String suffix = "_S" + STAGING_TOKEN + Integer.toString(STAGING_SEQUENCE.incrementAndGet(), 36);
+        int length = MAX_STAGING_NAME_LENGTH - suffix.length();
+        if (name.length() > length) {
+            name = name.substring(0, length);
+        }
+        return schema + name + suffix;
+    }
+
+    /**
+     * 删除自动创建的暂存表
+     */
+    private void dropStagingTable(Connection conn, List<String> upsertSQLs) {
+        if (conn == null || upsertSQLs == null || upsertSQLs.size() == 0 || stagingTableName == null) {
+            return;
+        }
+        try {
+            conn.rollback();
+            conn.setAutoCommit(true);
+            dropTable(conn, stagingTableName);
+        } catch (SQLException e) {
+            logger.error("SQL 异常 !", e);
+        } finally {
+            stagingTableName = null;
+        }
+    }
+
+    private void dropTable(Connection conn, String table) {
+        Statement stmt = null;
+        try {
+            stmt = conn.createStatement();
+            stmt.executeUpdate("drop table " + table);
+            logger.info("@@@ drop table {}", table);
+        } catch (SQLException e) {
+            // 表不存在时忽略
+            logger.debug("@@@ drop table {} 失败: {}", table, e.getMessage());
+        } finally {
+            if (stmt != null) {
+                try {
+                    stmt.close();
+                } catch (SQLException e) {
+                    logger.error("SQL 异常 !", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 依次执行语句 ( 异常时抛出以中止加载 )
+     */
+    private void executeStatements(Connection conn, List<String> sqls) throws SQLException {
+        Statement stmt = null;
+        try {
+            stmt = conn.createStatement();
+            for (String sql : sqls) {
+                int count = stmt.executeUpdate(sql);
+                logger.debug("@@@ 影响记录数: {} SQL: {}", count, sql);
+            }
+        } finally {
+            if (stmt != null) {
+                try {
+                    stmt.close();
+                } catch (SQLException e) {
+                    logger.error("SQL 异常 !", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 创建批量插入执行器 ( MySQL 批量加载时组装多行 VALUES 语句 )
+     */
+    private BatchInserter createInserter(Connection conn, PreparedStatement pstmt, String sql,
+                                         BindingPlan plan, boolean bulk) throws SQLException {
+        if (bulk && "mysql".equalsIgnoreCase(loadConfig.getDatabaseType()) && plan.size() > 0) {
+            String url = conn.getMetaData().getURL();
+            if (url != null && url.contains("rewriteBatchedStatements=true")) {
+                logger.info("@@@ 批量加载 - 驱动已启用 rewriteBatchedStatements, 由驱动改写为多行 VALUES");
+            } else {
+                int rows = Math.min(Math.min(MAX_ROWS_PER_STATEMENT, MAX_PARAMETERS / plan.size()),
+                        loadConfig.getBatchSize());
+                if (rows > 1) {
+                    return new BatchInserter(conn, pstmt, sql, plan, rows);
+                }
+            }
+        }
+        return new BatchInserter(pstmt, plan);
+    }
+
+    /**
+     * 准备目标表 ( 按需清表 ) 并组装预处理插入语句
+     *
+     * @param conn           目标数据库连接
+     * @param params         参数位置集合 ( 输出 )
+     * @param types          参数数据库字段类型集合 ( 输出 )
+     * @param commitTruncate 清表后是否立即提交
+     * @param bulk           是否以批量加载方式组装 ( 非排重纯插入 )
+     * @param upsertSQLs     暂存表集合式合并语句 ( 输出, 为 null 时不采用暂存表合并 )
+     * @return 参数已替换为 ? 的预处理语句
+     * @throws SQLException
+     */
+    private String prepareInsertSQL(Connection conn, Map<Integer, String> params,
+                                    Map<String, Integer> types, boolean commitTruncate,
+                                    boolean bulk, List<String> upsertSQLs) throws SQLException {
+        Statement stmt = null;
+        ResultSet rs = null;
+        String dbType = loadConfig.getDatabaseType();
+        String table = loadConfig.getTable();
+
         /**
          * 关于目标表字段生成的处理需要说明下
          * 1. 为了兼容目标表字段的配置化和简化处理
@@ -93,14 +657,13 @@ public class DatabaseLoader implements ETLLoader {
         logger.info("@@@ 目的表 Select SQL: {}", selectSQL);
 
         try {
-            // 连接数据库
-            conn = ConnectionPool.getConnection(database, poolConfig);
-            // 关闭自动提交
-            conn.setAutoCommit(false);
             // *** 若进行表对表拷贝, 则首先清除目标表
             if (isTable2Table || truncateTableBeforeLoad) {
                 DatabaseHelper.executeUpdate(conn, "truncate table " + table);
                 logger.info("@@@ truncate table {}", table);
+                if (commitTruncate) {
+                    conn.commit();
+                }
             }
             // 获取数据类型集合
             stmt = conn.createStatement();
@@ -138,8 +701,21 @@ public class DatabaseLoader implements ETLLoader {
                 _fields = fields;
             }
 
-            String sql = DatabaseHelper
-                    .getBatchInsertSQL((isTable2Table ? null : dbType), table, _fields, updateFields, ignoreUpdate);
+            String sql;
+            if (bulk) {
+                sql = DatabaseHelper.getBulkInsertSQL(dbType, table, _fields);
+                logger.info("@@@ 批量加载 - 数据库类型: {}", dbType);
+            } else if (upsertSQLs != null && !isTable2Table && _fields.containsValue(true)) {
+                // 暂存表合并 - 批量纯插入暂存表, 再以集合式语句合并至目标表
+                String stagingTable = prepareStagingTable(conn);
+                upsertSQLs.addAll(DatabaseHelper.getStagingUpsertSQLs(dbType, table, stagingTable,
+                        _fields, updateFields, ignoreUpdate));
+                sql = DatabaseHelper.assembleDefaultBatchInsertSQL(stagingTable, _fields);
+                logger.info("@@@ 暂存表合并 - 暂存表: {} 合并语句: {}", stagingTable, upsertSQLs);
+            } else {
+                sql = DatabaseHelper
+                        .getBatchInsertSQL((isTable2Table ? null : dbType), table, _fields, updateFields, ignoreUpdate);
+            }
             logger.info("@@@ Insert SQL - 预处理 {} ", sql);
             // *****************
             // if(true) return;
@@ -155,65 +731,8 @@ public class DatabaseLoader implements ETLLoader {
             // 创建 pre
             sql = sql.replaceAll(regex, "?");
             logger.info("@@@ SQL : {}", sql);
-            logger.info("@@@ 准备 prepareStatement ...");
-            pstmt = conn.prepareStatement(sql);
-            logger.info("@@@ prepareStatement 已创建 !");
-            // 获取遍历器
-            long lcnt = 0; // 处理记录数
-
-            Iterator<Map<String, Object>> iter = extractor.walker();
 
-            Map<String, Object> data = null;
-
-            long startTime = System.currentTimeMillis();
-
-            while (iter.hasNext()) {
-                data = iter.next();
-                // 优化数据正确性
-                if (data == null) {
-                    continue;
-                }
-                // 数据转换
-                transformer.transform(data);
-
-                // 特殊处理 - 向 Oracle 数据库传输数据时, 倍增其大写字段内容
-                Map<String, Object> convertedData = new HashMap<String, Object>();
-                if (dbType.equalsIgnoreCase("oracle")) {
-                    for (String key : data.keySet()) {
-                        convertedData.put(key.toUpperCase(), data.get(key));
-                    }
-                } else {
-                    convertedData = data;
-                }
-
-//				logger.debug("@@@ 待导入数据 {}", data);
-
-                lcnt++;
-                DatabaseHelper.fillParamters(pstmt, convertedData, params, types);
-
-                pstmt.addBatch();
-                if (lcnt % batchSize == 0) {
-                    pstmt.executeBatch();
-                    conn.commit(); // 提交
-                    pstmt.clearBatch();
-                    logger.info("已处理：{} 条 - ( {} )", lcnt, table);
-                }
-
-            }
-
-            pstmt.executeBatch();
-            conn.commit(); // 提交
-            logger.info("已处理：{} 条 - ( {} )", lcnt, table);
-            logger.info("共计：{} 条 - ( {} )", lcnt, table);
-
-            long endTime = System.currentTimeMillis();
-            long consuming = (endTime - startTime) / 1000;
-            logger.info("耗时 : {} ", (consuming / 60) > 0 ? (String.valueOf(consuming / 60) + " 分钟") : (consuming > 0 ? consuming + " 秒" : String.valueOf(endTime - startTime) + " 毫秒"));
-            logger.info("平均 : {} ", consuming > 0 ? ((((lcnt * 60) / (consuming * 10000)) > 0) ? String.valueOf((lcnt * 60) / (consuming * 10000)) + " 万条/分钟" : String.valueOf(lcnt / consuming) + " 条/秒") : ((lcnt - (endTime - startTime) > 0 ? String.valueOf(lcnt / (endTime - startTime)) : "小于 1") + " 条/毫秒"));
-        } catch (SQLException e) {
-            logger.error("SQL 异常 !", e);
-        } catch (PropertyVetoException e) {
-            logger.error("属性异常 !", e);
+            return sql;
         } finally {
             if (rs != null) {
                 try {
@@ -234,29 +753,37 @@ public class DatabaseLoader implements ETLLoader {
                     logger.error("SQL 异常 !", e);
                 }
             }
+        }
+    }
 
-            if (pstmt != null) {
-                try {
-                    pstmt.close();
-                    pstmt = null;
-                    logger.debug("@@@ [ 目标数据库 ] 销毁 PrepareStatement 成功!");
-                } catch (SQLException e) {
-                    logger.error("SQL 异常 !", e);
-                }
+    private void logConsuming(long lcnt, long startTime) {
+        long endTime = System.currentTimeMillis();
+        long consuming = (endTime - startTime) / 1000;
+        logger.info("耗时 : {} ", (consuming / 60) > 0 ? (String.valueOf(consuming / 60) + " 分钟") : (consuming > 0 ? consuming + " 秒" : String.valueOf(endTime - startTime) + " 毫秒"));
+        logger.info("平均 : {} ", consuming > 0 ? ((((lcnt * 60) / (consuming * 10000)) > 0) ? String.valueOf((lcnt * 60) / (consuming * 10000)) + " 万条/分钟" : String.valueOf(lcnt / consuming) + " 条/秒") : ((lcnt - (endTime - startTime) > 0 ? String.valueOf(lcnt / (endTime - startTime)) : "小于 1") + " 条/毫秒"));
+    }
+
+    private void close(PreparedStatement pstmt, Connection conn) {
+        if (pstmt != null) {
+            try {
+                pstmt.close();
+                pstmt = null;
+                logger.debug("@@@ [ 目标数据库 ] 销毁 PrepareStatement 成功!");
+            } catch (SQLException e) {
+                logger.error("SQL 异常 !", e);
             }
+        }
 
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                    conn = null;
-                    logger.debug("@@@ [ 目标数据库 ] 销毁 Connection 成功!");
-                } catch (SQLException e) {
-                    logger.error("SQL 异常 !", e);
-                }
+        if (conn != null) {
+            try {
+                conn.setAutoCommit(true);
+                conn.close();
+                conn = null;
+                logger.debug("@@@ [ 目标数据库 ] 销毁 Connection 成功!");
+            } catch (SQLException e) {
+                logger.error("SQL 异常 !", e);
             }
         }
     }
 
-
 }
@@ -6,7 +6,7 @@ import zw.wormsleep.tools.etl.ETLExtractor;
 import zw.wormsleep.tools.etl.ETLLoader;
 import zw.wormsleep.tools.etl.ETLTransformer;
 import zw.wormsleep.tools.etl.config.LoadConfig;
-import zw.wormsleep.tools.etl.database.DatabaseHelper;
+import zw.wormsleep.tools.etl.database.BindingPlan;
 import zw.wormsleep.tools.etl.database.PreparedStatementPool;
 
 import java.sql.Connection;
@@ -17,15 +17,17 @@ import java.util.Map;
 
 public class DatabasePlusLoader implements ETLLoader {
 
-    private static final Integer BATCH_SIZE = 200;
     final Logger logger = LoggerFactory.getLogger(DatabaseLoader.class);
     private String businessType;
     private LoadConfig loadConfig;
+    // 批次大小控制 ( 多次加载间保留已调整的批次大小 )
+    private AdaptiveBatchSizer sizer;
 
 
     public DatabasePlusLoader(String businessType, LoadConfig loadConfig) {
         this.businessType = businessType;
         this.loadConfig = loadConfig;
+        this.sizer = new AdaptiveBatchSizer(loadConfig);
     }
 
     @SuppressWarnings("unchecked")
@@ -47,8 +49,11 @@ public class DatabasePlusLoader implements ETLLoader {
             Map<Integer, String> params = (Map<Integer, String>) pstmtObject.get("params");
             // 获取数据类型
             Map<String, Integer> types = (Map<String, Integer>) pstmtObject.get("types");
+            // 参数绑定计划 ( 按目标字段类型预编译 )
+            BindingPlan plan = new BindingPlan(params, types);
             // 获取遍历器
             long lcnt = 0; // 处理记录数
+            int pending = 0; // 未提交记录数
 
             Iterator<Map<String, Object>> iter = extractor.walker();
 
@@ -64,12 +69,16 @@ public class DatabasePlusLoader implements ETLLoader {
                 // logger.info("处理行号：{}", row + 1);
                 // *************************************************
                 lcnt++;
-                DatabaseHelper.fillParamters(pstmt, data, params, types);
+                plan.bind(pstmt, data);
                 pstmt.addBatch();
-                if (lcnt % BATCH_SIZE == 0) {
+                pending++;
+                if (pending >= sizer.getBatchSize()) {
+                    long batchStart = System.currentTimeMillis();
                     pstmt.executeBatch();
                     conn.commit(); // 提交
                     pstmt.clearBatch();
+                    sizer.record(pending, System.currentTimeMillis() - batchStart);
+                    pending = 0;
                     logger.info("已处理：" + lcnt + " 条");
                 }
             }
@@ -1,18 +1,217 @@
 package zw.wormsleep.tools.etl.loader;
 
+import org.apache.commons.io.FilenameUtils;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import zw.wormsleep.tools.etl.ETLExtractor;
 import zw.wormsleep.tools.etl.ETLLoader;
 import zw.wormsleep.tools.etl.ETLTransformer;
+import zw.wormsleep.tools.etl.config.LoadConfig;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Excel ( xlsx ) 流式输出
+ * <p/>
+ * 基于 POI SXSSFWorkbook, 内存中仅保留最近 ROW_WINDOW 行, 其余行写入临时文件, 内存占用与输出行数无关。
+ * 1. 单个 Sheet 达到 xlsx 最大行数时自动新建 Sheet
+ * 2. 配置 maxrowsperfile 时按该行数拆分文件, 子文件名为 文件名 + 序号 ( 与 GExcelLoader 一致 )
+ * 3. 配置 withheader 时每个 Sheet 首行输出字段名
+ * 4. 按值类型写入单元格 ( 数值、日期、布尔、文本 )
+ *
+ * @author zhaowei
+ */
 public class ExcelLoader implements ETLLoader {
     final Logger logger = LoggerFactory.getLogger(ExcelLoader.class);
 
+    // 内存中保留的行数
+    private static final int ROW_WINDOW = 1000;
+    // 单个 Sheet 最大行数
+    private static final int MAX_SHEET_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows();
+    // 单元格最大文本长度
+    private static final int MAX_TEXT_LENGTH = 32767;
+    // 超过该绝对值的整数以文本写入 ( Excel 数值精度为 15 位 )
+    private static final long MAX_EXACT_NUMBER = 999999999999999L;
+
+    private LoadConfig loadConfig;
+    private File destination;
+    private List<String> fields;
+    private boolean withHeader;
+    private int maxRowsPerFile;
+
+    private SXSSFWorkbook workbook;
+    private Sheet sheet;
+    private CellStyle dateStyle;
+    private CellStyle timestampStyle;
+    private int sheetRows;
+    private int fileRows;
+    private int fileIndex = 0;
+
+    public ExcelLoader(LoadConfig loadConfig, File destination) {
+        this.loadConfig = loadConfig;
+        this.destination = destination;
+
+        initial();
+    }
+
+    private void initial() {
+        fields = new ArrayList<String>(loadConfig.getFields().keySet());
+        withHeader = loadConfig.withHeader();
+        maxRowsPerFile = loadConfig.getMaxRowsNumberPerFile();
+    }
+
     @Override
     public void load(ETLExtractor extractor, ETLTransformer transformer) {
-        // TODO Auto-generated method stub
+        logger.info("@@@ 导出任务开始 - 目标文件: {}", destination.getAbsolutePath());
+        long startTime = System.currentTimeMillis();
+        long lcnt = 0;
+
+        try {
+            Iterator<Map<String, Object>> iter = extractor.walker();
+            Map<String, Object> row = null;
+            while (iter.hasNext()) {
+                row = iter.next();
+                // 优化数据正确性
+                if (row.size() < 1) {
+                    continue;
+                }
+                // 转换抽取数据
+                transformer.transform(row);
+
+                // 达到单个文件最大行数时输出当前文件并新建文件
+                if (workbook != null && maxRowsPerFile > 0 && fileRows >= maxRowsPerFile) {
+                    write(subFile(fileIndex++));
+                }
+                if (workbook == null) {
+                    newWorkbook();
+                }
+                if (sheetRows >= MAX_SHEET_ROWS) {
+                    newSheet();
+                }
+
+                writeRow(row);
+                fileRows++;
+                lcnt++;
+            }
 
+            if (workbook != null) {
+                write(fileIndex > 0 ? subFile(fileIndex) : destination);
+            }
+
+            long endTime = System.currentTimeMillis();
+            long consuming = (endTime - startTime) / 1000;
+            logger.info("共计：{} 条", lcnt);
+            logger.info("耗时 : {} ", (consuming / 60) > 0 ? (String.valueOf(consuming / 60) + " 分钟") : (consuming > 0 ? consuming + " 秒" : String.valueOf(endTime - startTime) + " 毫秒"));
+        } catch (IOException e) {
+            logger.error("IO 异常 !", e);
+        } finally {
+            dispose();
+        }
+    }
+
+    private File subFile(int index) {
+        String filename = destination.getName();
+        return new File(destination.getParent(), FilenameUtils.getBaseName(filename)
+                + String.valueOf(index) + "." + FilenameUtils.getExtension(filename));
     }
 
+    private void newWorkbook() {
+        workbook = new SXSSFWorkbook(ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+
+        short dateFormat = workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd");
+        dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(dateFormat);
+        short timestampFormat = workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd hh:mm:ss");
+        timestampStyle = workbook.createCellStyle();
+        timestampStyle.setDataFormat(timestampFormat);
+
+        fileRows = 0;
+        newSheet();
+    }
+
+    private void newSheet() {
+        sheet = workbook.createSheet();
+        sheetRows = 0;
+        if (withHeader) {
+            Row header = sheet.createRow(sheetRows++);
+            for (int i = 0; i < fields.size(); i++) {
+                header.createCell(i).setCellValue(fields.get(i));
+            }
+        }
+    }
+
+    private void writeRow(Map<String, Object> data) {
+        Row row = sheet.createRow(sheetRows++);
+        for (int i = 0; i < fields.size(); i++) {
+            Object value = data.get(fields.get(i));
+            if (value == null) continue;
+
+            Cell cell = row.createCell(i);
+            if (value instanceof Number) {
+                setNumber(cell, (Number) value);
+            } else if (value instanceof Date) {
+                cell.setCellValue((Date) value);
+                cell.setCellStyle(value instanceof java.sql.Date ? dateStyle : timestampStyle);
+            } else if (value instanceof Boolean) {
+                cell.setCellValue((Boolean) value);
+            } else {
+                setText(cell, value.toString());
+            }
+        }
+    }
+
+    private void setNumber(Cell cell, Number value) {
+        if (value instanceof BigDecimal || value instanceof BigInteger || value instanceof Long) {
+            // 超出 Excel 数值精度的整数部分以文本写入, 避免丢失精度
+            BigDecimal decimal = value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString());
+            if (decimal.abs().compareTo(BigDecimal.valueOf(MAX_EXACT_NUMBER)) > 0) {
+                setText(cell, decimal.toPlainString());
+                return;
+            }
+        }
+        cell.setCellValue(value.doubleValue());
+    }
+
+    private void setText(Cell cell, String text) {
+        cell.setCellValue(text.length() > MAX_TEXT_LENGTH ? text.substring(0, MAX_TEXT_LENGTH) : text);
+    }
+
+    private void write(File file) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            workbook.write(out);
+        } finally {
+            out.close();
+            dispose();
+        }
+        logger.info("@@@ 输出文件: {} ( {} 条 )", file.getAbsolutePath(), fileRows);
+    }
+
+    /**
+     * 删除 SXSSF 临时文件
+     */
+    private void dispose() {
+        if (workbook != null) {
+            workbook.dispose();
+            workbook = null;
+            sheet = null;
+        }
+    }
 }
@@ -0,0 +1,255 @@
+package zw.wormsleep.tools.etl.loader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import zw.wormsleep.tools.etl.database.BindingPlan;
+import zw.wormsleep.tools.etl.database.ConnectionPool;
+
+import java.beans.PropertyVetoException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多连接并行批量写入器
+ * <p/>
+ * 加载线程将组装完成的批次投递至有界队列, N 个写入线程各自从连接池获取独立连接并创建
+ * PreparedStatement, 执行批量提交后独立 commit。队列满时加载线程阻塞等待 ( 背压 )。
+ * <p/>
+ * 注意: 各批次提交顺序不确定, 不适用于同一主键可能出现在不同批次中的排重插入 ( 配置主键字段时 DatabaseLoader 改为单连接写入 ) ;
+ * 各批次独立提交, 不支持提交间隔及自适应批次。
+ *
+ * @author zhaowei
+ */
+public class ParallelBatchWriter {
+    final Logger logger = LoggerFactory.getLogger(ParallelBatchWriter.class);
+
+    // 结束标记 ( 通过引用比较识别 )
+    private static final List<Map<String, Object>> END = new ArrayList<Map<String, Object>>(0);
+
+    private String table;
+    private BlockingQueue<List<Map<String, Object>>> queue;
+    private List<Writer> writers = new ArrayList<Writer>();
+    private volatile SQLException failure;
+
+    /**
+     * @param database      目标数据库节点名称
+     * @param poolConfig    目标数据库连接池配置
+     * @param sql           预处理插入语句 ( 参数已替换为 ? )
+     * @param params        参数位置集合
+     * @param types         参数数据库字段类型集合
+     * @param table         目标表名 ( 日志使用 )
+     * @param writerThreads 写入线程数
+     * @throws SQLException
+     * @throws PropertyVetoException
+     */
+    public ParallelBatchWriter(String database, Map<String, String> poolConfig, String sql,
+                               Map<Integer, String> params, Map<String, Integer> types,
+                               String table, int writerThreads) throws SQLException, PropertyVetoException {
+        this.table = table;
+        // 绑定计划不含可变状态, 可由各写入线程共享
+        BindingPlan plan = new BindingPlan(params, types);
+        this.queue = new ArrayBlockingQueue<List<Map<String, Object>>>(writerThreads * 2);
+
+        try {
+            for (int i = 0; i < writerThreads; i++) {
+                Writer writer = new Writer(i + 1, ConnectionPool.getConnection(database, poolConfig), plan);
+                writers.add(writer);
+                writer.prepare(sql);
+            }
+        } catch (SQLException e) {
+            release();
+            throw e;
+        } catch (PropertyVetoException e) {
+            release();
+            throw e;
+        }
+
+        for (Writer writer : writers) {
+            writer.start();
+        }
+
+        logger.info("@@@ 并行写入已启动 - 表: {} 写入线程数: {}", table, writerThreads);
+    }
+
+    /**
+     * 投递批次 ( 队列满时阻塞 )
+     *
+     * @param batch 待写入批次
+     * @throws SQLException 任一写入线程已失败时抛出
+     */
+    public void write(List<Map<String, Object>> batch) throws SQLException {
+        if (batch.isEmpty()) return;
+        try {
+            while (!queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                checkFailure();
+                checkAlive();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("并行写入投递被中断 !", e);
+        }
+        checkFailure();
+    }
+
+    /**
+     * 等待全部批次写入完成并输出各写入线程吞吐量报告
+     *
+     * @throws SQLException 任一写入线程失败时抛出
+     */
+    public void close() throws SQLException {
+        try {
+            boolean alive = true;
+            for (int i = 0; i < writers.size() && alive; i++) {
+                while (!queue.offer(END, 100, TimeUnit.MILLISECONDS)) {
+                    // 写入线程已全部退出时无需继续投递
+                    if (!isAnyWriterAlive()) {
+                        alive = false;
+                        break;
+                    }
+                }
+            }
+            for (Writer writer : writers) {
+                writer.join();
+            }
+            // 写入线程均已退出但队列中仍有未写入批次
+            if (failure == null) {
+                for (List<Map<String, Object>> batch : queue) {
+                    if (batch != END) {
+                        failure = new SQLException("并行写入线程已全部退出, 尚有未写入批次 - 表: " + table);
+                        break;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            for (Writer writer : writers) {
+                writer.interrupt();
+            }
+        } finally {
+            release();
+        }
+
+        long rows = 0;
+        for (Writer writer : writers) {
+            rows += writer.rows;
+            logger.info("@@@ 写入线程 {} - 表: {} 批次: {} 条数: {} 耗时: {} 毫秒 平均: {} 条/秒",
+                    writer.getName(), table, writer.batches, writer.rows, writer.elapsed,
+                    writer.elapsed > 0 ? (writer.rows * 1000 / writer.elapsed) : writer.rows);
+        }
+        logger.info("@@@ 并行写入完成 - 表: {} 共计: {} 条", table, rows);
+
+        checkFailure();
+    }
+
+    private void checkFailure() throws SQLException {
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // 写入线程已全部退出时不再等待投递
+    private void checkAlive() throws SQLException {
+        if (!isAnyWriterAlive()) {
+            throw new SQLException("并行写入线程已全部退出 - 表: " + table);
+        }
+    }
+
+    private boolean isAnyWriterAlive() {
+        for (Writer writer : writers) {
+            if (writer.isAlive()) return true;
+        }
+        return false;
+    }
+
+    private void release() {
+        for (Writer writer : writers) {
+            writer.release();
+        }
+    }
+
+    private class Writer extends Thread {
+        private Connection conn;
+        private PreparedStatement pstmt;
+        private BindingPlan plan;
+        long rows = 0;
+        long batches = 0;
+        long elapsed = 0;
+
+        Writer(int no, Connection conn, BindingPlan plan) {
+            super("etl-writer-" + no);
+            setDaemon(true);
+            this.conn = conn;
+            this.plan = plan;
+        }
+
+        void prepare(String sql) throws SQLException {
+            conn.setAutoCommit(false);
+            pstmt = conn.prepareStatement(sql);
+        }
+
+        @Override
+        public void run() {
+            try {
+                List<Map<String, Object>> batch;
+                while ((batch = queue.take()) != END) {
+                    // 其他写入线程已失败时丢弃剩余批次
+                    if (failure != null) continue;
+
+                    long start = System.currentTimeMillis();
+                    for (Map<String, Object> data : batch) {
+                        plan.bind(pstmt, data);
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                    conn.commit(); // 提交
+                    pstmt.clearBatch();
+                    elapsed += System.currentTimeMillis() - start;
+
+                    rows += batch.size();
+                    batches++;
+                }
+            } catch (InterruptedException e) {
+                logger.info("@@@ 写入线程 {} 已终止", getName());
+            } catch (Throwable e) {
+                // 任何异常 ( 如绑定参数时的运行时异常 ) 均记录为失败, 避免加载线程无限等待
+                logger.error("@@@ 写入线程 " + getName() + " 异常 !", e);
+                failure = e instanceof SQLException ? (SQLException) e
+                        : new SQLException("并行写入线程异常 - 表: " + table, e);
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    logger.error("SQL 异常 !", ex);
+                }
+            }
+        }
+
+        synchronized void release() {
+            if (pstmt != null) {
+                try {
+                    pstmt.close();
+                    pstmt = null;
+                } catch (SQLException e) {
+                    logger.error("SQL 异常 !", e);
+                }
+            }
+
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                    conn = null;
+                    logger.debug("@@@ [ 目标数据库 ] 写入线程 {} 销毁 Connection 成功!", getName());
+                } catch (SQLException e) {
+                    logger.error("SQL 异常 !", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package zw.wormsleep.tools.etl.loader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import zw.wormsleep.tools.etl.ETLExtractor;
+import zw.wormsleep.tools.etl.ETLTransformer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 抽取、转换流水线遍历器
+ * <p/>
+ * 抽取与转换分别在独立线程中执行, 阶段之间通过有界阻塞队列衔接。
+ * 队列满时上游阶段阻塞等待 ( 背压 ), 调用方线程仅负责参数绑定及批量提交,
+ * 从而使源数据库读取、转换计算与目标数据库写入同时进行。
+ *
+ * @author zhaowei
+ */
+public class PipelinedWalker implements Iterator<Map<String, Object>> {
+    final Logger logger = LoggerFactory.getLogger(PipelinedWalker.class);
+
+    // 结束标记 ( 通过引用比较识别 )
+    private static final Map<String, Object> END = new HashMap<String, Object>(0);
+
+    private BlockingQueue<Map<String, Object>> extracted;
+    private BlockingQueue<Map<String, Object>> transformed;
+    private Thread extractThread;
+    private Thread transformThread;
+    private volatile Throwable failure;
+    private volatile boolean terminated = false;
+    private Map<String, Object> current;
+    private boolean finished = false;
+
+    public PipelinedWalker(ETLExtractor extractor, ETLTransformer transformer, int queueSize) {
+        int capacity = queueSize > 0 ? queueSize : 1;
+        extracted = new ArrayBlockingQueue<Map<String, Object>>(capacity);
+        transformed = new ArrayBlockingQueue<Map<String, Object>>(capacity);
+
+        extractThread = new ExtractStage(extractor);
+        transformThread = new TransformStage(transformer);
+        extractThread.start();
+        transformThread.start();
+
+        logger.info("@@@ 流水线已启动 - 队列深度: {}", capacity);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (finished) return false;
+        if (current != null) return true;
+
+        try {
+            current = transformed.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            shutdown();
+            throw new IllegalStateException("流水线加载阶段被中断 !", e);
+        }
+
+        if (current == END) {
+            current = null;
+            finished = true;
+            if (failure != null) {
+                throw new IllegalStateException("流水线上游阶段异常 !", failure);
+            }
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public Map<String, Object> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Map<String, Object> result = current;
+        current = null;
+        return result;
+    }
+
+    @Override
+    public void remove() {
+    }
+
+    /**
+     * 终止上游阶段 ( 加载异常退出时调用, 避免阶段线程阻塞在已满的队列上 )
+     */
+    public void shutdown() {
+        finished = true;
+        terminated = true;
+        extractThread.interrupt();
+        transformThread.interrupt();
+    }
+
+    private class ExtractStage extends Thread {
+        private ETLExtractor extractor;
+
+        ExtractStage(ETLExtractor extractor) {
+            super("etl-pipeline-extract");
+            setDaemon(true);
+            this.extractor = extractor;
+        }
+
+        @Override
+        public void run() {
+            long cnt = 0;
+            Iterator<Map<String, Object>> iter = null;
+            try {
+                iter = extractor.walker();
+                while (iter.hasNext()) {
+                    Map<String, Object> data = iter.next();
+                    // 优化数据正确性
+                    if (data == null) {
+                        continue;
+                    }
+                    extracted.put(data);
+                    cnt++;
+                }
+                logger.info("@@@ 流水线抽取阶段完成 - 共计: {} 条", cnt);
+            } catch (InterruptedException e) {
+                // 下游已不再消费, 无需投递结束标记
+                logger.info("@@@ 流水线抽取阶段已终止 - 已抽取: {} 条", cnt);
+                close(iter);
+                return;
+            } catch (Throwable e) {
+                logger.error("流水线抽取阶段异常 !", e);
+                failure = e;
+                close(iter);
+            }
+            offerEnd(extracted);
+        }
+    }
+
+    private class TransformStage extends Thread {
+        private ETLTransformer transformer;
+
+        TransformStage(ETLTransformer transformer) {
+            super("etl-pipeline-transform");
+            setDaemon(true);
+            this.transformer = transformer;
+        }
+
+        @Override
+        public void run() {
+            try {
+                Map<String, Object> data;
+                while ((data = extracted.take()) != END) {
+                    // 抽取阶段异常后丢弃剩余数据
+                    if (failure != null) continue;
+                    transformer.transform(data);
+                    transformed.put(data);
+                }
+            } catch (InterruptedException e) {
+                logger.info("@@@ 流水线转换阶段已终止");
+            } catch (Throwable e) {
+                logger.error("流水线转换阶段异常 !", e);
+                failure = e;
+                // 转换阶段不再消费, 终止抽取阶段
+                extractThread.interrupt();
+            } finally {
+                offerEnd(transformed);
+            }
+        }
+    }
+
+    /**
+     * 终止抽取遍历器 ( 如并行抽取的读取线程 )
+     */
+    private void close(Iterator<Map<String, Object>> iter) {
+        if (iter instanceof Closeable) {
+            try {
+                ((Closeable) iter).close();
+            } catch (IOException e) {
+                logger.error("IO 异常 !", e);
+            }
+        }
+    }
+
+    /**
+     * 向下游队列投递结束标记。若流水线已终止则下游不再消费, 放弃投递即可
+     */
+    private void offerEnd(BlockingQueue<Map<String, Object>> queue) {
+        try {
+            while (!terminated) {
+                if (queue.offer(END, 100, TimeUnit.MILLISECONDS)) return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
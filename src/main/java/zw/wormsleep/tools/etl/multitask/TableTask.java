@@ -0,0 +1,14 @@
+package zw.wormsleep.tools.etl.multitask;
+
+/**
+ * 表任务 - 提供调度所需的名称、源/目标数据库及估算行数
+ */
+public interface TableTask extends Task {
+    String getName(); // 任务名称 ( 日志使用 )
+
+    String getSource(); // 源数据库 ( 配置节点名 , 并发限制使用 )
+
+    String getTarget(); // 目标数据库 ( 配置节点名 , 并发限制使用 )
+
+    long getEstimatedRows(); // 估算行数 ( 未知为 -1 )
+}
@@ -68,7 +68,11 @@ public class NTaskPerThread implements MultiTaskMultiThread {
             long sm = System.currentTimeMillis();
             int taskCount = end - start;
             for (; start < end; start++) {
-                tasks.get(start).execute();
+                try {
+                    tasks.get(start).execute();
+                } catch (RuntimeException e) {
+                    logger.error("@@@ 任务异常 !", e);
+                }
             }
             logger.info("@@@ 线程 {} 分配任务数 {} 个共耗时 {} 毫秒.", Thread
                             .currentThread().getName(), taskCount,
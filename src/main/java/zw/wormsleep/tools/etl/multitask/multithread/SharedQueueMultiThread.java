@@ -0,0 +1,242 @@
+package zw.wormsleep.tools.etl.multitask.multithread;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import zw.wormsleep.tools.etl.multitask.MultiTaskMultiThread;
+import zw.wormsleep.tools.etl.multitask.TableTask;
+import zw.wormsleep.tools.etl.multitask.Task;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * N个任务,M个线程从共享任务队列动态领取
+ * <p/>
+ * 1. 任务按估算行数降序排列 ( 大表优先, 行数未知的排在最后, 其余保持原有顺序 ) , 线程空闲即领取下一个任务,
+ * 耗时长的任务不会集中于同一线程
+ * 2. 可限制同一源数据库及同一目标数据库的最大并发任务数: 队首任务受限时领取其后首个不受限的任务, 全部受限时等待运行中的任务完成
+ * 3. executeBatch 阻塞至全部任务完成, 输出各任务耗时及失败汇总
+ * 非 TableTask 任务行数未知且不受并发限制。
+ *
+ * @author zhaowei
+ */
+public class SharedQueueMultiThread implements MultiTaskMultiThread {
+    final Logger logger = LoggerFactory.getLogger(SharedQueueMultiThread.class);
+
+    // 大表优先 ( 行数未知排在最后 )
+    private static final Comparator<Entry> LARGEST_FIRST = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry o1, Entry o2) {
+            if (o1.rows == o2.rows) return 0;
+            return o1.rows > o2.rows ? -1 : 1;
+        }
+    };
+
+    private List<Task> tasks;
+    private int threadCount;
+    private int maxPerSource;
+    private int maxPerTarget;
+
+    private final LinkedList<Entry> queue = new LinkedList<Entry>();
+    private final Map<String, Integer> runningPerSource = new HashMap<String, Integer>();
+    private final Map<String, Integer> runningPerTarget = new HashMap<String, Integer>();
+    private final List<Entry> finished = new ArrayList<Entry>();
+
+    public SharedQueueMultiThread(List<Task> tasks, int threadCount) {
+        this(tasks, threadCount, 0, 0);
+    }
+
+    /**
+     * @param tasks        任务
+     * @param threadCount  线程数
+     * @param maxPerSource 同一源数据库最大并发任务数 ( 0 为不限 )
+     * @param maxPerTarget 同一目标数据库最大并发任务数 ( 0 为不限 )
+     */
+    public SharedQueueMultiThread(List<Task> tasks, int threadCount, int maxPerSource, int maxPerTarget) {
+        this.tasks = tasks != null ? tasks : new ArrayList<Task>();
+        this.threadCount = Math.max(1, threadCount);
+        this.maxPerSource = maxPerSource;
+        this.maxPerTarget = maxPerTarget;
+    }
+
+    @Override
+    public void executeBatch() {
+
+        // 无任务直接返回
+        if (tasks.isEmpty()) return;
+
+        List<Entry> entries = new ArrayList<Entry>();
+        for (int i = 0; i < tasks.size(); i++) {
+            entries.add(new Entry(tasks.get(i), i));
+        }
+        Collections.sort(entries, LARGEST_FIRST);
+        synchronized (queue) {
+            queue.clear();
+            queue.addAll(entries);
+            finished.clear();
+        }
+
+        // 若任务数小于线程数则令线程数等于任务数
+        int threads = Math.min(threadCount, entries.size());
+        logger.info("@@@ 多线程动态调度 - 任务总数: {} 线程总数: {} 单源数据库并发上限: {} 单目标数据库并发上限: {}",
+                entries.size(), threads, maxPerSource > 0 ? maxPerSource : "不限", maxPerTarget > 0 ? maxPerTarget : "不限");
+
+        long startTime = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(new Worker());
+        }
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                synchronized (queue) {
+                    logger.info("@@@ 等待任务完成 - 已完成: {} 待领取: {}", finished.size(), queue.size());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+            logger.error("@@@ 多线程任务等待被中断 !");
+            return;
+        }
+
+        report(System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 失败的任务名称 ( executeBatch 完成后有效 )
+     *
+     * @return
+     */
+    public List<String> getFailedTasks() {
+        List<String> failed = new ArrayList<String>();
+        synchronized (queue) {
+            for (Entry entry : finished) {
+                if (entry.failed) failed.add(entry.name);
+            }
+        }
+        return failed;
+    }
+
+    // 领取首个未受并发限制的任务 ( 队列为空返回 null )
+    private Entry take() throws InterruptedException {
+        synchronized (queue) {
+            while (!queue.isEmpty()) {
+                for (Iterator<Entry> it = queue.iterator(); it.hasNext(); ) {
+                    Entry entry = it.next();
+                    if (available(runningPerSource, entry.source, maxPerSource)
+                            && available(runningPerTarget, entry.target, maxPerTarget)) {
+                        it.remove();
+                        adjust(runningPerSource, entry.source, 1);
+                        adjust(runningPerTarget, entry.target, 1);
+                        return entry;
+                    }
+                }
+                queue.wait();
+            }
+            return null;
+        }
+    }
+
+    private void release(Entry entry) {
+        synchronized (queue) {
+            adjust(runningPerSource, entry.source, -1);
+            adjust(runningPerTarget, entry.target, -1);
+            finished.add(entry);
+            queue.notifyAll();
+        }
+    }
+
+    private boolean available(Map<String, Integer> running, String database, int max) {
+        if (max <= 0 || database == null) return true;
+        Integer count = running.get(database);
+        return count == null || count < max;
+    }
+
+    private void adjust(Map<String, Integer> running, String database, int delta) {
+        if (database == null) return;
+        Integer count = running.get(database);
+        running.put(database, (count != null ? count : 0) + delta);
+    }
+
+    // 汇总 - 按原任务顺序输出各任务耗时
+    private void report(long elapsed) {
+        List<Entry> entries;
+        synchronized (queue) {
+            entries = new ArrayList<Entry>(finished);
+        }
+        Collections.sort(entries, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry o1, Entry o2) {
+                return o1.index - o2.index;
+            }
+        });
+        long busy = 0;
+        int failed = 0;
+        for (Entry entry : entries) {
+            logger.info("@@@ {} - 估算行数: {} 线程: {} 耗时: {} 毫秒{}", entry.name,
+                    entry.rows >= 0 ? entry.rows : "未知", entry.thread, entry.elapsed, entry.failed ? " ( 失败 )" : "");
+            busy += entry.elapsed;
+            if (entry.failed) failed++;
+        }
+        logger.info("@@@ 多线程任务完成 - 任务总数: {} 失败: {} 任务累计耗时: {} 毫秒 总耗时: {} 毫秒",
+                entries.size(), failed, busy, elapsed);
+        if (failed > 0) {
+            logger.error("@@@ 失败任务: {}", getFailedTasks());
+        }
+    }
+
+    private class Worker implements Runnable {
+        @Override
+        public void run() {
+            Entry entry;
+            try {
+                while ((entry = take()) != null) {
+                    entry.thread = Thread.currentThread().getName();
+                    long start = System.currentTimeMillis();
+                    try {
+                        entry.task.execute();
+                    } catch (RuntimeException e) {
+                        entry.failed = true;
+                        logger.error("@@@ 任务异常 - " + entry.name, e);
+                    } finally {
+                        entry.elapsed = System.currentTimeMillis() - start;
+                        release(entry);
+                    }
+                    logger.info("@@@ 任务{} - {} 耗时 {} 毫秒", entry.failed ? "失败" : "完成", entry.name, entry.elapsed);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static class Entry {
+        Task task;
+        int index;
+        String name;
+        String source;
+        String target;
+        long rows = -1;
+
+        String thread;
+        long elapsed;
+        boolean failed;
+
+        Entry(Task task, int index) {
+            this.task = task;
+            this.index = index;
+            if (task instanceof TableTask) {
+                TableTask tableTask = (TableTask) task;
+                name = tableTask.getName();
+                source = tableTask.getSource();
+                target = tableTask.getTarget();
+                rows = tableTask.getEstimatedRows();
+            } else {
+                name = task.getClass().getSimpleName() + "-" + index;
+            }
+        }
+    }
+}
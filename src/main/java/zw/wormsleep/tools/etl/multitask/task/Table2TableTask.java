@@ -9,20 +9,57 @@ import zw.wormsleep.tools.etl.ETLTransformer;
 import zw.wormsleep.tools.etl.config.*;
 import zw.wormsleep.tools.etl.extractor.DatabaseExtractor;
 import zw.wormsleep.tools.etl.loader.DatabaseLoader;
-import zw.wormsleep.tools.etl.multitask.Task;
+import zw.wormsleep.tools.etl.multitask.TableTask;
 import zw.wormsleep.tools.etl.transformer.SimpleETLTransformer;
 
 import java.io.File;
 
-public class Table2TableTask implements Task {
+public class Table2TableTask implements TableTask {
     final Logger logger = LoggerFactory.getLogger(Table2TableTask.class);
 
     private String businessType;
     private File configuration;
+    private String source;
+    private String target;
+    private long estimatedRows;
 
     public Table2TableTask(String businessType, File configuration) {
+        this(businessType, configuration, null, null, -1);
+    }
+
+    /**
+     * @param businessType  业务类型 ( 表名 )
+     * @param configuration 配置文件
+     * @param source        源数据库 ( 配置节点名 )
+     * @param target        目标数据库 ( 配置节点名 )
+     * @param estimatedRows 估算行数 ( 未知为 -1 )
+     */
+    public Table2TableTask(String businessType, File configuration, String source, String target, long estimatedRows) {
         this.businessType = businessType;
         this.configuration = configuration;
+        this.source = source;
+        this.target = target;
+        this.estimatedRows = estimatedRows;
+    }
+
+    @Override
+    public String getName() {
+        return businessType;
+    }
+
+    @Override
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public String getTarget() {
+        return target;
+    }
+
+    @Override
+    public long getEstimatedRows() {
+        return estimatedRows;
     }
 
     public void execute() {
@@ -33,11 +70,16 @@ public class Table2TableTask implements Task {
 
             ETLExtractor extractor = new DatabaseExtractor(extractConfig);
             ETLTransformer transformer = new SimpleETLTransformer(transformConfig);
-            ETLLoader loader = new DatabaseLoader(loadConfig);
+            DatabaseLoader loader = new DatabaseLoader(loadConfig);
 
             loader.load(extractor, transformer);
+            // 加载器内部记录 SQL 异常而不抛出, 此处转为任务失败以便调度汇总
+            if (loader.isFailed()) {
+                throw new IllegalStateException("表对表任务加载失败 : " + businessType);
+            }
         } catch (ConfigurationException e) {
             logger.error("配置异常 !", e);
+            throw new IllegalStateException("表对表任务配置异常 : " + businessType, e);
         }
     }
 }
@@ -0,0 +1,173 @@
+package zw.wormsleep.tools.etl.record;
+
+import java.util.*;
+
+/**
+ * 按位置存储的记录
+ * <p/>
+ * 值存放于 Object[] 中并按 RecordSchema 解析出的序号存取, 可通过 clear() 复用同一对象,
+ * 避免每行记录新建 HashMap 及按列名哈希查找的开销。
+ *
+ * @author zhaowei
+ */
+public class ETLRecord {
+
+    private RecordSchema schema;
+    private Object[] values;
+    private Map<String, Object> view;
+
+    public ETLRecord(RecordSchema schema) {
+        this.schema = schema;
+        this.values = new Object[schema.size()];
+    }
+
+    public RecordSchema getSchema() {
+        return schema;
+    }
+
+    public Object get(int index) {
+        return index < values.length ? values[index] : null;
+    }
+
+    public Object get(String name) {
+        int index = schema.indexOf(name);
+        return index < 0 ? null : get(index);
+    }
+
+    public void set(int index, Object value) {
+        if (index >= values.length) {
+            // 结构追加列后扩容
+            values = Arrays.copyOf(values, Math.max(index + 1, schema.size()));
+        }
+        values[index] = value;
+    }
+
+    /**
+     * 按列名设置值 ( 列不存在时追加至结构 )
+     *
+     * @param name  列名
+     * @param value 值
+     */
+    public void set(String name, Object value) {
+        set(schema.add(name), value);
+    }
+
+    /**
+     * 清空全部值以便复用
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+    }
+
+    public int size() {
+        return schema.size();
+    }
+
+    /**
+     * 复制为 Map ( 键为列名 )
+     *
+     * @return
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<String, Object>();
+        int size = schema.size();
+        for (int i = 0; i < size; i++) {
+            map.put(schema.getName(i), get(i));
+        }
+        return map;
+    }
+
+    /**
+     * 获取 Map 视图 ( 读写直接作用于本记录, 供基于 Map 的转换器使用 )
+     *
+     * @return
+     */
+    public Map<String, Object> asMap() {
+        if (view == null) {
+            view = new RecordMap();
+        }
+        return view;
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+
+    private class RecordMap extends AbstractMap<String, Object> {
+
+        @Override
+        public Object get(Object key) {
+            return ETLRecord.this.get(String.valueOf(key));
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            int index = schema.add(key);
+            Object old = ETLRecord.this.get(index);
+            ETLRecord.this.set(index, value);
+            return old;
+        }
+
+        @Override
+        public Object remove(Object key) {
+            int index = schema.indexOf(String.valueOf(key));
+            if (index < 0) return null;
+            Object old = ETLRecord.this.get(index);
+            ETLRecord.this.set(index, null);
+            return old;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return schema.indexOf(String.valueOf(key)) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return schema.size();
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<Entry<String, Object>>() {
+                        private int index = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < schema.size();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            final int i = index++;
+                            return new SimpleEntry<String, Object>(schema.getName(i), ETLRecord.this.get(i)) {
+                                @Override
+                                public Object setValue(Object value) {
+                                    ETLRecord.this.set(i, value);
+                                    return super.setValue(value);
+                                }
+                            };
+                        }
+
+                        @Override
+                        public void remove() {
+                            ETLRecord.this.set(index - 1, null);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return schema.size();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package zw.wormsleep.tools.etl.record;
+
+import zw.wormsleep.tools.etl.ETLRecordTransformer;
+import zw.wormsleep.tools.etl.ETLTransformer;
+
+/**
+ * 基于 Map 的转换器适配 ( 通过 ETLRecord 的 Map 视图直接读写, 不复制数据 )
+ *
+ * @author zhaowei
+ */
+public class MapTransformerAdapter implements ETLRecordTransformer {
+    private ETLTransformer transformer;
+
+    public MapTransformerAdapter(ETLTransformer transformer) {
+        this.transformer = transformer;
+    }
+
+    @Override
+    public void transform(ETLRecord record) {
+        transformer.transform(record.asMap());
+    }
+}
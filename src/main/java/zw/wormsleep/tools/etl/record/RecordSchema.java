@@ -0,0 +1,114 @@
+package zw.wormsleep.tools.etl.record;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 记录结构
+ * <p/>
+ * 列名在抽取前一次性解析为位置序号, 之后按序号存取 ETLRecord 中的值。
+ * 结构只允许追加列 ( 例如转换器生成的 uuid 列 ), 已有列的序号保持不变。
+ * 忽略大小写时 ( Oracle 字段名大写 ) 仅大小写不同的列名对应同一位置, 与 Map 通道加载前将键名转大写一致。
+ *
+ * @author zhaowei
+ */
+public class RecordSchema {
+
+    private List<String> names = new ArrayList<String>();
+    private Map<String, Integer> indexes = new HashMap<String, Integer>();
+    private boolean ignoreCase = false;
+
+    public RecordSchema() {
+    }
+
+    public RecordSchema(List<String> names) {
+        for (String name : names) {
+            add(name);
+        }
+    }
+
+    /**
+     * 设置列名是否忽略大小写 ( 已有列中仅大小写不同者以先出现的为准 )
+     *
+     * @param ignoreCase 是否忽略大小写
+     */
+    public synchronized void setIgnoreCase(boolean ignoreCase) {
+        this.ignoreCase = ignoreCase;
+        indexes.clear();
+        for (int i = 0; i < names.size(); i++) {
+            String key = key(names.get(i));
+            if (!indexes.containsKey(key)) {
+                indexes.put(key, i);
+            }
+        }
+    }
+
+    /**
+     * 追加列 ( 若已存在则直接返回其序号 )
+     *
+     * @param name 列名
+     * @return 列序号
+     */
+    public synchronized int add(String name) {
+        Integer index = indexes.get(key(name));
+        if (index == null) {
+            index = names.size();
+            names.add(name);
+            indexes.put(key(name), index);
+        }
+        return index;
+    }
+
+    /**
+     * 获取列序号
+     *
+     * @param name 列名
+     * @return 列序号, 不存在时返回 -1
+     */
+    public synchronized int indexOf(String name) {
+        Integer index = indexes.get(key(name));
+        return index != null ? index : -1;
+    }
+
+    /**
+     * 获取列序号 ( 忽略大小写 )
+     *
+     * @param name 列名
+     * @return 列序号, 不存在时返回 -1
+     */
+    public synchronized int indexOfIgnoreCase(String name) {
+        int index = indexOf(name);
+        if (index < 0) {
+            for (int i = 0; i < names.size(); i++) {
+                if (names.get(i).equalsIgnoreCase(name)) {
+                    return i;
+                }
+            }
+        }
+        return index;
+    }
+
+    private String key(String name) {
+        return ignoreCase ? name.toUpperCase() : name;
+    }
+
+    public synchronized String getName(int index) {
+        return names.get(index);
+    }
+
+    public synchronized List<String> getNames() {
+        return Collections.unmodifiableList(new ArrayList<String>(names));
+    }
+
+    public synchronized int size() {
+        return names.size();
+    }
+
+    @Override
+    public String toString() {
+        return getNames().toString();
+    }
+}
@@ -107,6 +107,8 @@ public class ConfigBuilderUtils {
             output.addChild(buildNode("database", destDatabase, "type",
                     destDatabaseType));
             output.addChild(buildNode("table", tableName));
+            // 各表行宽差异较大, 按提交耗时自适应批次大小
+            output.addChild(buildNode("adaptivebatch", true));
 
             resource.addChild(input);
             resource.addChild(output);
@@ -9,6 +9,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
 public class ExcelUtils {
     static final Logger logger = LoggerFactory.getLogger(ExcelUtils.class);
@@ -54,9 +55,32 @@ public class ExcelUtils {
      * @return
      */
     public static Map<String, Object> getMatchedInfo(Sheet sheet, Map<String, String> header, int maxHeaderRowIndex) {
-        logger.debug("@@@ Excel 列头匹配检查 ... 最大检索行数：{}", maxHeaderRowIndex);
+        Map<Integer, Map<Integer, Object>> rows = new HashMap<Integer, Map<Integer, Object>>();
+        for (int rowIndex = 0; rowIndex < maxHeaderRowIndex; rowIndex++) {
+            Row row = sheet.getRow(rowIndex);
+            if (row == null) continue;
+            Map<Integer, Object> cells = new TreeMap<Integer, Object>();
+            for (Cell cell : row) {
+                cells.put(cell.getColumnIndex(), getCellValue(cell));
+            }
+            rows.put(rowIndex, cells);
+        }
+
+        return getMatchedInfo(sheet.getSheetName(), rows, header, maxHeaderRowIndex);
+    }
 
-        String sheetName = sheet.getSheetName();
+    /**
+     * 判断并获取匹配的 Header 行号 ( 供流式读取使用 )
+     *
+     * @param sheetName         Sheet 名称
+     * @param rows              行号 - ( 列号 - 值 ) 集合, 列按列号升序
+     * @param header            列头名称 - 字段名称
+     * @param maxHeaderRowIndex 最大检索行数
+     * @return
+     */
+    public static Map<String, Object> getMatchedInfo(String sheetName, Map<Integer, Map<Integer, Object>> rows,
+                                                     Map<String, String> header, int maxHeaderRowIndex) {
+        logger.debug("@@@ Excel 列头匹配检查 ... 最大检索行数：{}", maxHeaderRowIndex);
 
         // 构造返回集合对象
         Map<String, Object> result = new HashMap<String, Object>();
@@ -73,14 +97,15 @@ public class ExcelUtils {
 
         for (int rowIndex = rowStart; rowIndex < maxHeaderRowIndex; rowIndex++) {
             logger.debug("@@@ 检查第 {} 行", rowIndex);
-            Row row = sheet.getRow(rowIndex);
+            Map<Integer, Object> row = rows.get(rowIndex);
+            if (row == null) continue;
             for (String key : header.keySet()) {
                 logger.debug("@@ 查找列名：{}", key);
                 boolean foundFirst = false;
-                for (Cell cell : row) {
-                    int columnIndex = cell.getColumnIndex();
+                for (Map.Entry<Integer, Object> cell : row.entrySet()) {
+                    int columnIndex = cell.getKey();
                     // 判断 head
-                    sheetColumnName = getCellValue(cell);
+                    sheetColumnName = cell.getValue();
                     logger.debug("检查列头 - 行 {} 列 {} 值 {}", rowIndex, columnIndex, sheetColumnName);
                     if (sheetColumnName != null) {
                         if (key.equals(sheetColumnName)) {
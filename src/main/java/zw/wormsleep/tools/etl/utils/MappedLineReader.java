@@ -0,0 +1,200 @@
+package zw.wormsleep.tools.etl.utils;
+
+import org.apache.commons.io.input.BoundedInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.lang.reflect.Method;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * 内存映射行读取器
+ * <p/>
+ * 通过 FileChannel.map 将文件按窗口 ( 默认 256 MB ) 映射至堆外内存, 逐行查找换行字节并仅在读取时解码该行,
+ * 不占用大块堆内缓冲区。读取越过窗口末尾时按当前行首重新映射下一窗口, 故可处理超过 2 GB 的文件;
+ * 单行长度超过窗口时窗口自动扩大。
+ * <p/>
+ * 以 \n 作为行结束符 ( 行末 \r 一并去除 )。仅适用于换行字节不会出现在多字节字符内的编码 ( UTF-8 GBK 等 ),
+ * UTF-16 / UTF-32 编码及输入流自动退化为 BufferedReader 方式读取。
+ * 非线程安全。
+ *
+ * @author zhaowei
+ */
+public class MappedLineReader implements Closeable {
+    static final Logger logger = LoggerFactory.getLogger(MappedLineReader.class);
+
+    private static final int DEFAULT_WINDOW_SIZE = 256 * 1024 * 1024;
+    private static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+    private RandomAccessFile raf;
+    private FileChannel channel;
+    private Charset charset;
+    private long end;
+    private int windowSize = DEFAULT_WINDOW_SIZE;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+    private byte[] bytes = new byte[1024];
+
+    private BufferedReader reader;
+
+    public MappedLineReader(File file, String encoding) throws FileNotFoundException {
+        this(file, encoding, 0, file.length());
+    }
+
+    /**
+     * 读取文件中 [start, end) 字节区间 ( 起始位置需为行首 )
+     *
+     * @param file     文件
+     * @param encoding 文件编码
+     * @param start    起始字节位置
+     * @param end      结束字节位置
+     * @throws FileNotFoundException
+     */
+    public MappedLineReader(File file, String encoding, long start, long end) throws FileNotFoundException {
+        if (isMappable(encoding)) {
+            this.raf = new RandomAccessFile(file, "r");
+            this.channel = raf.getChannel();
+            this.charset = Charset.forName(encoding);
+            this.position = start;
+            this.end = end;
+        } else {
+            FileInputStream fis = new FileInputStream(file);
+            try {
+                fis.getChannel().position(start);
+                this.reader = new BufferedReader(new InputStreamReader(
+                        new BoundedInputStream(fis, end - start), encoding), DEFAULT_BUFFER_SIZE);
+            } catch (IOException e) {
+                closeQuietly(fis);
+                throw new IllegalArgumentException(e);
+            }
+        }
+    }
+
+    /**
+     * 输入流无法映射, 以 BufferedReader 方式读取
+     *
+     * @param ins      输入流
+     * @param encoding 编码
+     * @throws UnsupportedEncodingException
+     */
+    public MappedLineReader(InputStream ins, String encoding) throws UnsupportedEncodingException {
+        this.reader = new BufferedReader(new InputStreamReader(ins, encoding), DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * 编码是否可按换行字节切分
+     *
+     * @param encoding 编码
+     * @return
+     */
+    public static boolean isMappable(String encoding) {
+        String e = encoding.toUpperCase();
+        return !(e.startsWith("UTF-16") || e.startsWith("UTF-32") || e.startsWith("UNICODE"));
+    }
+
+    /**
+     * 读取一行
+     *
+     * @return 不含行结束符的行内容, 已至末尾时返回 null
+     * @throws IOException
+     */
+    public String readLine() throws IOException {
+        if (reader != null) {
+            return reader.readLine();
+        }
+        if (channel == null || position >= end) {
+            return null;
+        }
+
+        while (true) {
+            if (window == null || position < windowStart || position >= windowStart + window.limit()) {
+                map(position);
+            }
+            int from = (int) (position - windowStart);
+            int limit = window.limit();
+            int i = from;
+            while (i < limit && window.get(i) != '\n') {
+                i++;
+            }
+
+            boolean windowReachesEnd = windowStart + limit >= end;
+            if (i < limit || windowReachesEnd) {
+                int length = i - from;
+                position = windowStart + i + (i < limit ? 1 : 0);
+                if (length > 0 && window.get(from + length - 1) == '\r') {
+                    length--;
+                }
+                return decode(from, length);
+            }
+
+            // 行跨越窗口 - 自当前行首重新映射, 窗口仍无法容纳时扩大窗口
+            if (from == 0) {
+                if (windowSize == Integer.MAX_VALUE) {
+                    throw new IOException("行长度超过 " + Integer.MAX_VALUE + " 字节 !");
+                }
+                windowSize = (int) Math.min((long) windowSize * 2, Integer.MAX_VALUE);
+            }
+            map(position);
+        }
+    }
+
+    private String decode(int from, int length) {
+        if (bytes.length < length) {
+            bytes = new byte[Math.max(length, bytes.length * 2)];
+        }
+        window.position(from);
+        window.get(bytes, 0, length);
+        return new String(bytes, 0, length, charset);
+    }
+
+    private void map(long start) throws IOException {
+        unmap();
+        windowStart = start;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, end - start));
+    }
+
+    /**
+     * 立即释放映射内存 ( 否则需等待 GC, 期间 Windows 下文件无法删除 )
+     */
+    private void unmap() {
+        if (window == null) return;
+        try {
+            Method cleanerMethod = window.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(window);
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (Exception e) {
+            logger.debug("@@@ 映射内存释放失败, 等待 GC 回收: {}", e.getMessage());
+        }
+        window = null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (reader != null) {
+            reader.close();
+            reader = null;
+        }
+        if (channel != null) {
+            unmap();
+            channel.close();
+            raf.close();
+            channel = null;
+            raf = null;
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            logger.error("IO 异常 !", e);
+        }
+    }
+}
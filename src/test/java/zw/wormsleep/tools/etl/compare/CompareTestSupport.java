@@ -0,0 +1,71 @@
+package zw.wormsleep.tools.etl.compare;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * 比对相关测试公共方法 - 临时目录、固定种子随机数、测试数据生成及参考排序实现
+ */
+final class CompareTestSupport {
+    static final String SEPARATOR = ",";
+    static final Comparator<KeyValue> KEY_ORDER = new Comparator<KeyValue>() {
+        @Override
+        public int compare(KeyValue o1, KeyValue o2) {
+            return o1.getKey().compareTo(o2.getKey());
+        }
+    };
+
+    private CompareTestSupport() {
+    }
+
+    // 固定种子, 失败时可复现
+    static Random random() {
+        return new Random(20151118);
+    }
+
+    static File createTempDir(String prefix) throws IOException {
+        File dir = File.createTempFile(prefix, "");
+        dir.delete();
+        dir.mkdirs();
+        return dir;
+    }
+
+    static void deleteTempDir(File dir) throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    static File write(File dir, String name, List<String> lines) throws IOException {
+        File file = new File(dir, name);
+        FileUtils.writeLines(file, "UTF-8", lines);
+        return file;
+    }
+
+    // 排序键取值范围较小以产生大量相同键, 序号用于校验稳定性
+    static List<String> lines(Random random, int count, int keys) {
+        List<String> lines = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            lines.add(i + "-" + random.nextInt() + SEPARATOR + "k" + random.nextInt(keys));
+        }
+        return lines;
+    }
+
+    // 参考实现 - 按第 2 列过滤后稳定排序
+    static List<String> sorted(List<String> lines, boolean allowEmptyField) {
+        List<KeyValue> keyValues = new ArrayList<KeyValue>();
+        for (String line : lines) {
+            String[] ls = line.split(SEPARATOR);
+            if (ls.length < 2) continue;
+            if (!allowEmptyField && ls[1].trim().equals("")) continue;
+            keyValues.add(new KeyValue(ls[1], line));
+        }
+        Collections.sort(keyValues, KEY_ORDER);
+        List<String> result = new ArrayList<String>();
+        for (KeyValue keyValue : keyValues) {
+            result.add(keyValue.getValue());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,76 @@
+package zw.wormsleep.tools.etl.compare;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static zw.wormsleep.tools.etl.compare.CompareTestSupport.*;
+
+/**
+ * 外部排序 - 内存排序及多趟归并与参考稳定排序结果一致性
+ */
+public class ExternalSorterTest {
+    private Random random = random();
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = createTempDir("sort");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        deleteTempDir(dir);
+    }
+
+    @Test
+    public void sortInMemory() throws IOException {
+        assertSorted(lines(random, 1000, 500), ExternalSorter.DEFAULT_FAN_IN);
+    }
+
+    @Test
+    public void sortWithMultiPassMerge() throws IOException {
+        // 远超 1 MB 最小内存预算, 两路归并需多趟完成
+        assertSorted(lines(random, 60000, 500), 2);
+    }
+
+    @Test
+    public void sortInPlace() throws IOException {
+        List<String> lines = lines(random, 20000, 500);
+        File src = write(dir, "src.txt", lines);
+        new ExternalSorter("UTF-8", SEPARATOR, 1, true, KEY_ORDER, 0, 3, 0).sort(src, src);
+        assertEquals(sorted(lines, true), FileUtils.readLines(src, "UTF-8"));
+        assertEquals(1, dir.list().length);
+    }
+
+    private void assertSorted(List<String> lines, int fanIn) throws IOException {
+        // 缺少排序域及排序域为空的行
+        lines.add(random.nextInt(lines.size()), "missing");
+        lines.add(random.nextInt(lines.size()), "empty, ");
+        File src = write(dir, "src.txt", lines);
+
+        for (boolean allowEmptyField : new boolean[]{true, false}) {
+            List<String> expected = sorted(lines, allowEmptyField);
+            assertTrue(expected.size() >= lines.size() - 2);
+
+            File dest = new File(dir, "dest-comparator.txt");
+            new ExternalSorter("UTF-8", SEPARATOR, 1, allowEmptyField, KEY_ORDER, 0, fanIn, 0).sort(src, dest);
+            assertEquals(expected, FileUtils.readLines(dest, "UTF-8"));
+
+            dest = new File(dir, "dest-encoded.txt");
+            ExternalSorter.encoded("UTF-8", SEPARATOR, 1, allowEmptyField, SortKeyEncoders.string(), 0, fanIn, 0)
+                    .sort(src, dest);
+            assertEquals(expected, FileUtils.readLines(dest, "UTF-8"));
+        }
+        // 临时顺串目录已删除
+        assertEquals(3, dir.list().length);
+    }
+}
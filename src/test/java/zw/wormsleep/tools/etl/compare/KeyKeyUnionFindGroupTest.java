@@ -0,0 +1,147 @@
+package zw.wormsleep.tools.etl.compare;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static zw.wormsleep.tools.etl.compare.CompareTestSupport.*;
+
+/**
+ * 自然分组 ( 并查集 ) - 内存模式及溢写模式与参考分组结果一致性
+ */
+public class KeyKeyUnionFindGroupTest {
+    private Random random = random();
+    private File dir;
+    private File src;
+    private List<String> lines = new ArrayList<String>();
+
+    @Before
+    public void setUp() throws IOException {
+        dir = createTempDir("group");
+        source(5000);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        deleteTempDir(dir);
+    }
+
+    @Test
+    public void groupInMemory() throws IOException {
+        assertGroups(new KeyKeyUnionFindGroup(src, "UTF-8", SEPARATOR));
+    }
+
+    @Test
+    public void groupWithSpill() throws IOException {
+        assertGroups(new KeyKeyUnionFindGroup(src, "UTF-8", SEPARATOR, 100));
+    }
+
+    @Test
+    public void groupWithSpillInSmallSortBudget() throws IOException {
+        // 溢写文件远超 1 MB 最小排序内存预算, 需分多个顺串外部排序
+        source(50000);
+        assertGroups(new KeyKeyUnionFindGroup(src, "UTF-8", SEPARATOR, 100, 0));
+    }
+
+    @Test
+    public void emptySource() throws IOException {
+        File empty = write(dir, "empty.txt", Collections.<String>emptyList());
+        for (int memoryPairs : new int[]{KeyKeyUnionFindGroup.DEFAULT_MEMORY_PAIRS, 0}) {
+            File dest = new File(dir, "dest-" + memoryPairs);
+            new KeyKeyUnionFindGroup(empty, "UTF-8", SEPARATOR, memoryPairs).group(dest);
+            assertEquals("", FileUtils.readFileToString(dest, "UTF-8").trim());
+        }
+    }
+
+    private void source(int count) throws IOException {
+        lines.clear();
+        for (int i = 0; i < count; i++) {
+            lines.add("a" + random.nextInt(count * 3 / 5) + SEPARATOR + "b" + random.nextInt(count * 3 / 5));
+        }
+        // 重复记录及无分隔符的行
+        lines.add(lines.get(0));
+        lines.add(lines.get(1));
+        lines.add("invalid");
+        src = write(dir, "src.txt", lines);
+    }
+
+    private void assertGroups(KeyKeyUnionFindGroup group) throws IOException {
+        File dest = new File(dir, "dest.txt");
+        group.group(dest);
+
+        Map<String, Set<String>> actual = new HashMap<String, Set<String>>();
+        Map<String, String> flags = new HashMap<String, String>();
+        int count = 0;
+        for (String line : FileUtils.readLines(dest, "UTF-8")) {
+            String[] ls = line.split(SEPARATOR);
+            assertEquals(line, 4, ls.length);
+            Set<String> members = actual.get(ls[1]);
+            if (members == null) {
+                members = new HashSet<String>();
+                actual.put(ls[1], members);
+                flags.put(ls[1], ls[0]);
+            }
+            // 同组重复记录只输出一次
+            assertTrue(line, members.add(ls[2] + SEPARATOR + ls[3]));
+            assertEquals(line, flags.get(ls[1]), ls[0]);
+            count++;
+        }
+        for (Map.Entry<String, Set<String>> entry : actual.entrySet()) {
+            assertEquals(entry.getValue().size() > 1 ? "n" : "1", flags.get(entry.getKey()));
+        }
+
+        Set<Set<String>> expected = reference();
+        assertEquals(new HashSet<String>(lines).size() - 1, count);
+        assertEquals(expected, new HashSet<Set<String>>(actual.values()));
+    }
+
+    // 参考实现 - 按 key 建立邻接关系后广度优先遍历
+    private Set<Set<String>> reference() {
+        Map<String, List<String>> byKey = new HashMap<String, List<String>>();
+        Set<String> records = new LinkedHashSet<String>();
+        for (String line : lines) {
+            String[] ls = line.split(SEPARATOR);
+            if (ls.length < 2) continue;
+            records.add(line);
+            for (String key : new String[]{"1:" + ls[0], "2:" + ls[1]}) {
+                List<String> members = byKey.get(key);
+                if (members == null) {
+                    members = new ArrayList<String>();
+                    byKey.put(key, members);
+                }
+                members.add(line);
+            }
+        }
+
+        Set<Set<String>> groups = new HashSet<Set<String>>();
+        Set<String> visited = new HashSet<String>();
+        for (String record : records) {
+            if (!visited.add(record)) continue;
+            Set<String> members = new HashSet<String>();
+            LinkedList<String> queue = new LinkedList<String>();
+            queue.add(record);
+            while (!queue.isEmpty()) {
+                String current = queue.removeFirst();
+                members.add(current);
+                String[] ls = current.split(SEPARATOR);
+                for (String key : new String[]{"1:" + ls[0], "2:" + ls[1]}) {
+                    for (String next : byKey.get(key)) {
+                        if (visited.add(next)) {
+                            queue.add(next);
+                        }
+                    }
+                }
+            }
+            groups.add(members);
+        }
+        assertTrue(groups.size() > 1 && groups.size() < records.size());
+        return groups;
+    }
+}
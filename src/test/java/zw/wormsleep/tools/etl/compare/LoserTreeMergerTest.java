@@ -0,0 +1,86 @@
+package zw.wormsleep.tools.etl.compare;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static zw.wormsleep.tools.etl.compare.CompareTestSupport.*;
+
+/**
+ * 败者树归并及分割排序 - 与参考稳定排序结果一致性
+ */
+public class LoserTreeMergerTest {
+    private static final String LINE_SEPARATOR = "\n";
+
+    private Random random = random();
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = createTempDir("merge");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        deleteTempDir(dir);
+    }
+
+    @Test
+    public void mergeRuns() throws IOException {
+        for (int k = 0; k <= 17; k++) {
+            assertMerge(k, null);
+            assertMerge(k, SortKeyEncoders.string());
+        }
+    }
+
+    @Test
+    public void sortFileInParts() throws IOException {
+        List<String> lines = lines(random, 5000, 50);
+        // 缺少排序域及排序域为空的行
+        lines.add("missing");
+        lines.add("empty, ");
+
+        for (boolean allowEmptyField : new boolean[]{true, false}) {
+            List<String> expected = sorted(lines, allowEmptyField);
+
+            File src = write(dir, "src.txt", lines);
+            CompareUtils.sortFile(src, "UTF-8", SEPARATOR, 1, allowEmptyField, KEY_ORDER, 97);
+            assertEquals(expected, FileUtils.readLines(src, "UTF-8"));
+
+            src = write(dir, "src.txt", lines);
+            CompareUtils.sortFileEncoded(src, "UTF-8", SEPARATOR, 1, allowEmptyField, SortKeyEncoders.string(), 97);
+            assertEquals(expected, FileUtils.readLines(src, "UTF-8"));
+        }
+    }
+
+    // k 个已排序子序列 ( 含空序列 ) 归并结果等于整体稳定排序
+    private void assertMerge(int k, SortKeyEncoder encoder) throws IOException {
+        List<String> all = new ArrayList<String>();
+        List<BufferedReader> readers = new ArrayList<BufferedReader>();
+        for (int run = 0; run < k; run++) {
+            List<String> lines = sorted(lines(random, random.nextInt(4) == 0 ? 0 : random.nextInt(200), 50), true);
+            all.addAll(lines);
+            StringBuilder content = new StringBuilder();
+            for (String line : lines) {
+                content.append(line).append(LINE_SEPARATOR);
+            }
+            readers.add(new BufferedReader(new StringReader(content.toString())));
+        }
+
+        StringWriter writer = new StringWriter();
+        long count = new LoserTreeMerger(readers, SEPARATOR, 1, KEY_ORDER, encoder).mergeTo(writer, LINE_SEPARATOR);
+
+        List<String> expected = sorted(all, true);
+        assertEquals(expected.size(), count);
+        List<String> actual = new ArrayList<String>();
+        for (String line : writer.toString().split(LINE_SEPARATOR)) {
+            if (line.length() > 0) actual.add(line);
+        }
+        assertEquals("k=" + k, expected, actual);
+    }
+}
@@ -0,0 +1,212 @@
+package zw.wormsleep.tools.etl.compare;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static zw.wormsleep.tools.etl.compare.CompareTestSupport.*;
+
+/**
+ * n-gram 倒排索引相似度匹配 - 与逐对比较结果一致性
+ */
+public class NGramSimilarityIndexTest {
+    private static final String SEPARATOR = "!@#";
+    private static final String CHARS = "国公司有限责任科技发展北京上海深圳广州贸易实业集团电子信息网络服务中心建设工程";
+
+    private Random random = random();
+    private File dir;
+    private List<String> firsts = new ArrayList<String>();
+    private List<String> seconds = new ArrayList<String>();
+
+    @Before
+    public void setUp() throws IOException {
+        dir = createTempDir("ngram");
+
+        for (int i = 0; i < 3000; i++) {
+            seconds.add(name());
+        }
+        for (int i = 0; i < 300; i++) {
+            firsts.add(random.nextInt(3) == 0 ? name() : perturb(seconds.get(random.nextInt(seconds.size()))));
+        }
+        // 大小写不同的拉丁字母 ( Jaro-Winkler 忽略大小写 )
+        for (int i = 0; i < 100; i++) {
+            String second = latin() + name();
+            seconds.add(second);
+            firsts.add(swapCase(random.nextBoolean() ? second : perturb(second)));
+        }
+        firsts.add("abc贸易公司");
+        seconds.add("ABC贸易公司");
+        // 换位后无共同二元 n-gram 但相似度达到阈值
+        firsts.add("国司公限有");
+        seconds.add("国公司有限");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        deleteTempDir(dir);
+    }
+
+    @Test
+    public void transposedContentMatches() throws IOException {
+        JaroWinklerDistanceComparator comparator = new JaroWinklerDistanceComparator(0.85);
+        assertTrue(comparator.compare("国司公限有", "国公司有限"));
+
+        NGramSimilarityIndex index = new NGramSimilarityIndex(write("s", seconds), "UTF-8", SEPARATOR,
+                NGramSimilarityIndex.DEFAULT_GRAM_SIZE, comparator);
+        assertTrue(search(index, "国司公限有").contains("s" + (seconds.size() - 1)));
+    }
+
+    @Test
+    public void mixedCaseContentMatches() throws IOException {
+        // 匹配前转小写 ( commons-lang3 3.3.2 getJaroWinklerDistance 亦然 )
+        assertTrue(new FastJaroWinklerComparator(0.85).compare("abc贸易公司", "ABC贸易公司"));
+
+        for (JaroWinklerDistanceComparator comparator : new JaroWinklerDistanceComparator[]{
+                new JaroWinklerDistanceComparator(0.85), new FastJaroWinklerComparator(0.85)}) {
+            NGramSimilarityIndex index = new NGramSimilarityIndex(write("s", seconds), "UTF-8", SEPARATOR,
+                    NGramSimilarityIndex.DEFAULT_GRAM_SIZE, comparator);
+            assertEquals(comparator.compare("abc贸易公司", "ABC贸易公司"),
+                    search(index, "abc贸易公司").contains("s" + (seconds.size() - 2)));
+        }
+    }
+
+    @Test
+    public void jaroWinklerMatchesBruteForce() throws IOException {
+        for (double threshold : new double[]{0.85, 0.9}) {
+            for (int gramSize = 1; gramSize <= 3; gramSize++) {
+                for (int scope : new int[]{0, 4}) {
+                    assertBruteForce(new JaroWinklerDistanceComparator(threshold), gramSize, scope);
+                    assertBruteForce(new FastJaroWinklerComparator(threshold), gramSize, scope);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void levenshteinMatchesBruteForce() throws IOException {
+        for (int gramSize = 1; gramSize <= 3; gramSize++) {
+            for (int scope : new int[]{0, 4}) {
+                assertBruteForce(new LevenshteinDistanceComparator(2), gramSize, scope);
+            }
+        }
+    }
+
+    @Test
+    public void indexedMatchesSimilarity() throws IOException {
+        File f = write("f", firsts);
+        File s = write("s", seconds);
+        File expected = new File(dir, "expected");
+        File actual = new File(dir, "actual");
+
+        CompareUtils.similarity(f, s, 0.85, expected);
+        CompareUtils.similarityIndexed(f, s, 0.85, actual);
+
+        Set<String> lines = new HashSet<String>(FileUtils.readLines(expected, "UTF-8"));
+        lines.remove("");
+        assertTrue(lines.size() > firsts.size() / 2);
+        assertEquals(lines, new HashSet<String>(FileUtils.readLines(actual, "UTF-8")));
+    }
+
+    private void assertBruteForce(SimilarityComparator comparator, int gramSize, int scope) throws IOException {
+        NGramSimilarityIndex index = new NGramSimilarityIndex(write("s", seconds), "UTF-8", SEPARATOR,
+                gramSize, comparator, scope);
+        for (String first : firsts) {
+            Set<String> expected = new HashSet<String>();
+            for (int i = 0; i < seconds.size(); i++) {
+                if (matches(comparator, scope, first, seconds.get(i))) {
+                    expected.add("s" + i);
+                }
+            }
+            assertEquals(comparator.getClass().getSimpleName() + " n=" + gramSize + " scope=" + scope + " " + first,
+                    expected, search(index, first));
+        }
+    }
+
+    // 与 SimilarityMemoryLimitedScopeThread 一致的逐对比较
+    private boolean matches(SimilarityComparator comparator, int scope, String first, String second) {
+        if (scope <= 0) {
+            return comparator.compare(first, second);
+        }
+        int length = first.length();
+        if (length < 5) {
+            return first.equals(second);
+        }
+        return second.length() >= Math.max(length - scope, 4) && second.length() <= length + scope
+                && comparator.compare(first, second);
+    }
+
+    private Set<String> search(NGramSimilarityIndex index, String content) {
+        final Set<String> keys = new HashSet<String>();
+        index.searcher().search(content, new NGramSimilarityIndex.MatchHandler() {
+            @Override
+            public void matched(CompareUnit unit) {
+                keys.add(unit.key);
+            }
+        });
+        return keys;
+    }
+
+    private File write(String prefix, List<String> contents) throws IOException {
+        List<String> lines = new ArrayList<String>();
+        for (int i = 0; i < contents.size(); i++) {
+            lines.add(prefix + i + SEPARATOR + contents.get(i));
+        }
+        return CompareTestSupport.write(dir, prefix + ".txt", lines);
+    }
+
+    private String name() {
+        StringBuilder name = new StringBuilder();
+        int length = 2 + random.nextInt(12);
+        for (int i = 0; i < length; i++) {
+            name.append(CHARS.charAt(random.nextInt(CHARS.length())));
+        }
+        if (random.nextBoolean()) {
+            name.append("有限公司");
+        }
+        return name.toString();
+    }
+
+    private String latin() {
+        StringBuilder latin = new StringBuilder();
+        int length = 1 + random.nextInt(4);
+        for (int i = 0; i < length; i++) {
+            latin.append((char) ((random.nextBoolean() ? 'A' : 'a') + random.nextInt(26)));
+        }
+        return latin.toString();
+    }
+
+    private String swapCase(String content) {
+        char[] chars = content.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.isUpperCase(chars[i]) ? Character.toLowerCase(chars[i]) : Character.toUpperCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    // 相邻换位、删除首字符或追加字符
+    private String perturb(String content) {
+        char[] chars = content.toCharArray();
+        int swaps = random.nextInt(3);
+        for (int i = 0; i < swaps && chars.length > 1; i++) {
+            int a = random.nextInt(chars.length - 1);
+            char c = chars[a];
+            chars[a] = chars[a + 1];
+            chars[a + 1] = c;
+        }
+        String result = new String(chars);
+        if (random.nextInt(4) == 0 && result.length() > 1) {
+            result = result.substring(1);
+        }
+        if (random.nextInt(4) == 0) {
+            result = result + CHARS.charAt(random.nextInt(CHARS.length()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,144 @@
+package zw.wormsleep.tools.etl.extractor;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 分隔文本行解析器
+ */
+public class DelimitedTokenizerTest {
+
+    @Test
+    public void plainFields() {
+        DelimitedTokenizer tokenizer = new DelimitedTokenizer("|", null, null, false, new int[]{0, 2});
+        int count = tokenizer.tokenize("a|b| c ");
+        assertEquals(3, count);
+        assertTrue(tokenizer.isComplete(count));
+        assertEquals("a", tokenizer.get(0));
+        assertEquals(" c ", tokenizer.get(2));
+    }
+
+    @Test
+    public void emptyFields() {
+        DelimitedTokenizer tokenizer = new DelimitedTokenizer("|", null, null, false, new int[]{0, 1, 2});
+        int count = tokenizer.tokenize("||");
+        assertEquals(3, count);
+        assertTrue(tokenizer.isComplete(count));
+        assertEquals("", tokenizer.get(0));
+        assertEquals("", tokenizer.get(1));
+        assertEquals("", tokenizer.get(2));
+    }
+
+    @Test
+    public void regexEscapedSeparator() {
+        DelimitedTokenizer tokenizer = new DelimitedTokenizer("\\|", null, null, false, new int[]{1});
+        int count = tokenizer.tokenize("a|b|c");
+        assertTrue(tokenizer.isComplete(count));
+        assertEquals("b", tokenizer.get(1));
+    }
+
+    @Test
+    public void multiCharSeparator() {
+        DelimitedTokenizer tokenizer = new DelimitedTokenizer("!@#", null, null, false, new int[]{0, 1, 2});
+        int count = tokenizer.tokenize("a!b@#!@#c!@#d");
+        assertEquals(3, count);
+        assertEquals("a!b@#", tokenizer.get(0));
+        assertEquals("c", tokenizer.get(1));
+        assertEquals("d", tokenizer.get(2));
+    }
+
+    @Test
+    public void stopsAfterLastWantedField() {
+        DelimitedTokenizer tokenizer = new DelimitedTokenizer(",", null, null, false, new int[]{1});
+        int count = tokenizer.tokenize("a,b,\"unterminated");
+        assertEquals(2, count);
+        assertTrue(tokenizer.isComplete(count));
+        assertEquals("b", tokenizer.get(1));
+    }
+
+    @Test
+    public void incompleteLines() {
+        DelimitedTokenizer tokenizer = new DelimitedTokenizer(",", null, null, false, new int[]{0, 3});
+        assertFalse(tokenizer.isComplete(tokenizer.tokenize("a,b")));
+
+        tokenizer = new DelimitedTokenizer(",", null, null, false, new int[]{0});
+        // 不含分隔符的行视为不完整
+        assertFalse(tokenizer.isComplete(tokenizer.tokenize("abc")));
+    }
+
+    @Test
+    public void trimFields() {
+        DelimitedTokenizer tokenizer = new DelimitedTokenizer(",", "\"", null, true, new int[]{0, 1});
+        tokenizer.tokenize("  a  ,\" b \"  ");
+        assertEquals("a", tokenizer.get(0));
+        assertEquals("b", tokenizer.get(1));
+    }
+
+    @Test
+    public void quotedFields() {
+        DelimitedTokenizer tokenizer = new DelimitedTokenizer(",", "\"", null, false, new int[]{0, 1, 2});
+        int count = tokenizer.tokenize("\"a,b\",\"x\"\"y\",z");
+        assertEquals(3, count);
+        assertEquals("a,b", tokenizer.get(0));
+        assertEquals("x\"y", tokenizer.get(1));
+        assertEquals("z", tokenizer.get(2));
+
+        // 闭合引号之后的字符并入域值
+        tokenizer.tokenize("\"a\"b,c");
+        assertEquals("ab", tokenizer.get(0));
+        assertEquals("c", tokenizer.get(1));
+    }
+
+    @Test
+    public void unterminatedQuote() {
+        DelimitedTokenizer tokenizer = new DelimitedTokenizer(",", "\"", null, false, new int[]{0, 1});
+        String line = "\"first,line";
+        assertEquals(DelimitedTokenizer.UNTERMINATED, tokenizer.tokenize(line));
+
+        line = line + "\n" + "second\",x";
+        int count = tokenizer.tokenize(line);
+        assertTrue(tokenizer.isComplete(count));
+        assertEquals("first,line\nsecond", tokenizer.get(0));
+        assertEquals("x", tokenizer.get(1));
+    }
+
+    @Test
+    public void escapedCharacters() {
+        DelimitedTokenizer tokenizer = new DelimitedTokenizer("|", "\"", "\\", false, new int[]{0, 1, 2});
+        int count = tokenizer.tokenize("a\\|b|\"c\\\"d\"|e");
+        assertEquals(3, count);
+        assertEquals("a|b", tokenizer.get(0));
+        assertEquals("c\"d", tokenizer.get(1));
+        assertEquals("e", tokenizer.get(2));
+    }
+
+    @Test
+    public void matchesSplit() {
+        Random random = new Random(20151118);
+        String chars = "ab|!@# 中文";
+        for (String separator : new String[]{"|", "!@#"}) {
+            int[] fields = {0, 1, 2, 3, 4, 5};
+            DelimitedTokenizer tokenizer = new DelimitedTokenizer(separator, null, null, false, fields);
+            for (int i = 0; i < 10000; i++) {
+                StringBuilder line = new StringBuilder();
+                int length = random.nextInt(30);
+                for (int j = 0; j < length; j++) {
+                    line.append(chars.charAt(random.nextInt(chars.length())));
+                }
+                String[] expected = line.toString().split(Pattern.quote(separator), -1);
+                int count = tokenizer.tokenize(line.toString());
+                assertEquals(line.toString(), Math.min(expected.length, fields.length), count);
+                for (int j = 0; j < count; j++) {
+                    assertEquals(line.toString(), expected[j], tokenizer.get(j));
+                }
+                assertEquals(line.toString(), expected.length >= fields.length, tokenizer.isComplete(count));
+            }
+        }
+    }
+}